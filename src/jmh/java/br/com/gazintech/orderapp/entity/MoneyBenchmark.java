@@ -0,0 +1,90 @@
+package br.com.gazintech.orderapp.entity;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the entity methods the order and credit paths call: {@link Order#calculateTotalValue()} with
+ * {@link Partner#hasAvailableCredit(Money)} when an order is created, and {@link Partner#debitCredit(Money)}
+ * with {@link Partner#creditCredit(Money)} when it is approved and canceled.
+ * The {@code bigDecimal} benchmarks are the same steps as they were written before {@link Money}.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoneyBenchmark {
+
+    @Param({"1", "10", "100", "500"})
+    private int itemCount;
+
+    private Order order;
+    private Partner partner;
+    private List<BigDecimal> prices;
+    private List<Integer> quantities;
+    private BigDecimal bigDecimalCreditLimit;
+    private BigDecimal bigDecimalAvailableCredit;
+
+    @Setup
+    public void setUp() {
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        prices = new ArrayList<>(itemCount);
+        quantities = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            BigDecimal price = BigDecimal.valueOf(ThreadLocalRandom.current().nextLong(1, 100_000), 2);
+            int quantity = ThreadLocalRandom.current().nextInt(1, 20);
+            prices.add(price);
+            quantities.add(quantity);
+            items.add(OrderItem.builder().code("I" + i).name("Item " + i).quantity(quantity).price(price).build());
+        }
+        order = Order.builder().items(items).build();
+        order.calculateTotalValue();
+
+        partner = new Partner();
+        partner.setCreditLimit(BigDecimal.valueOf(1_000_000_000L, 2));
+        partner.setAvailableCredit(BigDecimal.valueOf(500_000_000L, 2));
+        bigDecimalCreditLimit = partner.getCreditLimit();
+        bigDecimalAvailableCredit = partner.getAvailableCredit();
+    }
+
+    @Benchmark
+    public boolean moneyCreateOrder() {
+        order.calculateTotalValue();
+        return partner.hasAvailableCredit(order.getTotal());
+    }
+
+    @Benchmark
+    public boolean bigDecimalCreateOrder() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < prices.size(); i++) {
+            total = total.add(prices.get(i).multiply(BigDecimal.valueOf(quantities.get(i))));
+        }
+        return bigDecimalAvailableCredit.compareTo(total) >= 0;
+    }
+
+    @Benchmark
+    public Partner moneyApproveAndCancel() {
+        partner.debitCredit(order.getTotal());
+        partner.creditCredit(order.getTotal());
+        return partner;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalApproveAndCancel() {
+        BigDecimal total = order.getTotalValue();
+        if (bigDecimalAvailableCredit.compareTo(total) < 0) {
+            throw new IllegalStateException("Insufficient balance");
+        }
+        bigDecimalAvailableCredit = bigDecimalAvailableCredit.subtract(total);
+        bigDecimalAvailableCredit = bigDecimalAvailableCredit.add(total);
+        if (bigDecimalAvailableCredit.compareTo(bigDecimalCreditLimit) > 0) {
+            bigDecimalAvailableCredit = bigDecimalCreditLimit;
+        }
+        return bigDecimalAvailableCredit;
+    }
+}
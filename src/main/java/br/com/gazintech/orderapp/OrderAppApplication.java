@@ -1,10 +1,13 @@
 package br.com.gazintech.orderapp;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
@@ -13,11 +16,19 @@ import java.util.concurrent.Executor;
 @SpringBootApplication
 @EnableCaching
 @EnableAsync
+@EnableScheduling
 @EnableTransactionManagement
 public class OrderAppApplication {
 
     @Bean
-    public Executor taskExecutor() {
+    public Executor taskExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                 @Value("${order-app.async.concurrency-limit:16}") int concurrencyLimit) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("order-app-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(concurrencyLimit);
+            return executor;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(2);
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -40,7 +41,8 @@ public class ApiResponse<T> {
     }
 
     @Getter
-    @JsonPropertyOrder({"total-items", "total-pages", "current-page"})
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonPropertyOrder({"total-items", "total-pages", "current-page", "has-next", "count", "next-cursor"})
     public static class Pagination {
         @JsonProperty("total-items")
         private Long totalItems;
@@ -51,11 +53,32 @@ public class ApiResponse<T> {
         @JsonProperty("current-page")
         private Integer currentPage;
 
+        @JsonProperty("has-next")
+        private Boolean hasNext;
+
+        @JsonProperty("count")
+        private String count;
+
+        @JsonProperty("next-cursor")
+        private String nextCursor;
+
         public Pagination(Long totalItems, Integer totalPages, Integer currentPage) {
             this.totalItems = totalItems;
             this.totalPages = totalPages;
             this.currentPage = currentPage;
         }
+
+        public Pagination(Long totalItems, Integer totalPages, Integer currentPage, String nextCursor) {
+            this(totalItems, totalPages, currentPage);
+            this.nextCursor = nextCursor;
+        }
+
+        public Pagination(Long totalItems, Integer totalPages, Integer currentPage, Boolean hasNext, String count,
+                          String nextCursor) {
+            this(totalItems, totalPages, currentPage, nextCursor);
+            this.hasNext = hasNext;
+            this.count = count;
+        }
     }
 
     public static <T> ApiResponseBuilder<T> builder() {
@@ -76,6 +99,9 @@ public class ApiResponse<T> {
         private Long paginationTotalItems;
         private Integer paginationTotalPages;
         private Integer paginationCurrentPage;
+        private Boolean paginationHasNext;
+        private String paginationCount;
+        private String paginationNextCursor;
 
         public ApiResponseBuilder<T> body(T body) {
             this.body = body;
@@ -154,14 +180,37 @@ public class ApiResponse<T> {
             return this;
         }
 
+        public ApiResponseBuilder<T> pagination(Slice<?> slice, CountMode countMode) {
+            if (slice == null) {
+                return this;
+            }
+            if (slice instanceof Page<?> page && countMode != CountMode.NONE) {
+                pagination(page);
+            }
+            this.paginationCurrentPage = slice.getNumber() + 1;
+            this.paginationHasNext = slice.hasNext();
+            this.paginationCount = countMode != null ? countMode.value() : null;
+            return this;
+        }
+
+        public ApiResponseBuilder<T> pagination(CursorPage<?> page) {
+            if (page == null) {
+                return this;
+            }
+            this.paginationNextCursor = page.nextCursor();
+            return this;
+        }
+
         public ResponseEntity<ApiResponse<T>> build() {
             ApiResponse<T> response = new ApiResponse<>();
             response.setBody(body);
             response.setErrorCode(errorCode);
             response.setErrorMessage(errorMessage);
             response.setStatus(status != null ? status : ApiResponse.Status.SUCCESS);
-            if (paginationTotalItems != null || paginationTotalPages != null || paginationCurrentPage != null) {
-                response.setPagination(new Pagination(paginationTotalItems, paginationTotalPages, paginationCurrentPage));
+            if (paginationTotalItems != null || paginationTotalPages != null || paginationCurrentPage != null
+                    || paginationHasNext != null || paginationNextCursor != null) {
+                response.setPagination(new Pagination(paginationTotalItems, paginationTotalPages, paginationCurrentPage,
+                        paginationHasNext, paginationCount, paginationNextCursor));
             }
             return ResponseEntity.status(httpStatus).body(response);
         }
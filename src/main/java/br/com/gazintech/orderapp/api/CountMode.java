@@ -0,0 +1,32 @@
+package br.com.gazintech.orderapp.api;
+
+import java.util.Locale;
+
+/**
+ * Enum representing how a paginated search computes its total count.
+ * <p>
+ * - EXACT: Runs a COUNT(*) with the search filters on every page.
+ * - NONE: Runs no count, the response only tells if there is a next page.
+ * - ESTIMATE: Uses the planner row estimate of the table without filters, or an exact count cached for a short time.
+ * </p>
+ */
+public enum CountMode {
+    EXACT,
+    NONE,
+    ESTIMATE;
+
+    /**
+     * Parses the mode from a request parameter, ignoring case.
+     *
+     * @param value the parameter value
+     * @return the count mode
+     * @throws IllegalArgumentException if the value is not a count mode
+     */
+    public static CountMode fromValue(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.gazintech.orderapp.api;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of results read with cursor pagination.
+ *
+ * @param content    the results of the page
+ * @param nextCursor the token to read the next page, or null on the last page
+ * @param <T>        the type of the results
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), nextCursor);
+    }
+}
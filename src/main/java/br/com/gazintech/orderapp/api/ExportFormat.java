@@ -0,0 +1,44 @@
+package br.com.gazintech.orderapp.api;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Enum representing the formats of the order export.
+ * <p>
+ * - NDJSON: One JSON object per line.
+ * - CSV: A header line followed by one comma-separated line per order.
+ * </p>
+ */
+public enum ExportFormat {
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+    CSV(new MediaType("text", "csv"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    /**
+     * Parses the format from a request parameter, ignoring case.
+     *
+     * @param value the parameter value
+     * @return the export format
+     * @throws IllegalArgumentException if the value is not an export format
+     */
+    public static ExportFormat fromValue(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.gazintech.orderapp.api;
+
+import java.util.Arrays;
+
+/**
+ * Enum representing the fields of an order that a client can select with {@code fields=}.
+ * <p>
+ * - PARTNER: Read from a join with the partner, only when selected.
+ * - ITEMS: Read by a second query on the items of the page, only when selected.
+ * - The other fields are columns of the order itself.
+ * </p>
+ */
+public enum OrderField {
+    ID("id"),
+    PARTNER("partner"),
+    ITEMS("items"),
+    TOTAL_VALUE("totalValue"),
+    STATUS("status"),
+    CREATED_AT("createdAt"),
+    UPDATED_AT("updatedAt"),
+    VERSION("version");
+
+    private final String value;
+
+    OrderField(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Parses the field from a request parameter, by its JSON name and ignoring case.
+     *
+     * @param value the parameter value
+     * @return the order field
+     * @throws IllegalArgumentException if the value is not an order field
+     */
+    public static OrderField fromValue(String value) {
+        String name = value.trim();
+        return Arrays.stream(values())
+                .filter(field -> field.value.equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown order field: " + value));
+    }
+
+    public String value() {
+        return value;
+    }
+}
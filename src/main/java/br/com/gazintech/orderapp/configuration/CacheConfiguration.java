@@ -1,10 +1,21 @@
 package br.com.gazintech.orderapp.configuration;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
@@ -13,6 +24,9 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.SerializationException;
@@ -20,6 +34,13 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Configuration
 public class CacheConfiguration {
@@ -28,11 +49,18 @@ public class CacheConfiguration {
     public ObjectMapper redisObjectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.activateDefaultTyping(
-                BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
-                ObjectMapper.DefaultTyping.NON_FINAL,
-                JsonTypeInfo.As.PROPERTY // Use PROPERTY to avoid WRAPPER_ARRAY
-        );
+        PolymorphicTypeValidator validator = BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build();
+        // same as activateDefaultTyping, with JDK immutable collections written under a type that can be read back
+        TypeResolverBuilder<?> typer = new ObjectMapper.DefaultTypeResolverBuilder(ObjectMapper.DefaultTyping.NON_FINAL, validator) {
+            @Override
+            protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType, PolymorphicTypeValidator subtypeValidator,
+                                                Collection<NamedType> subtypes, boolean forSer, boolean forDeser) {
+                return new MutableCollectionTypeIdResolver(baseType, config.getTypeFactory(), subtypeValidator);
+            }
+        }
+                .init(JsonTypeInfo.Id.CLASS, null)
+                .inclusion(JsonTypeInfo.As.PROPERTY); // Use PROPERTY to avoid WRAPPER_ARRAY
+        objectMapper.setDefaultTyping(typer);
         return objectMapper;
     }
 
@@ -44,22 +72,106 @@ public class CacheConfiguration {
                         RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(10)));
     }
 
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
     @Primary
     @Bean
     public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
-                                     @Qualifier("redisObjectMapper") ObjectMapper redisObjectMapper) {
+                                     @Qualifier("redisObjectMapper") ObjectMapper redisObjectMapper,
+                                     @Value("${order-app.cache.transaction-aware:true}") boolean transactionAware,
+                                     @Value("${order-app.orders.count.cache-ttl:PT30S}") Duration countCacheTtl,
+                                     @Value("${order-app.orders.search-cache.ttl:PT1M}") Duration searchCacheTtl,
+                                     @Value("${order-app.partners.order-stats.cache-ttl:PT1M}") Duration orderStatsCacheTtl,
+                                     @Value("${order-app.cache.near.enabled:true}") boolean nearCacheEnabled,
+                                     @Value("${order-app.cache.near.caches:orders}") Set<String> nearCacheNames,
+                                     @Value("${order-app.cache.near.maximum-size:10000}") long nearCacheMaximumSize,
+                                     @Value("${order-app.cache.near.expire-after-write:PT30S}") Duration nearCacheTtl,
+                                     @Value("${order-app.cache.near.invalidation-channel:order-app:cache:invalidation}") String invalidationChannel,
+                                     StringRedisTemplate stringRedisTemplate,
+                                     RedisMessageListenerContainer cacheInvalidationListenerContainer,
+                                     MeterRegistry meterRegistry) {
 
+        CustomJackson2JsonRedisSerializer valueSerializer = new CustomJackson2JsonRedisSerializer(redisObjectMapper);
         RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))
                 .disableCachingNullValues()
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
-                        new CustomJackson2JsonRedisSerializer(redisObjectMapper)
-                ));
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(cacheConfiguration)
-                .build();
+                // counts of paginated searches only need to be roughly current
+                .withCacheConfiguration("orderCounts", cacheConfiguration.entryTtl(countCacheTtl))
+                // stale search entries are never read again once their scope is invalidated, they only wait to expire
+                .withCacheConfiguration("orderSearches", cacheConfiguration.entryTtl(searchCacheTtl))
+                // evicted by every change to the statistics, the TTL only bounds entries of idle partners
+                .withCacheConfiguration("partnerOrderStats", cacheConfiguration.entryTtl(orderStatsCacheTtl));
+
+        if (!nearCacheEnabled) {
+            // puts and evictions made inside a transaction are queued and only reach Redis after commit
+            if (transactionAware) {
+                builder.transactionAware();
+            }
+            return builder.build();
+        }
+
+        // the Redis manager is not a bean, so its configured caches are loaded here
+        RedisCacheManager redisCacheManager = builder.build();
+        redisCacheManager.initializeCaches();
+
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager,
+                Caffeine.newBuilder()
+                        .maximumSize(nearCacheMaximumSize)
+                        .expireAfterWrite(nearCacheTtl),
+                nearCacheNames, valueSerializer, stringRedisTemplate, invalidationChannel, meterRegistry);
+        // the transaction-aware decoration moves to the two-level caches, so both tiers change after commit
+        cacheManager.setTransactionAware(transactionAware);
+        cacheInvalidationListenerContainer.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+        return cacheManager;
+    }
+}
+
+/**
+ * Type ID resolver that names JDK immutable and unmodifiable collections, e.g. from {@code List.of} or
+ * {@code Stream.toList}, by a mutable collection type, since their own classes cannot be instantiated when read.
+ */
+class MutableCollectionTypeIdResolver extends ClassNameIdResolver {
+
+    MutableCollectionTypeIdResolver(JavaType baseType, TypeFactory typeFactory, PolymorphicTypeValidator validator) {
+        super(baseType, typeFactory, validator);
+    }
+
+    @Override
+    public String idFromValue(Object value) {
+        return idFromValueAndType(value, value.getClass());
+    }
+
+    @Override
+    public String idFromValueAndType(Object value, Class<?> type) {
+        if (type != null && isJdkWrapper(type)) {
+            if (value instanceof List) {
+                return ArrayList.class.getName();
+            }
+            if (value instanceof Set) {
+                return LinkedHashSet.class.getName();
+            }
+            if (value instanceof Map) {
+                return LinkedHashMap.class.getName();
+            }
+        }
+        return super.idFromValueAndType(value, type);
+    }
+
+    private static boolean isJdkWrapper(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.util.ImmutableCollections$")
+                || name.startsWith("java.util.Collections$")
+                || name.startsWith("java.util.Arrays$");
     }
 }
 
@@ -0,0 +1,33 @@
+package br.com.gazintech.orderapp.configuration;
+
+import br.com.gazintech.orderapp.service.credit.CreditBatchCoordinator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Connection pool of the {@link CreditBatchCoordinator}, so callers waiting on a batch while holding connections
+ * of the application pool can never starve it.
+ * <p>
+ * The pool is not a default candidate: it does not replace the application data source and is only injected where
+ * it is asked for by name. As a bean it is still closed by the container and published with the other pool metrics.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "order-app.credit.mode", havingValue = "GROUP_COMMIT")
+public class CreditBatchDataSourceConfiguration {
+
+    @Bean(defaultCandidate = false)
+    public HikariDataSource creditBatchDataSource(DataSourceProperties properties,
+                                                  @Value("${order-app.credit.group-commit.workers:4}") int workers) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("CreditBatchHikariPool");
+        // one connection per worker and one for the sweep
+        dataSource.setMaximumPoolSize(workers + 1);
+        dataSource.setMinimumIdle(1);
+        return dataSource;
+    }
+}
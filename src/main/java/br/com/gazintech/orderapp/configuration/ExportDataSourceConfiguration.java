@@ -0,0 +1,41 @@
+package br.com.gazintech.orderapp.configuration;
+
+import br.com.gazintech.orderapp.service.OrderExportService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Connection pool of the {@link OrderExportService}, on the read replica when it is enabled, so exports holding
+ * a connection for minutes never take the connections of the request paths.
+ * <p>
+ * The pool is not a default candidate: it does not replace the application data source and is only injected where
+ * it is asked for by name. As a bean it is still closed by the container and published with the other pool metrics.
+ * </p>
+ */
+@Configuration
+public class ExportDataSourceConfiguration {
+
+    @Bean(defaultCandidate = false)
+    public HikariDataSource exportDataSource(DataSourceProperties properties,
+                                             @Value("${order-app.orders.export.max-concurrent:2}") int maxConcurrent,
+                                             @Value("${order-app.datasource.replica.enabled:false}") boolean replicaEnabled,
+                                             @Value("${order-app.datasource.replica.url:}") String replicaUrl,
+                                             @Value("${order-app.datasource.replica.username:${spring.datasource.username}}") String replicaUsername,
+                                             @Value("${order-app.datasource.replica.password:${spring.datasource.password}}") String replicaPassword) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (replicaEnabled) {
+            dataSource.setJdbcUrl(replicaUrl);
+            dataSource.setUsername(replicaUsername);
+            dataSource.setPassword(replicaPassword);
+        }
+        dataSource.setPoolName("ExportHikariPool");
+        // one connection per export that may run at a time
+        dataSource.setMaximumPoolSize(maxConcurrent);
+        dataSource.setMinimumIdle(0);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.gazintech.orderapp.configuration;
+
+import br.com.gazintech.orderapp.utils.ReplicaRouting;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Splits the connections between a primary pool and a read replica pool, so read bursts do not take the
+ * connections of the write paths.
+ * <p>
+ * The application data source only takes a connection at the first statement of a transaction, once the
+ * service method has chosen where its reads run with {@link ReplicaRouting}.
+ * {@link ReplicaLagMonitor} sends every read back to the primary while the replica lags too far behind.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "order-app.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("order-app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${order-app.datasource.replica.url}") String url,
+                                              @Value("${order-app.datasource.replica.username:${spring.datasource.username}}") String username,
+                                              @Value("${order-app.datasource.replica.password:${spring.datasource.password}}") String password) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                               @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${order-app.datasource.replica.max-lag:PT5S}") Duration maxLag,
+                                               @Value("${order-app.datasource.replica.lag-check-interval-ms:1000}") long lagCheckIntervalMs,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(primaryDataSource, replicaDataSource, maxLag, Duration.ofMillis(lagCheckIntervalMs), meterRegistry);
+    }
+
+    @Primary
+    @Bean
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        ReplicaRoutingDataSource routingDataSource =
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor::isReplicaUsable);
+        // not a bean, so its targets are not resolved by the container
+        routingDataSource.afterPropertiesSet();
+
+        // the transaction manager touches the connection when the transaction begins, before the method body runs
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,120 @@
+package br.com.gazintech.orderapp.configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Measures how far the replica replays behind the primary, and takes it out of the read path while the lag
+ * is over {@code order-app.datasource.replica.max-lag} or the replica cannot be reached.
+ * <p>
+ * Each check reads the current WAL position of the primary, then asks the replica whether it has replayed up to it.
+ * The lag is zero once it has, and the age of the last replayed transaction otherwise, so a replica whose WAL
+ * receiver is disconnected lags more and more as soon as the primary writes. It is published as
+ * {@code datasource.replica.lag}.
+ * </p>
+ * The checks run on a thread of their own. Reads go to the primary until the first measurement, and again when
+ * the last successful measurement is older than {@value #STALE_AFTER_CHECKS} check intervals, so a stuck check
+ * cannot keep a replica in the read path.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    /**
+     * Number of check intervals after which the last successful measurement no longer counts.
+     */
+    public static final int STALE_AFTER_CHECKS = 3;
+
+    private static final String PRIMARY_POSITION_QUERY = "SELECT CAST(pg_current_wal_lsn() AS text)";
+
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       WHEN pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn) THEN 0
+                       ELSE CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS bigint)
+                   END
+            """;
+
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final long staleAfterNanos;
+    private volatile long lagMillis = -1;
+    private volatile boolean replicaUsable;
+    private volatile long measuredAtNanos;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource, Duration maxLag,
+                             Duration checkInterval, MeterRegistry meterRegistry) {
+        this(new JdbcTemplate(primaryDataSource), new JdbcTemplate(replicaDataSource), maxLag, checkInterval, meterRegistry);
+    }
+
+    ReplicaLagMonitor(JdbcTemplate primaryJdbcTemplate, JdbcTemplate replicaJdbcTemplate, Duration maxLag,
+                      Duration checkInterval, MeterRegistry meterRegistry) {
+        this.primaryJdbcTemplate = primaryJdbcTemplate;
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        this.staleAfterNanos = checkInterval.multipliedBy(STALE_AFTER_CHECKS).toNanos();
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lagMillis)
+                .description("Replication lag of the read replica in milliseconds, -1 when unknown")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // a scheduler of its own, so slow scheduled jobs cannot delay the checks
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-lag-"));
+        scheduler.scheduleWithFixedDelay(this::checkLag, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public synchronized void checkLag() {
+        boolean wasUsable = isReplicaUsable();
+        try {
+            // read first, so a replica that replayed up to it has every transaction committed before the check
+            String primaryPosition = primaryJdbcTemplate.queryForObject(PRIMARY_POSITION_QUERY, String.class);
+            Long lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Long.class, primaryPosition);
+            lagMillis = lag == null ? -1 : lag;
+            replicaUsable = lag != null && lag <= maxLag.toMillis();
+            measuredAtNanos = System.nanoTime();
+        } catch (RuntimeException e) {
+            log.warn("Failed to measure the replica lag", e);
+            lagMillis = -1;
+            replicaUsable = false;
+        }
+
+        if (wasUsable != replicaUsable) {
+            log.info(replicaUsable ? "Replica back in the read path" : "Replica out of the read path, reads go to the primary",
+                    kv("lagMs", lagMillis), kv("maxLagMs", maxLag.toMillis()));
+        }
+    }
+
+    /**
+     * @return whether read-only transactions can use the replica
+     */
+    public boolean isReplicaUsable() {
+        return replicaUsable && System.nanoTime() - measuredAtNanos <= staleAfterNanos;
+    }
+}
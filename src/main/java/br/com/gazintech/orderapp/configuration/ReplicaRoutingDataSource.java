@@ -0,0 +1,32 @@
+package br.com.gazintech.orderapp.configuration;
+
+import br.com.gazintech.orderapp.utils.ReplicaRouting;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Data source that gives the reads run with {@link ReplicaRouting} a replica connection while the replica is
+ * usable, and every other caller a primary connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final BooleanSupplier replicaUsable;
+
+    public ReplicaRoutingDataSource(DataSource primaryDataSource, DataSource replicaDataSource, BooleanSupplier replicaUsable) {
+        this.replicaUsable = replicaUsable;
+        setTargetDataSources(Map.of(PRIMARY, primaryDataSource, REPLICA, replicaDataSource));
+        setDefaultTargetDataSource(primaryDataSource);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ReplicaRouting.isReplicaRequested() && replicaUsable.getAsBoolean() ? REPLICA : PRIMARY;
+    }
+}
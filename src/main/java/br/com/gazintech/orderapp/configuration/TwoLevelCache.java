@@ -0,0 +1,193 @@
+package br.com.gazintech.orderapp.configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache that keeps recently read values in process (L1) in front of a Redis cache (L2).
+ * <p>
+ * Reads try L1 first and fill it from L2 on a miss. Writes and evictions go to L2, then L1, and are
+ * announced so other nodes drop their L1 copy. L1 holds values serialized like in Redis and every hit
+ * deserializes its own copy, so a hit costs no round trip and callers may modify what they get.
+ * </p>
+ * <p>
+ * Each invalidation bumps the version of the key's stripe before dropping the local copy. A fill from L2 only
+ * lands in L1 if the stripe version did not change since the read started, so a value read from Redis before
+ * an invalidation cannot be stored after it.
+ * </p>
+ * Keys are kept in L1 in their string form, the same form Redis uses, so invalidations can name them.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private static final int VERSION_STRIPES = 64;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, byte[]> localCache;
+    private final Cache redisCache;
+    private final RedisSerializer<Object> valueSerializer;
+    private final BiConsumer<String, String> invalidationPublisher;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+
+    /**
+     * @param name                  the name of the cache
+     * @param localCache            the in-process cache
+     * @param redisCache            the Redis cache
+     * @param valueSerializer       serializes the values kept in the in-process cache
+     * @param invalidationPublisher announces a changed key to the other nodes, a null key clears the cache
+     * @param meterRegistry         the registry of the hit and miss metrics
+     */
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<String, byte[]> localCache,
+                         Cache redisCache,
+                         RedisSerializer<Object> valueSerializer,
+                         BiConsumer<String, String> invalidationPublisher,
+                         MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.localCache = localCache;
+        this.redisCache = redisCache;
+        this.valueSerializer = valueSerializer;
+        this.invalidationPublisher = invalidationPublisher;
+        registerMetrics(meterRegistry, "l1", localHits, localMisses);
+        registerMetrics(meterRegistry, "l2", redisHits, redisMisses);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        byte[] snapshot = localCache.getIfPresent(localKey);
+        if (snapshot != null) {
+            localHits.increment();
+            return valueSerializer.deserialize(snapshot);
+        }
+        localMisses.increment();
+
+        long version = versions.get(stripe(localKey));
+        ValueWrapper wrapper = redisCache.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            redisMisses.increment();
+            return null;
+        }
+        redisHits.increment();
+        byte[] filled = valueSerializer.serialize(wrapper.get());
+        // an invalidation that ran since the read started may have dropped a newer value, so the fill is skipped
+        localCache.asMap().compute(localKey, (k, current) -> versions.get(stripe(k)) == version ? filled : current);
+        return wrapper.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+        try {
+            T loaded = valueLoader.call();
+            if (loaded != null) {
+                put(key, loaded);
+            }
+            return loaded;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        String localKey = localKey(key);
+        redisCache.put(key, value);
+        byte[] snapshot = valueSerializer.serialize(value);
+        versions.incrementAndGet(stripe(localKey));
+        localCache.put(localKey, snapshot);
+        invalidationPublisher.accept(name, localKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        invalidateLocal(localKey(key));
+        invalidationPublisher.accept(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        invalidateLocal(null);
+        invalidationPublisher.accept(name, null);
+    }
+
+    /**
+     * Drops the local copy of a key changed on another node. The next read loads it from Redis.
+     *
+     * @param key the string form of the key, or null to drop every local entry
+     */
+    void invalidateLocal(String key) {
+        if (key == null) {
+            for (int i = 0; i < VERSION_STRIPES; i++) {
+                versions.incrementAndGet(i);
+            }
+            localCache.invalidateAll();
+        } else {
+            versions.incrementAndGet(stripe(key));
+            localCache.invalidate(key);
+        }
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static int stripe(String localKey) {
+        return Math.floorMod(localKey.hashCode(), VERSION_STRIPES);
+    }
+
+    private void registerMetrics(MeterRegistry meterRegistry, String tier, LongAdder hits, LongAdder misses) {
+        FunctionCounter.builder("cache.tier.gets", hits, LongAdder::sum)
+                .description("Cache lookups per tier")
+                .tags("cache", name, "tier", tier, "result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.tier.gets", misses, LongAdder::sum)
+                .description("Cache lookups per tier")
+                .tags("cache", name, "tier", tier, "result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("cache.tier.hit.ratio", () -> hitRatio(hits, misses))
+                .description("Share of the lookups reaching the tier that it answered")
+                .tags("cache", name, "tier", tier)
+                .register(meterRegistry);
+    }
+
+    private static double hitRatio(LongAdder hits, LongAdder misses) {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,105 @@
+package br.com.gazintech.orderapp.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Cache manager that puts an in-process {@link TwoLevelCache} in front of the Redis caches listed as near caches,
+ * and hands out the other Redis caches as they are.
+ * <p>
+ * Every put or evict on a near cache is published on a Redis channel as {@code <node>:<cache>:<key>}, and each
+ * node drops its local copy of the key when another node publishes it. A message lost while a node is
+ * disconnected leaves its local copy stale until the local time to live expires.
+ * </p>
+ */
+@Slf4j
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager implements MessageListener {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheManager redisCacheManager;
+    private final Caffeine<Object, Object> localCacheBuilder;
+    private final Set<String> nearCacheNames;
+    private final RedisSerializer<Object> valueSerializer;
+    private final StringRedisTemplate redisTemplate;
+    private final String invalidationChannel;
+    private final MeterRegistry meterRegistry;
+
+    public TwoLevelCacheManager(CacheManager redisCacheManager,
+                                Caffeine<Object, Object> localCacheBuilder,
+                                Set<String> nearCacheNames,
+                                RedisSerializer<Object> valueSerializer,
+                                StringRedisTemplate redisTemplate,
+                                String invalidationChannel,
+                                MeterRegistry meterRegistry) {
+        this.redisCacheManager = redisCacheManager;
+        this.localCacheBuilder = localCacheBuilder;
+        this.nearCacheNames = nearCacheNames;
+        this.valueSerializer = valueSerializer;
+        this.redisTemplate = redisTemplate;
+        this.invalidationChannel = invalidationChannel;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return List.of();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null || !nearCacheNames.contains(name)) {
+            return redisCache;
+        }
+        return new TwoLevelCache(name, localCacheBuilder.build(), redisCache, valueSerializer, this::publishInvalidation, meterRegistry);
+    }
+
+    /**
+     * Drops the local copy of a key another node changed.
+     *
+     * @param message the invalidation message
+     * @param pattern the channel pattern, unused
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        // only caches this node has used can hold a local copy
+        Cache cache = lookupCache(parts[1]);
+        if (cache instanceof TransactionAwareCacheDecorator transactionAwareCache) {
+            cache = transactionAwareCache.getTargetCache();
+        }
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.invalidateLocal(parts[2].isEmpty() ? null : parts[2]);
+            log.debug("Near cache entry invalidated", kv("cache", parts[1]), kv("key", parts[2]));
+        }
+    }
+
+    private void publishInvalidation(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(invalidationChannel, nodeId + ":" + cacheName + ":" + (key == null ? "" : key));
+        } catch (RuntimeException e) {
+            // the other nodes keep their copy until it expires, the write itself already succeeded
+            log.warn("Failed to publish near cache invalidation", kv("cache", cacheName), kv("key", key), e);
+        }
+    }
+}
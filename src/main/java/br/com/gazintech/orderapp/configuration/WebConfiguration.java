@@ -0,0 +1,28 @@
+package br.com.gazintech.orderapp.configuration;
+
+import br.com.gazintech.orderapp.api.CountMode;
+import br.com.gazintech.orderapp.api.ExportFormat;
+import br.com.gazintech.orderapp.api.OrderField;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        // request parameters use lowercase values such as count=exact
+        registry.addConverter(String.class, CountMode.class, CountMode::fromValue);
+        registry.addConverter(String.class, ExportFormat.class, ExportFormat::fromValue);
+        // fields=id,status,totalValue binds to a set, converting each comma-separated JSON name
+        registry.addConverter(String.class, OrderField.class, OrderField::fromValue);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // long streaming responses such as exports set their own timeout, the others keep the default
+        configurer.registerCallableInterceptors(new AsyncRequestTimeoutInterceptor());
+    }
+}
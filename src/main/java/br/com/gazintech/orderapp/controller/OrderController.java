@@ -1,12 +1,26 @@
 package br.com.gazintech.orderapp.controller;
 
 
+import br.com.gazintech.orderapp.api.CountMode;
+import br.com.gazintech.orderapp.api.CursorPage;
+import br.com.gazintech.orderapp.api.ExportFormat;
+import br.com.gazintech.orderapp.api.OrderField;
 import br.com.gazintech.orderapp.api.SortDirection;
+import br.com.gazintech.orderapp.configuration.AsyncRequestTimeoutInterceptor;
+import br.com.gazintech.orderapp.dto.OrderBatchPostRequestDTO;
+import br.com.gazintech.orderapp.dto.OrderBatchResultDTO;
+import br.com.gazintech.orderapp.dto.OrderIntakeResponseDTO;
 import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
 import br.com.gazintech.orderapp.dto.OrderResponseDTO;
 import br.com.gazintech.orderapp.dto.OrderSearchDTO;
 import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.entity.OrderIntake;
+import br.com.gazintech.orderapp.exception.OrderNotFoundException;
+import br.com.gazintech.orderapp.exception_handler.ExceptionHandlerItem;
+import br.com.gazintech.orderapp.exception_handler.ExceptionHandlerList;
 import br.com.gazintech.orderapp.idempotency.Idempotent;
+import br.com.gazintech.orderapp.service.OrderExportService;
+import br.com.gazintech.orderapp.service.OrderIntakeService;
 import br.com.gazintech.orderapp.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,17 +29,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static net.logstash.logback.argument.StructuredArguments.kv;
@@ -37,23 +59,40 @@ import static net.logstash.logback.argument.StructuredArguments.kv;
 @RestController
 public class OrderController {
 
+    private static final String FIELDS_DESCRIPTION = "Comma-separated fields to return, e.g. id,status,totalValue, "
+            + "the whole order when absent. The id is always returned, items and partner are only read when selected";
+
     private final OrderService orderService;
+    private final OrderIntakeService orderIntakeService;
+    private final OrderExportService orderExportService;
+    private final ExceptionHandlerList exceptionHandlerList;
+
+    @Value("${order-app.orders.export.timeout:PT30M}")
+    private Duration exportTimeout;
 
-    @Operation(summary = "Create new Order", description = "Creates a new order for a partner")
+    @Operation(summary = "Create new Order", description = "Creates a new order for a partner, or accepts it for asynchronous creation when the asynchronous intake is enabled")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Order created successfully"),
+            @ApiResponse(responseCode = "202", description = "Order accepted, poll the order by its ID for the final state"),
             @ApiResponse(responseCode = "400", description = "Bad request, invalid input"),
             @ApiResponse(responseCode = "404", description = "Not found, partner not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @Idempotent(cacheTimeSeconds = 3600)
     @PostMapping
-    public ResponseEntity<br.com.gazintech.orderapp.api.ApiResponse<OrderResponseDTO>> createOrder(
+    public ResponseEntity<? extends br.com.gazintech.orderapp.api.ApiResponse<?>> createOrder(
             @Parameter(name = "X-Idempotency-Key", description = "Idempotency key to safely retry requests", in = ParameterIn.HEADER, required = false, schema = @Schema(type = "string", format = "uuid", example = "658c7182-95ce-4b34-b912-2fba2f3bab5e"))
             @RequestHeader(name = "X-Idempotency-Key", required = true) UUID idempotencyKey,
             @Validated @RequestBody OrderPostRequestDTO orderPostRequestDTO) {
         log.info("Creating new order", kv("idempotencyKey", idempotencyKey), kv("body", orderPostRequestDTO));
         log.debug("Received request to create order with idempotency key: {}", idempotencyKey);
+        if (orderIntakeService.isAsync()) {
+            return br.com.gazintech.orderapp.api.ApiResponse.<OrderIntakeResponseDTO>builder()
+                    .success()
+                    .body(orderIntakeService.accept(orderPostRequestDTO))
+                    .httpStatus(HttpStatus.ACCEPTED)
+                    .build();
+        }
         return br.com.gazintech.orderapp.api.ApiResponse.<OrderResponseDTO>builder()
                 .success()
                 .body(orderService.createOrder(orderPostRequestDTO))
@@ -61,9 +100,35 @@ public class OrderController {
                 .build();
     }
 
-    @Operation(summary = "Search orders", description = "Searches for orders with optional filters")
+    @Operation(summary = "Create Orders in batch", description = "Creates many orders at once, reporting the result of each order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "All orders created successfully"),
+            @ApiResponse(responseCode = "207", description = "Some orders could not be created, see each result"),
+            @ApiResponse(responseCode = "400", description = "Bad request, invalid input"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Idempotent(cacheTimeSeconds = 3600)
+    @PostMapping("/batch")
+    public ResponseEntity<br.com.gazintech.orderapp.api.ApiResponse<List<OrderBatchResultDTO>>> createOrders(
+            @Parameter(name = "X-Idempotency-Key", description = "Idempotency key to safely retry requests", in = ParameterIn.HEADER, required = false, schema = @Schema(type = "string", format = "uuid", example = "658c7182-95ce-4b34-b912-2fba2f3bab5e"))
+            @RequestHeader(name = "X-Idempotency-Key", required = true) UUID idempotencyKey,
+            @Validated @RequestBody OrderBatchPostRequestDTO orderBatchPostRequestDTO) {
+        log.info("Creating order batch", kv("idempotencyKey", idempotencyKey), kv("orders", orderBatchPostRequestDTO.getOrders().size()));
+
+        List<OrderBatchResultDTO> results = orderService.createOrders(orderBatchPostRequestDTO.getOrders());
+        boolean allCreated = results.stream().allMatch(result -> result.getStatus() == OrderBatchResultDTO.Status.CREATED);
+
+        return br.com.gazintech.orderapp.api.ApiResponse.<List<OrderBatchResultDTO>>builder()
+                .success()
+                .body(results)
+                .httpStatus(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                .build();
+    }
+
+    @Operation(summary = "Search orders", description = "Searches for orders with optional filters, returning only the selected fields when fields is given")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Order list found")
+            @ApiResponse(responseCode = "200", description = "Order list found"),
+            @ApiResponse(responseCode = "400", description = "Bad request, invalid field")
     })
     @GetMapping
     public ResponseEntity<br.com.gazintech.orderapp.api.ApiResponse<List<OrderResponseDTO>>> searchOrders(
@@ -75,7 +140,10 @@ public class OrderController {
             @Parameter(description = "Page number") @RequestParam(name = "page", defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(name = "size", defaultValue = "20") int size,
             @Parameter(description = "Sort field") @RequestParam(name = "sort-by", defaultValue = "createdAt") String sortBy,
-            @Parameter(description = "Sort direction") @RequestParam(name = "sort-direction", defaultValue = "DESC") SortDirection sortDirection) {
+            @Parameter(description = "Sort direction") @RequestParam(name = "sort-direction", defaultValue = "DESC") SortDirection sortDirection,
+            @Parameter(description = "Cursor pagination token, empty for the first page. Pages then follow creation date and ignore page and sort-by") @RequestParam(name = "cursor", required = false) String cursor,
+            @Parameter(description = "Total count of offset pagination: exact (COUNT on every page), none (only has-next) or estimate (planner estimate or a cached count)") @RequestParam(name = "count", defaultValue = "estimate") CountMode count,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(name = "fields", required = false) Set<OrderField> fields) {
 
 
         log.info("Searching orders with filters",
@@ -91,31 +159,90 @@ public class OrderController {
                 .size(size)
                 .sortBy(sortBy)
                 .sortDirection(sortDirection)
+                .cursor(cursor)
+                .countMode(count)
+                .fields(selectedFields(fields))
                 .build();
 
-        Page<OrderResponseDTO> pageResult = orderService.searchOrders(searchDTO);
+        if (searchDTO.isCursorPagination()) {
+            CursorPage<OrderResponseDTO> cursorPage = orderService.searchOrdersByCursor(searchDTO);
+            return br.com.gazintech.orderapp.api.ApiResponse.<List<OrderResponseDTO>>builder()
+                    .success()
+                    .body(select(cursorPage.content(), searchDTO.getFields()))
+                    .pagination(cursorPage)
+                    .build();
+        }
+
+        Slice<OrderResponseDTO> pageResult = count == CountMode.NONE
+                ? orderService.searchOrdersWithoutCount(searchDTO)
+                : orderService.searchOrders(searchDTO);
 
         return br.com.gazintech.orderapp.api.ApiResponse.<List<OrderResponseDTO>>builder()
                 .success()
-                .body(pageResult.getContent())
-                .pagination(pageResult)
+                .body(select(pageResult.getContent(), searchDTO.getFields()))
+                .pagination(pageResult, count)
+                .build();
+    }
+
+    @Operation(summary = "Export orders", description = "Streams every order matching the filters, oldest first, as NDJSON or CSV")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Orders exported"),
+            @ApiResponse(responseCode = "400", description = "Bad request, invalid format"),
+            @ApiResponse(responseCode = "429", description = "Too many exports running")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "Partner ID") @RequestParam(name = "partner-id", required = false) UUID partnerId,
+            @Parameter(description = "Order Status") @RequestParam(name = "status", required = false) Order.OrderStatus status,
+            @Parameter(description = "Start date") @RequestParam(name = "start-date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) OffsetDateTime startDate,
+            @Parameter(description = "End date") @RequestParam(name = "end-date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) OffsetDateTime endDate,
+            @Parameter(description = "Export format: ndjson or csv") @RequestParam(name = "format", defaultValue = "ndjson") ExportFormat format,
+            HttpServletRequest request) {
+
+        log.info("Exporting orders with filters",
+                kv("partnerId", partnerId), kv("status", status), kv("startDate", startDate), kv("endDate", endDate), kv("format", format));
+
+        OrderSearchDTO filters = OrderSearchDTO.builder()
+                .partnerId(partnerId)
+                .status(status)
+                .startDate(startDate)
+                .endDate(endDate)
                 .build();
+
+        StreamingResponseBody body = orderExportService.stream(filters, format);
+        request.setAttribute(AsyncRequestTimeoutInterceptor.TIMEOUT_ATTRIBUTE, exportTimeout);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + format.getExtension() + "\"")
+                .body(body);
     }
 
-    @Operation(summary = "Find order by id", description = "Returns an order by its ID")
+    @Operation(summary = "Find order by id", description = "Returns an order by its ID, or the state of its creation when it was accepted asynchronously")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Order found"),
+            @ApiResponse(responseCode = "202", description = "Order accepted and not created yet"),
             @ApiResponse(responseCode = "404", description = "Order not found")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<br.com.gazintech.orderapp.api.ApiResponse<OrderResponseDTO>> getOrderById(
-            @Parameter(description = "Order id") @PathVariable UUID id) {
-        log.info("Fetching order by ID", kv("orderId", id));
+    public ResponseEntity<? extends br.com.gazintech.orderapp.api.ApiResponse<?>> getOrderById(
+            @Parameter(description = "Order id") @PathVariable UUID id,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(name = "fields", required = false) Set<OrderField> fields) {
+        log.info("Fetching order by ID", kv("orderId", id), kv("fields", fields));
 
-        return br.com.gazintech.orderapp.api.ApiResponse.<OrderResponseDTO>builder()
-                .success()
-                .body(orderService.getOrderById(id))
-                .build();
+        try {
+            OrderResponseDTO order = orderService.getOrderById(id);
+            // the order comes whole from the cache, only the response is shaped
+            return br.com.gazintech.orderapp.api.ApiResponse.<OrderResponseDTO>builder()
+                    .success()
+                    .body(fields == null ? order : order.select(selectedFields(fields)))
+                    .build();
+        } catch (OrderNotFoundException e) {
+            Optional<OrderIntake> intake = orderIntakeService.isAsync() ? orderIntakeService.findById(id) : Optional.empty();
+            if (intake.isEmpty() || intake.get().getStatus() == OrderIntake.IntakeStatus.CREATED) {
+                throw e;
+            }
+            return intakeResponse(intake.get());
+        }
     }
 
     @Operation(summary = "Patches order's status", description = "Patches an order's status")
@@ -150,4 +277,34 @@ public class OrderController {
         orderService.cancelOrder(id);
         return ResponseEntity.noContent().build();
     }
+
+    private ResponseEntity<? extends br.com.gazintech.orderapp.api.ApiResponse<?>> intakeResponse(OrderIntake intake) {
+        if (intake.getStatus() == OrderIntake.IntakeStatus.FAILED) {
+            ExceptionHandlerItem item = exceptionHandlerList.findByErrorCode(intake.getErrorCode());
+            return br.com.gazintech.orderapp.api.ApiResponse.<Void>builder()
+                    .error(item.errorCode(), intake.getErrorMessage(), item.status())
+                    .build();
+        }
+        return br.com.gazintech.orderapp.api.ApiResponse.<OrderIntakeResponseDTO>builder()
+                .success()
+                .body(new OrderIntakeResponseDTO(intake))
+                .httpStatus(HttpStatus.ACCEPTED)
+                .build();
+    }
+
+    /**
+     * The ID is always returned, so clients can tell the selected orders apart.
+     */
+    private static Set<OrderField> selectedFields(Set<OrderField> fields) {
+        if (fields == null) {
+            return null;
+        }
+        Set<OrderField> selected = EnumSet.of(OrderField.ID);
+        selected.addAll(fields);
+        return selected;
+    }
+
+    private static List<OrderResponseDTO> select(List<OrderResponseDTO> orders, Set<OrderField> fields) {
+        return fields == null ? orders : orders.stream().map(order -> order.select(fields)).toList();
+    }
 }
@@ -0,0 +1,47 @@
+package br.com.gazintech.orderapp.controller;
+
+
+import br.com.gazintech.orderapp.dto.PartnerOrderStatsDTO;
+import br.com.gazintech.orderapp.service.PartnerOrderStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+@Tag(name = "Partner Management", description = "Operations related to partners")
+@Slf4j
+@RequiredArgsConstructor
+@RequestMapping("/v1/partners")
+@RestController
+public class PartnerController {
+
+    private final PartnerOrderStatsService partnerOrderStatsService;
+
+    @Operation(summary = "Find partner order statistics", description = "Returns the number and total value of the orders of a partner in each status")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics found"),
+            @ApiResponse(responseCode = "404", description = "Partner not found")
+    })
+    @GetMapping("/{id}/order-stats")
+    public ResponseEntity<br.com.gazintech.orderapp.api.ApiResponse<PartnerOrderStatsDTO>> getOrderStats(
+            @Parameter(description = "Partner id") @PathVariable UUID id) {
+        log.info("Fetching partner order statistics", kv("partnerId", id));
+
+        return br.com.gazintech.orderapp.api.ApiResponse.<PartnerOrderStatsDTO>builder()
+                .success()
+                .body(partnerOrderStatsService.getStats(id))
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.gazintech.orderapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * DTO for a batch of {@link OrderPostRequestDTO}
+ */
+
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Builder
+@Getter
+@Setter
+public class OrderBatchPostRequestDTO implements Serializable {
+
+    @NotNull(message = "Orders list is required")
+    @NotEmpty(message = "Orders list cannot be empty")
+    @Size(max = 1000, message = "Orders list cannot exceed 1000 orders")
+    @Valid
+    @Schema(description = "Orders to create")
+    @JsonProperty("orders")
+    List<OrderPostRequestDTO> orders;
+}
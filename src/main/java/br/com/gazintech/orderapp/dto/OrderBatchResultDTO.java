@@ -0,0 +1,45 @@
+package br.com.gazintech.orderapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of one order of a batch, in the position it had in the request.
+ */
+
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Builder
+@Getter
+@Setter
+public class OrderBatchResultDTO implements Serializable {
+    @JsonProperty("index")
+    Integer index;
+
+    @JsonProperty("status")
+    Status status;
+
+    @JsonProperty("order")
+    OrderResponseDTO order;
+
+    @JsonProperty("error-code")
+    String errorCode;
+
+    @JsonProperty("error-message")
+    String errorMessage;
+
+    /**
+     * Enum representing the outcome of a batched order.
+     * <p>
+     * - CREATED: The order was created.
+     * - FAILED: The order was rejected, see the error code and message.
+     * </p>
+     */
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+}
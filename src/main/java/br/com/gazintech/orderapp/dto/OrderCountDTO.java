@@ -0,0 +1,20 @@
+package br.com.gazintech.orderapp.dto;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * DTO for a cached count of the orders matching a search
+ */
+
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Getter
+@Setter
+public class OrderCountDTO implements Serializable {
+    long total;
+    OffsetDateTime countedAt;
+}
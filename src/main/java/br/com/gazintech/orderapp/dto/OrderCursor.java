@@ -0,0 +1,75 @@
+package br.com.gazintech.orderapp.dto;
+
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last order of a page in the {@code (createdAt, id)} order used by cursor pagination.
+ * Clients only see it as an opaque token.
+ *
+ * @param createdAt the creation instant of the last order, with the microsecond precision of the column
+ * @param id        the ID of the last order, which breaks ties between orders created in the same microsecond
+ */
+public record OrderCursor(OffsetDateTime createdAt, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Creates the cursor pointing after the given order.
+     *
+     * @param order the last order of a page
+     * @return the cursor
+     */
+    public static OrderCursor after(Order order) {
+        return new OrderCursor(order.getCreatedAt().truncatedTo(ChronoUnit.MICROS), order.getId());
+    }
+
+    /**
+     * Creates the cursor pointing after the given order projection.
+     *
+     * @param order the last order of a page, with its ID and creation date
+     * @return the cursor
+     */
+    public static OrderCursor after(OrderResponseDTO order) {
+        return new OrderCursor(order.getCreatedAt().truncatedTo(ChronoUnit.MICROS), order.getId());
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the opaque token
+     * @return the cursor
+     * @throws InvalidCursorException if the token was not produced by {@link #encode()}
+     */
+    public static OrderCursor decode(String token) throws InvalidCursorException {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            long epochMicros = Long.parseLong(decoded.substring(0, separator));
+            OffsetDateTime createdAt = Instant.EPOCH.plus(epochMicros, ChronoUnit.MICROS).atOffset(ZoneOffset.UTC);
+            return new OrderCursor(createdAt, UUID.fromString(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException | ArithmeticException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token, e);
+        }
+    }
+
+    /**
+     * Encodes the cursor as an opaque, URL safe token.
+     *
+     * @return the token
+     */
+    public String encode() {
+        long epochMicros = ChronoUnit.MICROS.between(Instant.EPOCH, createdAt.toInstant());
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((epochMicros + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.gazintech.orderapp.dto;
+
+import br.com.gazintech.orderapp.entity.Order;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * DTO for a line of the order export, flat so it maps to NDJSON and CSV alike
+ */
+
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Getter
+@JsonPropertyOrder({"id", "partnerId", "partnerCode", "status", "totalValue", "createdAt", "updatedAt"})
+public class OrderExportRowDTO {
+    /**
+     * Header of the CSV export, in the order of {@link #toCsvValues()}.
+     */
+    public static final String[] CSV_HEADER = {"id", "partner_id", "partner_code", "status", "total_value", "created_at", "updated_at"};
+
+    UUID id;
+    UUID partnerId;
+    String partnerCode;
+    Order.OrderStatus status;
+    BigDecimal totalValue;
+    OffsetDateTime createdAt;
+    OffsetDateTime updatedAt;
+
+    public OrderExportRowDTO(Order order) {
+        this.id = order.getId();
+        this.partnerId = order.getPartner().getId();
+        this.partnerCode = order.getPartner().getCode();
+        this.status = order.getStatus();
+        this.totalValue = order.getTotalValue();
+        this.createdAt = order.getCreatedAt();
+        this.updatedAt = order.getUpdatedAt();
+    }
+
+    public String[] toCsvValues() {
+        return new String[]{
+                String.valueOf(id),
+                String.valueOf(partnerId),
+                partnerCode,
+                String.valueOf(status),
+                totalValue == null ? "" : totalValue.toPlainString(),
+                createdAt == null ? "" : createdAt.toString(),
+                updatedAt == null ? "" : updatedAt.toString()
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package br.com.gazintech.orderapp.dto;
+
+import br.com.gazintech.orderapp.entity.OrderIntake;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * DTO for {@link OrderIntake}
+ */
+
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Builder
+@Getter
+@Setter
+public class OrderIntakeResponseDTO implements Serializable {
+    UUID id;
+    UUID partnerId;
+    OrderIntake.IntakeStatus status;
+    OffsetDateTime createdAt;
+
+    public OrderIntakeResponseDTO(OrderIntake intake) {
+        this.id = intake.getId();
+        this.partnerId = intake.getPayload().getPartnerId();
+        this.status = intake.getStatus();
+        this.createdAt = intake.getCreatedAt();
+    }
+}
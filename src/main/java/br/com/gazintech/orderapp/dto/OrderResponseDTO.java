@@ -1,20 +1,25 @@
 package br.com.gazintech.orderapp.dto;
 
+import br.com.gazintech.orderapp.api.OrderField;
 import br.com.gazintech.orderapp.entity.Order;
 import br.com.gazintech.orderapp.entity.OrderItem;
 import br.com.gazintech.orderapp.entity.Partner;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
- * DTO for {@link Order}
+ * DTO for {@link Order}. Fields without a value are left out, so a response with selected fields
+ * keeps the schema of the whole order.
  */
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
@@ -43,6 +48,25 @@ public class OrderResponseDTO implements Serializable {
         this.version = order.getVersion();
     }
 
+    /**
+     * Copies the order with the selected fields only. The others are null and left out of the JSON.
+     *
+     * @param fields the fields to keep
+     * @return the order with the selected fields
+     */
+    public OrderResponseDTO select(Set<OrderField> fields) {
+        return OrderResponseDTO.builder()
+                .id(fields.contains(OrderField.ID) ? id : null)
+                .partner(fields.contains(OrderField.PARTNER) ? partner : null)
+                .items(fields.contains(OrderField.ITEMS) ? items : null)
+                .totalValue(fields.contains(OrderField.TOTAL_VALUE) ? totalValue : null)
+                .status(fields.contains(OrderField.STATUS) ? status : null)
+                .createdAt(fields.contains(OrderField.CREATED_AT) ? createdAt : null)
+                .updatedAt(fields.contains(OrderField.UPDATED_AT) ? updatedAt : null)
+                .version(fields.contains(OrderField.VERSION) ? version : null)
+                .build();
+    }
+
     /**
      * DTO for {@link OrderItem}
      */
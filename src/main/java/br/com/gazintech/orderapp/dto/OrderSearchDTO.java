@@ -1,5 +1,7 @@
 package br.com.gazintech.orderapp.dto;
 
+import br.com.gazintech.orderapp.api.CountMode;
+import br.com.gazintech.orderapp.api.OrderField;
 import br.com.gazintech.orderapp.api.SortDirection;
 import br.com.gazintech.orderapp.entity.Order;
 import lombok.*;
@@ -7,7 +9,12 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.Set;
 import java.util.UUID;
 
 @Data
@@ -36,7 +43,79 @@ public class OrderSearchDTO implements Serializable {
 
     private SortDirection sortDirection = SortDirection.DESC;
 
+    /**
+     * Opaque cursor of cursor pagination, empty for the first page and null for offset pagination.
+     */
+    private String cursor;
+
+    /**
+     * How the total count of offset pagination is computed, null counts exactly.
+     */
+    private CountMode countMode;
+
+    /**
+     * Fields to read and return, null for the whole order.
+     */
+    private Set<OrderField> fields;
+
+    public boolean isCursorPagination() {
+        return cursor != null;
+    }
+
+    public boolean isSparse() {
+        return fields != null;
+    }
+
+    public boolean hasFilters() {
+        return orderId != null || partnerId != null || status != null || startDate != null || endDate != null;
+    }
+
+    /**
+     * Key of the cached count of the search, made of the filters only, so every page and sort share the same count.
+     *
+     * @return the count cache key
+     */
+    public String countKey() {
+        return orderId + ":" + partnerId + ":" + status + ":" + startDate + ":" + endDate;
+    }
+
+    /**
+     * Canonical hash of the search, used as its result cache key. Dates are compared as instants and a null
+     * count mode as exact, so equivalent requests share one entry.
+     *
+     * @return the SHA-256 hash of the search, in hexadecimal
+     */
+    public String searchKey() {
+        String canonical = String.join("|",
+                String.valueOf(orderId),
+                String.valueOf(partnerId),
+                String.valueOf(status),
+                startDate == null ? "null" : startDate.toInstant().toString(),
+                endDate == null ? "null" : endDate.toInstant().toString(),
+                String.valueOf(page),
+                String.valueOf(size),
+                String.valueOf(sortBy),
+                String.valueOf(sortDirection),
+                String.valueOf(countMode == null ? CountMode.EXACT : countMode));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     public PageRequest toPageable() {
         return PageRequest.of(page, size, Sort.by(Sort.Direction.fromString(sortDirection.name()), sortBy));
     }
+
+    /**
+     * Sort of cursor pagination, which always follows {@code (createdAt, id)} so the cursor identifies a single row.
+     *
+     * @return the keyset sort
+     */
+    public Sort toKeysetSort() {
+        Sort.Direction direction = Sort.Direction.fromString(sortDirection.name());
+        return Sort.by(direction, "createdAt").and(Sort.by(direction, "id"));
+    }
 }
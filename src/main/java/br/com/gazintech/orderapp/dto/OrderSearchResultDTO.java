@@ -0,0 +1,22 @@
+package br.com.gazintech.orderapp.dto;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO for a cached search result, the orders themselves are read from the orders cache
+ */
+
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Getter
+@Setter
+public class OrderSearchResultDTO implements Serializable {
+    List<UUID> ids;
+    Long totalItems;
+    boolean hasNext;
+}
@@ -0,0 +1,37 @@
+package br.com.gazintech.orderapp.dto;
+
+import br.com.gazintech.orderapp.entity.Order;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO for the order statistics of a partner, with one entry per order status
+ */
+
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Builder
+@Getter
+@Setter
+public class PartnerOrderStatsDTO implements Serializable {
+    UUID partnerId;
+    long totalOrders;
+    BigDecimal totalValue;
+    List<StatusStatsDTO> statuses;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @ToString
+    @Getter
+    @Setter
+    public static class StatusStatsDTO implements Serializable {
+        Order.OrderStatus status;
+        long orderCount;
+        BigDecimal totalValue;
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.gazintech.orderapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Debit committed by a group-commit batch and not yet confirmed by the transaction that asked for it.
+ * <p>
+ * The caller deletes the row in its own transaction, so the debit stands only once that transaction commits.
+ * A row left behind by a caller that rolled back, timed out or crashed is given back to the partner.
+ * </p>
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "\"CreditBatchDebit\"", indexes = {
+        @Index(name = "idx_credit_batch_debit_created_at", columnList = "created_at")
+})
+public class CreditBatchDebit implements Serializable {
+    @Id
+    private UUID id;
+
+    @Column(name = "partner_id", nullable = false)
+    private UUID partnerId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,76 @@
+package br.com.gazintech.orderapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Credit reserved for an order from its creation until it is approved, canceled or expires.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(name = "\"CreditHold\"", indexes = {
+        @Index(name = "idx_credit_hold_order_id", columnList = "order_id", unique = true),
+        @Index(name = "idx_credit_hold_status_expires_at", columnList = "status, expires_at")
+})
+public class CreditHold implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "order_id", nullable = false)
+    private UUID orderId;
+
+    @Column(name = "partner_id", nullable = false)
+    private UUID partnerId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private HoldStatus status = HoldStatus.ACTIVE;
+
+    @Column(name = "expires_at", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime expiresAt;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime updatedAt;
+
+    @Version
+    private Long version;
+
+    /**
+     * Enum representing the status of a credit hold.
+     * <p>
+     * - ACTIVE: The credit is reserved for the order.
+     * - CONVERTED: The order was approved and the reserved credit became a debit.
+     * - RELEASED: The order was canceled and the reserved credit was given back.
+     * - EXPIRED: The hold outlived its TTL and the reserved credit was given back.
+     * </p>
+     */
+    public enum HoldStatus {
+        ACTIVE,
+        CONVERTED,
+        RELEASED,
+        EXPIRED
+    }
+}
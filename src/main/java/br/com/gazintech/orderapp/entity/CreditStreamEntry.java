@@ -0,0 +1,51 @@
+package br.com.gazintech.orderapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Outcome of an entry of the Redis credit delta stream, recorded in Postgres.
+ * <p>
+ * The transaction that changed the balance in Redis inserts the entry as COMMITTED, so it only exists once
+ * that transaction commits. An entry the reconciler finds without a row past the commit grace window belongs
+ * to a transaction that rolled back or never finished, and is recorded as REVERTED before being compensated.
+ * </p>
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "\"CreditStreamEntry\"", indexes = {
+        @Index(name = "idx_credit_stream_entry_created_at", columnList = "created_at")
+})
+public class CreditStreamEntry implements Serializable {
+    @Id
+    @Column(name = "entry_id", nullable = false, length = 50)
+    private String entryId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EntryStatus status;
+
+    @Column(name = "created_at", nullable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime createdAt;
+
+    /**
+     * Enum representing the outcome of a stream entry.
+     * <p>
+     * - COMMITTED: The transaction of the change committed, the delta is still to be applied to the partner row.
+     * - APPLIED: The delta was applied to the partner row.
+     * - REVERTED: The transaction of the change did not commit, the delta is compensated in Redis.
+     * </p>
+     */
+    public enum EntryStatus {
+        COMMITTED,
+        APPLIED,
+        REVERTED
+    }
+}
@@ -0,0 +1,81 @@
+package br.com.gazintech.orderapp.entity;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Immutable monetary amount backed by a {@code long} of minor units (cents), matching the
+ * {@code numeric(19,2)} money columns. Arithmetic never allocates intermediate {@link BigDecimal}s
+ * and fails with {@link ArithmeticException} on overflow instead of wrapping around.
+ */
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Money implements Comparable<Money>, Serializable {
+
+    public static final Money ZERO = new Money(0L);
+
+    private static final int SCALE = 2;
+
+    private final long cents;
+
+    public static Money ofCents(long cents) {
+        return cents == 0L ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Converts a decimal amount of whole cents.
+     *
+     * @param amount the amount to convert
+     * @return the amount as money
+     * @throws ArithmeticException if the amount has fractions of a cent or does not fit in a long of cents
+     */
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(SCALE).unscaledValue().longValueExact());
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(long quantity) {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    public Money min(Money other) {
+        return cents <= other.cents ? this : other;
+    }
+
+    public boolean isNegative() {
+        return cents < 0L;
+    }
+
+    public boolean isGreaterThanOrEqualTo(Money other) {
+        return cents >= other.cents;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
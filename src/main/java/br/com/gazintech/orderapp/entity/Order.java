@@ -20,14 +20,17 @@ import java.util.UUID;
 @Builder
 @Entity
 @EntityListeners(AuditingEntityListener.class)
+// one index per filter combination of OrderSpecifications.bySearchDto, each ending with the (created_at, id) sort
+// so a page is read in order without a sort; partner_id leads the partner indexes, which also serve the foreign key
 @Table(name = "\"Order\"", indexes = {
-        @Index(name = "idx_partner_id", columnList = "partner_id"),
-        @Index(name = "idx_status", columnList = "status"),
-        @Index(name = "idx_created_at", columnList = "created_at")
+        @Index(name = "idx_partner_id_status_created_at_id", columnList = "partner_id, status, created_at, id"),
+        @Index(name = "idx_partner_id_created_at_id", columnList = "partner_id, created_at, id"),
+        @Index(name = "idx_status_created_at_id", columnList = "status, created_at, id"),
+        @Index(name = "idx_created_at_id", columnList = "created_at, id")
 })
 public class Order implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -37,8 +40,9 @@ public class Order implements Serializable {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private List<OrderItem> items;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(name = "total_value", nullable = false, precision = 19, scale = 2)
-    private BigDecimal totalValue = BigDecimal.ZERO;
+    private Money totalValue = Money.ZERO;
 
     @Setter
     @Enumerated(EnumType.STRING)
@@ -70,10 +74,25 @@ public class Order implements Serializable {
         this.status = OrderStatus.PENDING;
     }
 
+    public Order(UUID id, Partner partner, OrderPostRequestDTO orderDTO) {
+        this(partner, orderDTO);
+        this.id = id;
+    }
+
+    public BigDecimal getTotalValue() {
+        return totalValue == null ? null : totalValue.toBigDecimal();
+    }
+
+    public Money getTotal() {
+        return totalValue;
+    }
+
     public void calculateTotalValue() {
-        this.totalValue = items.stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long total = 0L;
+        for (OrderItem item : items) {
+            total = Math.addExact(total, item.getSubtotal().cents());
+        }
+        this.totalValue = Money.ofCents(total);
     }
 
     // approve the order
@@ -101,6 +120,13 @@ public class Order implements Serializable {
         OrderStatusStateMachine.transitionTo(this, OrderStatus.CANCELED);
     }
 
+    public static class OrderBuilder {
+        public OrderBuilder totalValue(BigDecimal totalValue) {
+            this.totalValue = totalValue == null ? null : Money.of(totalValue);
+            return this;
+        }
+    }
+
     /**
      * Enum representing the status of an order.
      * <p>
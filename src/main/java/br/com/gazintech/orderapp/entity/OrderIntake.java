@@ -0,0 +1,81 @@
+package br.com.gazintech.orderapp.entity;
+
+import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Order request accepted by the asynchronous intake and waiting for a worker to create it.
+ * The ID is the ID the order gets once created.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(name = "\"OrderIntake\"", indexes = {
+        @Index(name = "idx_order_intake_status_available_at", columnList = "status, available_at"),
+        @Index(name = "idx_order_intake_status_updated_at", columnList = "status, updated_at")
+})
+public class OrderIntake implements Serializable {
+    @Id
+    private UUID id;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private OrderPostRequestDTO payload;
+
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IntakeStatus status = IntakeStatus.PENDING;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "available_at", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime availableAt;
+
+    @Column(name = "error_code", length = 10)
+    private String errorCode;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime updatedAt;
+
+    @Version
+    private Long version;
+
+    /**
+     * Enum representing the status of an order intake.
+     * <p>
+     * - PENDING: The order is waiting for a worker.
+     * - CREATED: The order was created with the intake ID.
+     * - FAILED: The order could not be created, see the error code and message.
+     * </p>
+     */
+    public enum IntakeStatus {
+        PENDING,
+        CREATED,
+        FAILED
+    }
+}
@@ -26,7 +26,7 @@ import java.util.UUID;
 @Table(name = "\"OrderItem\"")
 public class OrderItem implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -42,10 +42,26 @@ public class OrderItem implements Serializable {
     @Column(nullable = false)
     private Integer quantity;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(nullable = false, precision = 19, scale = 2)
-    private BigDecimal price;
+    private Money price;
 
-    public BigDecimal getSubtotal() {
-        return price.multiply(BigDecimal.valueOf(quantity));
+    public BigDecimal getPrice() {
+        return price == null ? null : price.toBigDecimal();
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price == null ? null : Money.of(price);
+    }
+
+    public Money getSubtotal() {
+        return price.times(quantity);
+    }
+
+    public static class OrderItemBuilder {
+        public OrderItemBuilder price(BigDecimal price) {
+            this.price = price == null ? null : Money.of(price);
+            return this;
+        }
     }
 }
@@ -32,7 +32,7 @@ import java.util.UUID;
 })
 public class Partner implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false, unique = true, length = 50)
@@ -44,11 +44,13 @@ public class Partner implements Serializable {
     @Column(nullable = false, length = 255)
     private String email;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(name = "credit_limit", nullable = false, precision = 19, scale = 2)
-    private BigDecimal creditLimit;
+    private Money creditLimit;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(name = "available_credit", nullable = false, precision = 19, scale = 2)
-    private BigDecimal availableCredit;
+    private Money availableCredit;
 
     @Column(nullable = false)
     private Boolean active;
@@ -64,21 +66,72 @@ public class Partner implements Serializable {
     @Version
     private Long version;
 
-    public boolean hasAvailableCredit(BigDecimal amount) {
-        return availableCredit.compareTo(amount) >= 0;
+    /**
+     * The credit limit as a decimal, for DTOs and queries. The credit operations work on {@link #creditLimit()}.
+     */
+    public BigDecimal getCreditLimit() {
+        return creditLimit == null ? null : creditLimit.toBigDecimal();
     }
 
-    public void debitCredit(BigDecimal amount) {
+    public void setCreditLimit(BigDecimal creditLimit) {
+        this.creditLimit = creditLimit == null ? null : Money.of(creditLimit);
+    }
+
+    /**
+     * The available credit as a decimal, for DTOs and queries. The credit operations work on {@link #availableCredit()}.
+     */
+    public BigDecimal getAvailableCredit() {
+        return availableCredit == null ? null : availableCredit.toBigDecimal();
+    }
+
+    public void setAvailableCredit(BigDecimal availableCredit) {
+        this.availableCredit = availableCredit == null ? null : Money.of(availableCredit);
+    }
+
+    public Money creditLimit() {
+        return creditLimit;
+    }
+
+    public Money availableCredit() {
+        return availableCredit;
+    }
+
+    public boolean hasAvailableCredit(Money amount) {
+        return availableCredit.isGreaterThanOrEqualTo(amount);
+    }
+
+    public void debitCredit(Money amount) {
         if (!hasAvailableCredit(amount)) {
             throw new InsufficientBalanceException("Insufficient balance");
         }
-        this.availableCredit = this.availableCredit.subtract(amount);
+        this.availableCredit = this.availableCredit.minus(amount);
+    }
+
+    public void creditCredit(Money amount) {
+        this.availableCredit = this.availableCredit.plus(amount).min(this.creditLimit);
     }
 
-    public void creditCredit(BigDecimal amount) {
-        this.availableCredit = this.availableCredit.add(amount);
-        if (this.availableCredit.compareTo(this.creditLimit) > 0) {
-            this.availableCredit = this.creditLimit;
+    /**
+     * Changes the credit limit keeping the used credit, never leaving the available credit negative.
+     *
+     * @param newLimit the new credit limit
+     */
+    public void changeCreditLimit(Money newLimit) {
+        Money usedCredit = this.creditLimit.minus(this.availableCredit);
+        Money newAvailable = newLimit.minus(usedCredit);
+        this.creditLimit = newLimit;
+        this.availableCredit = newAvailable.isNegative() ? Money.ZERO : newAvailable;
+    }
+
+    public static class PartnerBuilder {
+        public PartnerBuilder creditLimit(BigDecimal creditLimit) {
+            this.creditLimit = creditLimit == null ? null : Money.of(creditLimit);
+            return this;
+        }
+
+        public PartnerBuilder availableCredit(BigDecimal availableCredit) {
+            this.availableCredit = availableCredit == null ? null : Money.of(availableCredit);
+            return this;
         }
     }
 }
@@ -0,0 +1,28 @@
+package br.com.gazintech.orderapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Marks a partner with {@link PartnerCreditEntry} ledger entries not yet folded into its {@link PartnerCreditSnapshot},
+ * so compaction finds the partners to fold without scanning the ledger.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "\"PartnerCreditDirty\"")
+public class PartnerCreditDirty implements Serializable {
+    @Id
+    @Column(name = "partner_id", nullable = false)
+    private UUID partnerId;
+
+    @Column(name = "marked_at", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime markedAt;
+}
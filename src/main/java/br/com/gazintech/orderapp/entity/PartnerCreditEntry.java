@@ -0,0 +1,58 @@
+package br.com.gazintech.orderapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Append-only entry of the partner credit ledger. Entries are never updated or deleted:
+ * a positive delta gives credit back, a negative delta consumes it.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(name = "\"PartnerCreditEntry\"", indexes = {
+        @Index(name = "idx_partner_credit_entry_partner_id_id", columnList = "partner_id, id")
+})
+public class PartnerCreditEntry implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "partner_id", nullable = false)
+    private UUID partnerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 20)
+    private EntryType entryType;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal delta;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime createdAt;
+
+    /**
+     * Enum representing why the partner credit changed.
+     * <p>
+     * - DEBIT: Credit consumed by an order.
+     * - CREDIT: Credit given back by an order.
+     * - LIMIT_ADJUSTMENT: Available credit moved by a credit limit change.
+     * </p>
+     */
+    public enum EntryType {
+        DEBIT,
+        CREDIT,
+        LIMIT_ADJUSTMENT
+    }
+}
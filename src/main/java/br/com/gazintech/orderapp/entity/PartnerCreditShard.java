@@ -0,0 +1,39 @@
+package br.com.gazintech.orderapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Sub-account holding a share of the partner credit limit and available credit.
+ * The partner credit is the sum of its shards, so concurrent debits of a hot partner lock different rows.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "\"PartnerCreditShard\"", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_partner_credit_shard_partner_id_shard_index", columnNames = {"partner_id", "shard_index"})
+})
+public class PartnerCreditShard implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "partner_id", nullable = false)
+    private UUID partnerId;
+
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+
+    @Column(name = "credit_limit", nullable = false, precision = 19, scale = 2)
+    private BigDecimal creditLimit;
+
+    @Column(name = "available_credit", nullable = false, precision = 19, scale = 2)
+    private BigDecimal availableCredit;
+}
@@ -0,0 +1,35 @@
+package br.com.gazintech.orderapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Partner available credit folded from the {@link PartnerCreditEntry} ledger up to {@code lastEntryId}.
+ * The current available credit is this snapshot plus the entries written after it.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "\"PartnerCreditSnapshot\"")
+public class PartnerCreditSnapshot implements Serializable {
+    @Id
+    @Column(name = "partner_id", nullable = false)
+    private UUID partnerId;
+
+    @Column(name = "available_credit", nullable = false, precision = 19, scale = 2)
+    private BigDecimal availableCredit;
+
+    @Column(name = "last_entry_id", nullable = false)
+    private Long lastEntryId;
+
+    @Column(name = "compacted_at", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime compactedAt;
+}
@@ -0,0 +1,50 @@
+package br.com.gazintech.orderapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Number and total value of the orders of a partner in one status, kept up to date by the transactions that
+ * create orders or change their status. A partner has one row per status it has orders in.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@IdClass(PartnerOrderStats.Key.class)
+@Table(name = "\"PartnerOrderStats\"")
+public class PartnerOrderStats implements Serializable {
+    @Id
+    @Column(name = "partner_id", nullable = false)
+    private UUID partnerId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Order.OrderStatus status;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "total_value", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalValue;
+
+    @Column(name = "updated_at", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime updatedAt;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @Getter
+    public static class Key implements Serializable {
+        private UUID partnerId;
+        private Order.OrderStatus status;
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.gazintech.orderapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Insert-only journal of credit changes accepted by the in-memory credit engine
+ * that were not yet folded into {@link Partner#getAvailableCredit()}.
+ * A positive delta is a credit, a negative delta is a debit.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(name = "\"PendingCreditDelta\"", indexes = {
+        @Index(name = "idx_pending_credit_delta_partner_id", columnList = "partner_id")
+})
+public class PendingCreditDelta implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "partner_id", nullable = false)
+    private UUID partnerId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal delta;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime createdAt;
+}
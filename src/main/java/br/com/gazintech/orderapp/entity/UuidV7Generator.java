@@ -0,0 +1,63 @@
+package br.com.gazintech.orderapp.entity;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hibernate identifier generator for RFC 9562 version 7 UUIDs.
+ * <p>
+ * The 48 most significant bits hold the Unix time in milliseconds and the 12 bits of {@code rand_a} hold a counter,
+ * so identifiers generated by this JVM are strictly increasing even within the same millisecond.
+ * When the counter overflows it carries into the timestamp, which then runs slightly ahead of the clock.
+ * The remaining 62 bits are random.
+ * </p>
+ * An identifier assigned before persisting is kept, so a key handed out ahead of the insert can be used.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    /**
+     * Last issued timestamp and counter, as {@code millis << 12 | counter}.
+     */
+    private static final AtomicLong STATE = new AtomicLong();
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return currentValue != null ? currentValue : next();
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    /**
+     * Generates the next identifier.
+     *
+     * @return a version 7 UUID greater than every UUID previously returned by this JVM
+     */
+    public static UUID next() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long state = STATE.updateAndGet(previous -> Math.max(previous + 1, now));
+
+        long mostSigBits = (state >>> COUNTER_BITS) << 16 | VERSION | (state & ((1L << COUNTER_BITS) - 1));
+        long leastSigBits = ThreadLocalRandom.current().nextLong() & RANDOM_MASK | VARIANT;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
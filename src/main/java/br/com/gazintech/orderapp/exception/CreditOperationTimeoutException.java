@@ -0,0 +1,23 @@
+package br.com.gazintech.orderapp.exception;
+
+/**
+ * Exception thrown when a credit operation is not decided within the allowed time.
+ */
+public class CreditOperationTimeoutException extends OrderAppException {
+
+    public CreditOperationTimeoutException() {
+        super("Credit operation timed out");
+    }
+
+    public CreditOperationTimeoutException(String message) {
+        super(message);
+    }
+
+    public CreditOperationTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public CreditOperationTimeoutException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,23 @@
+package br.com.gazintech.orderapp.exception;
+
+/**
+ * Exception thrown when the maximum number of concurrent order exports is already running.
+ */
+public class ExportLimitExceededException extends OrderAppException {
+
+    public ExportLimitExceededException() {
+        super("Too many concurrent exports");
+    }
+
+    public ExportLimitExceededException(String message) {
+        super(message);
+    }
+
+    public ExportLimitExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ExportLimitExceededException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,23 @@
+package br.com.gazintech.orderapp.exception;
+
+/**
+ * Exception thrown when a monetary amount cannot be represented in whole cents.
+ */
+public class InvalidAmountException extends OrderAppException {
+
+    public InvalidAmountException() {
+        super("Invalid amount");
+    }
+
+    public InvalidAmountException(String message) {
+        super(message);
+    }
+
+    public InvalidAmountException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidAmountException(Throwable cause) {
+        super(cause);
+    }
+}
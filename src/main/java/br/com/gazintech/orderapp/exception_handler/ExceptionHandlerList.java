@@ -19,4 +19,12 @@ public interface ExceptionHandlerList {
      * @return ExceptionHandlerItem corresponding to the exception class.
      */
     ExceptionHandlerItem findByClass(Class<? extends Throwable> exceptionClass);
+
+    /**
+     * Finds an exception handler item by its error code.
+     *
+     * @param errorCode The error code of the handler.
+     * @return ExceptionHandlerItem with the error code, or the default handler if no handler has it.
+     */
+    ExceptionHandlerItem findByErrorCode(String errorCode);
 }
@@ -9,6 +9,7 @@ import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.List;
 
@@ -40,7 +41,12 @@ public class ExceptionHandlerListImpl implements ExceptionHandlerList {
                 new ExceptionHandlerItem("E008", OrderNotFoundException.class, "Order not found", HttpStatus.NOT_FOUND, "Order not found", false),
                 new ExceptionHandlerItem("E009", InvalidDataAccessApiUsageException.class, "Invalid body request", HttpStatus.BAD_REQUEST, "Invalid Body request", true),
                 new ExceptionHandlerItem("E010", MissingServletRequestParameterException.class, "Missing Request Parameter", HttpStatus.BAD_REQUEST, "Missing Request Parameter", true),
-                new ExceptionHandlerItem("E011", MethodArgumentNotValidException.class, "Invalid argument", HttpStatus.BAD_REQUEST, "Invalid argument", true)
+                new ExceptionHandlerItem("E011", MethodArgumentNotValidException.class, "Invalid argument", HttpStatus.BAD_REQUEST, "Invalid argument", true),
+                new ExceptionHandlerItem("E012", CreditOperationTimeoutException.class, "Credit operation timed out", HttpStatus.SERVICE_UNAVAILABLE, "The credit operation could not be completed in time", false),
+                new ExceptionHandlerItem("E013", InvalidCursorException.class, "Invalid cursor", HttpStatus.BAD_REQUEST, "The pagination cursor is invalid", false),
+                new ExceptionHandlerItem("E014", MethodArgumentTypeMismatchException.class, "Invalid request parameter", HttpStatus.BAD_REQUEST, "A request parameter has an invalid value", true),
+                new ExceptionHandlerItem("E015", ExportLimitExceededException.class, "Too many exports", HttpStatus.TOO_MANY_REQUESTS, "The maximum number of concurrent exports is running, retry later", false),
+                new ExceptionHandlerItem("E016", InvalidAmountException.class, "Invalid amount", HttpStatus.BAD_REQUEST, "Amounts must have at most 2 decimal places", true)
         );
     }
 
@@ -59,4 +65,20 @@ public class ExceptionHandlerListImpl implements ExceptionHandlerList {
                         true)
                 );
     }
+
+    @Override
+    public ExceptionHandlerItem findByErrorCode(String errorCode) {
+        log.debug("Finding exception handler for error code: {}", errorCode);
+        return getExceptionHandler().stream()
+                .filter(item -> item.errorCode().equals(errorCode))
+                .findFirst()
+                .orElse(new ExceptionHandlerItem(
+                        "E000",
+                        Throwable.class,
+                        "An unexpected error occurred",
+                        HttpStatus.INTERNAL_SERVER_ERROR,
+                        "An unexpected error occurred while processing your request.",
+                        true)
+                );
+    }
 }
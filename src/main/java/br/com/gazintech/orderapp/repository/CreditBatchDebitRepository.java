@@ -0,0 +1,22 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.entity.CreditBatchDebit;
+import io.lettuce.core.dynamic.annotation.Param;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.UUID;
+
+public interface CreditBatchDebitRepository extends JpaRepository<CreditBatchDebit, UUID> {
+
+    /**
+     * Confirms a batched debit in the transaction of the caller, which keeps it from being given back.
+     *
+     * @param id the ID of the batched debit
+     * @return 1 when confirmed, 0 when the debit was already given back
+     */
+    @Modifying
+    @Query(value = "DELETE FROM \"CreditBatchDebit\" WHERE id = :id", nativeQuery = true)
+    int confirm(@Param("id") UUID id);
+}
@@ -0,0 +1,37 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.entity.CreditHold;
+import io.lettuce.core.dynamic.annotation.Param;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CreditHoldRepository extends JpaRepository<CreditHold, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM CreditHold h WHERE h.orderId = :orderId")
+    Optional<CreditHold> findByOrderIdWithLock(@Param("orderId") UUID orderId);
+
+    /**
+     * Locks a batch of active holds that expired, skipping holds locked by a concurrent approval or cancellation.
+     *
+     * @param now       the reference instant
+     * @param batchSize the maximum number of holds to return
+     * @return the expired holds, oldest first
+     */
+    @Query(value = """
+            SELECT * FROM "CreditHold"
+             WHERE status = 'ACTIVE'
+               AND expires_at <= :now
+             ORDER BY expires_at
+             LIMIT :batchSize
+               FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<CreditHold> findExpiredForUpdate(@Param("now") OffsetDateTime now, @Param("batchSize") int batchSize);
+}
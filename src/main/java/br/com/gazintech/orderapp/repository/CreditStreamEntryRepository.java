@@ -0,0 +1,62 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.entity.CreditStreamEntry;
+import io.lettuce.core.dynamic.annotation.Param;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface CreditStreamEntryRepository extends JpaRepository<CreditStreamEntry, String> {
+
+    /**
+     * Records a stream entry as committed, in the transaction of the change.
+     * Fails if the reconciler already reverted the entry, rolling the change back.
+     *
+     * @param entryId the ID of the stream entry
+     * @return always 1
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO "CreditStreamEntry" (entry_id, status, created_at)
+            VALUES (:entryId, 'COMMITTED', now())
+            """, nativeQuery = true)
+    int insertCommitted(@Param("entryId") String entryId);
+
+    /**
+     * Records a stream entry as reverted, unless its transaction recorded it first.
+     *
+     * @param entryId the ID of the stream entry
+     * @return 1 if the entry was recorded as reverted, 0 if it already had an outcome
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO "CreditStreamEntry" (entry_id, status, created_at)
+            VALUES (:entryId, 'REVERTED', now())
+            ON CONFLICT (entry_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertRevertedIfAbsent(@Param("entryId") String entryId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM CreditStreamEntry e WHERE e.entryId IN :entryIds ORDER BY e.entryId")
+    List<CreditStreamEntry> findAllByIdWithLock(@Param("entryIds") Collection<String> entryIds);
+
+    /**
+     * Deletes the outcomes of entries already applied or reverted, which are gone from the stream.
+     *
+     * @param before the time before which the entries were recorded
+     * @return the number of deleted entries
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM "CreditStreamEntry"
+             WHERE created_at < :before
+               AND status IN ('APPLIED', 'REVERTED')
+            """, nativeQuery = true)
+    int deleteFinishedBefore(@Param("before") OffsetDateTime before);
+}
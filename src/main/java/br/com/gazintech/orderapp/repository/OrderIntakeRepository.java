@@ -0,0 +1,68 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.entity.OrderIntake;
+import io.lettuce.core.dynamic.annotation.Param;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface OrderIntakeRepository extends JpaRepository<OrderIntake, UUID> {
+
+    /**
+     * Locks a batch of pending intakes that are due, skipping intakes claimed by another worker.
+     *
+     * @param now       the reference instant
+     * @param batchSize the maximum number of intakes to return
+     * @return the due intakes, oldest first
+     */
+    @Query(value = """
+            SELECT * FROM "OrderIntake"
+             WHERE status = 'PENDING'
+               AND available_at <= :now
+             ORDER BY available_at
+             LIMIT :batchSize
+               FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OrderIntake> findDueForUpdate(@Param("now") OffsetDateTime now, @Param("batchSize") int batchSize);
+
+    /**
+     * Finishes a pending intake. Intakes already finished by another attempt are left untouched.
+     *
+     * @param id           the ID of the intake
+     * @param status       the final status
+     * @param errorCode    the error code, or null when the order was created
+     * @param errorMessage the error message, or null when the order was created
+     * @return the number of rows updated
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE "OrderIntake"
+               SET status = :status, error_code = :errorCode, error_message = :errorMessage,
+                   updated_at = now(), version = version + 1
+             WHERE id = :id
+               AND status = 'PENDING'
+            """, nativeQuery = true)
+    int finish(@Param("id") UUID id, @Param("status") String status,
+               @Param("errorCode") String errorCode, @Param("errorMessage") String errorMessage);
+
+    /**
+     * Deletes a batch of created or failed intakes finished before the given instant.
+     *
+     * @param before    the instant before which the intakes were finished
+     * @param batchSize the maximum number of intakes to delete
+     * @return the number of deleted intakes
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM "OrderIntake"
+             WHERE id IN (SELECT id FROM "OrderIntake"
+                           WHERE status IN ('CREATED', 'FAILED')
+                             AND updated_at < :before
+                           LIMIT :batchSize)
+            """, nativeQuery = true)
+    int deleteFinishedBefore(@Param("before") OffsetDateTime before, @Param("batchSize") int batchSize);
+}
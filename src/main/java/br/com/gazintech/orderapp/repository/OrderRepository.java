@@ -1,11 +1,68 @@
 package br.com.gazintech.orderapp.repository;
 
 import br.com.gazintech.orderapp.entity.Order;
+import io.lettuce.core.dynamic.annotation.Param;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface OrderRepository extends JpaRepository<Order, UUID>, JpaSpecificationExecutor<Order> {
+public interface OrderRepository extends JpaRepository<Order, UUID>, JpaSpecificationExecutor<Order>, OrderSliceRepository {
 
-}
\ No newline at end of file
+    /**
+     * Finds a page of orders with their partner fetched in the same query.
+     * Items are not fetched here, a collection fetch would make Hibernate paginate in memory.
+     *
+     * @param spec     the search criteria
+     * @param pageable the page to load
+     * @return the page of orders
+     */
+    @Override
+    @EntityGraph(attributePaths = "partner")
+    Page<Order> findAll(Specification<Order> spec, Pageable pageable);
+
+    /**
+     * Fetches the items of the given orders in one query. Orders already loaded in the persistence context
+     * get their items initialized.
+     *
+     * @param ids the IDs of the orders
+     * @return the orders with their items
+     */
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<Order> findAllWithItemsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Finds an order with its partner and items in a single query.
+     *
+     * @param id the ID of the order
+     * @return the order, if it exists
+     */
+    @EntityGraph(attributePaths = {"partner", "items"})
+    Optional<Order> findDetailedById(UUID id);
+
+    /**
+     * Finds orders with their partner and items in a single query.
+     *
+     * @param ids the IDs of the orders
+     * @return the orders that exist, in no particular order
+     */
+    @EntityGraph(attributePaths = {"partner", "items"})
+    List<Order> findDetailedByIdIn(Collection<UUID> ids);
+
+    /**
+     * Returns the planner estimate of the number of orders, kept up to date by autovacuum and ANALYZE.
+     * It reads a single catalog row instead of scanning the table, and is 0 for a table never analyzed.
+     *
+     * @return the estimated number of orders
+     */
+    @Query(value = "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE oid = '\"Order\"'::regclass", nativeQuery = true)
+    long estimateCount();
+}
@@ -0,0 +1,38 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.api.OrderField;
+import br.com.gazintech.orderapp.dto.OrderResponseDTO;
+import br.com.gazintech.orderapp.entity.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Set;
+
+/**
+ * Repository fragment for order pages that do not need a total count.
+ */
+public interface OrderSliceRepository {
+
+    /**
+     * Finds a slice of orders with their partner fetched, reading one extra row to know if there is a next slice
+     * instead of counting.
+     *
+     * @param spec     the search criteria
+     * @param pageable the slice to load
+     * @return the slice of orders
+     */
+    Slice<Order> findSlice(Specification<Order> spec, Pageable pageable);
+
+    /**
+     * Finds a slice of orders reading only the columns of the selected fields, without loading entities.
+     * The partner is joined and the items are queried only when selected. The ID and creation date are always
+     * read, they position cursor pages.
+     *
+     * @param spec     the search criteria
+     * @param pageable the slice to load
+     * @param fields   the fields to read
+     * @return the slice of order projections, with null in the fields not selected
+     */
+    Slice<OrderResponseDTO> findFields(Specification<Order> spec, Pageable pageable, Set<OrderField> fields);
+}
@@ -0,0 +1,162 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.api.OrderField;
+import br.com.gazintech.orderapp.dto.OrderResponseDTO;
+import br.com.gazintech.orderapp.entity.Money;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.entity.OrderItem;
+import br.com.gazintech.orderapp.entity.Partner;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+class OrderSliceRepositoryImpl implements OrderSliceRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Order> findSlice(Specification<Order> spec, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> query = criteriaBuilder.createQuery(Order.class);
+        Root<Order> root = query.from(Order.class);
+        root.fetch("partner", JoinType.INNER);
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+
+        List<Order> orders = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = orders.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? orders.subList(0, pageable.getPageSize()) : orders, pageable, hasNext);
+    }
+
+    @Override
+    public Slice<OrderResponseDTO> findFields(Specification<Order> spec, Pageable pageable, Set<OrderField> fields) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Order> root = query.from(Order.class);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get("id").alias("id"));
+        selections.add(root.get("createdAt").alias("createdAt"));
+        // a filter on the partner ID reads the foreign key, the partner table is only joined for its fields
+        if (fields.contains(OrderField.PARTNER)) {
+            Join<Order, Partner> partner = root.join("partner", JoinType.INNER);
+            selections.add(partner.get("id").alias("partnerId"));
+            selections.add(partner.get("name").alias("partnerName"));
+        }
+        if (fields.contains(OrderField.TOTAL_VALUE)) {
+            selections.add(root.get("totalValue").alias("totalValue"));
+        }
+        if (fields.contains(OrderField.STATUS)) {
+            selections.add(root.get("status").alias("status"));
+        }
+        if (fields.contains(OrderField.UPDATED_AT)) {
+            selections.add(root.get("updatedAt").alias("updatedAt"));
+        }
+        if (fields.contains(OrderField.VERSION)) {
+            selections.add(root.get("version").alias("version"));
+        }
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.multiselect(selections).orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<OrderResponseDTO> orders = (hasNext ? rows.subList(0, pageable.getPageSize()) : rows).stream()
+                .map(row -> toResponse(row, fields))
+                .toList();
+
+        if (fields.contains(OrderField.ITEMS) && !orders.isEmpty()) {
+            Map<UUID, List<OrderResponseDTO.OrderItemDTO>> items = findItems(orders.stream().map(OrderResponseDTO::getId).toList());
+            orders.forEach(order -> order.setItems(items.getOrDefault(order.getId(), List.of())));
+        }
+        return new SliceImpl<>(orders, pageable, hasNext);
+    }
+
+    private static OrderResponseDTO toResponse(Tuple row, Set<OrderField> fields) {
+        OrderResponseDTO.OrderResponseDTOBuilder order = OrderResponseDTO.builder()
+                .id(row.get("id", UUID.class))
+                .createdAt(row.get("createdAt", OffsetDateTime.class));
+        if (fields.contains(OrderField.PARTNER)) {
+            order.partner(new OrderResponseDTO.PartnerDTO(row.get("partnerId", UUID.class), row.get("partnerName", String.class)));
+        }
+        if (fields.contains(OrderField.TOTAL_VALUE)) {
+            Money totalValue = row.get("totalValue", Money.class);
+            order.totalValue(totalValue == null ? null : totalValue.toBigDecimal());
+        }
+        if (fields.contains(OrderField.STATUS)) {
+            order.status(row.get("status", Order.OrderStatus.class));
+        }
+        if (fields.contains(OrderField.UPDATED_AT)) {
+            order.updatedAt(row.get("updatedAt", OffsetDateTime.class));
+        }
+        if (fields.contains(OrderField.VERSION)) {
+            order.version(row.get("version", Long.class));
+        }
+        return order.build();
+    }
+
+    /**
+     * Reads the items of the orders as projections, grouped by order. The order ID is the foreign key column,
+     * so the orders are not joined.
+     */
+    private Map<UUID, List<OrderResponseDTO.OrderItemDTO>> findItems(List<UUID> orderIds) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<OrderItem> root = query.from(OrderItem.class);
+        query.multiselect(
+                        root.get("order").get("id").alias("orderId"),
+                        root.get("id").alias("id"),
+                        root.get("code").alias("code"),
+                        root.get("name").alias("name"),
+                        root.get("quantity").alias("quantity"),
+                        root.get("price").alias("price"))
+                .where(root.get("order").get("id").in(orderIds));
+
+        Map<UUID, List<OrderResponseDTO.OrderItemDTO>> items = new HashMap<>();
+        for (Tuple row : entityManager.createQuery(query).getResultList()) {
+            Money price = row.get("price", Money.class);
+            BigDecimal amount = price == null ? null : price.toBigDecimal();
+            items.computeIfAbsent(row.get("orderId", UUID.class), id -> new ArrayList<>())
+                    .add(new OrderResponseDTO.OrderItemDTO(row.get("id", UUID.class), row.get("code", String.class),
+                            row.get("name", String.class), row.get("quantity", Integer.class), amount));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.entity.PartnerCreditDirty;
+import io.lettuce.core.dynamic.annotation.Param;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Marks are written and cleared under the ledger lock of the partner, so a mark is never cleared
+ * while an entry it stands for is still uncommitted.
+ */
+public interface PartnerCreditDirtyRepository extends JpaRepository<PartnerCreditDirty, UUID> {
+
+    /**
+     * Marks the partner as having entries to compact. A partner already marked is left untouched,
+     * so only the first entry after a compaction writes the mark.
+     *
+     * @param partnerId the ID of the partner
+     * @return 1 when the mark was written
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO "PartnerCreditDirty" (partner_id, marked_at)
+            VALUES (:partnerId, now())
+            ON CONFLICT (partner_id) DO NOTHING
+            """, nativeQuery = true)
+    int mark(@Param("partnerId") UUID partnerId);
+
+    /**
+     * Lists the partners with entries to compact, the longest waiting first.
+     *
+     * @param batchSize the maximum number of partners to return
+     * @return the IDs of the partners to compact
+     */
+    @Query(value = """
+            SELECT d.partner_id
+              FROM "PartnerCreditDirty" d
+             ORDER BY d.marked_at
+             LIMIT :batchSize
+            """, nativeQuery = true)
+    List<UUID> findPartnersToCompact(@Param("batchSize") int batchSize);
+
+    @Modifying
+    @Query(value = "DELETE FROM \"PartnerCreditDirty\" WHERE partner_id = :partnerId", nativeQuery = true)
+    int clear(@Param("partnerId") UUID partnerId);
+}
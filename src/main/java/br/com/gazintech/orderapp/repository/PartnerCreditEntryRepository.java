@@ -0,0 +1,54 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.entity.PartnerCreditEntry;
+import io.lettuce.core.dynamic.annotation.Param;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PartnerCreditEntryRepository extends JpaRepository<PartnerCreditEntry, Long> {
+
+    /**
+     * Serializes ledger writers of one partner until the end of the current transaction.
+     * It is an advisory lock, so no row is locked or rewritten.
+     *
+     * @param partnerId the ID of the partner
+     * @return always 1
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtextextended(CAST(:partnerId AS text), 0))", nativeQuery = true)
+    Integer lockPartner(@Param("partnerId") UUID partnerId);
+
+    /**
+     * Reads the partner balance as its snapshot plus the entries written after it, in one consistent statement.
+     * Partners without a snapshot start from the partner row.
+     *
+     * @param partnerId the ID of the partner
+     * @return the balance of the partner, or empty if the partner does not exist
+     */
+    @Query(value = """
+            SELECT p.code AS code, p.credit_limit AS creditLimit,
+                   COALESCE(s.available_credit, p.available_credit)
+                   + COALESCE((SELECT SUM(e.delta)
+                                 FROM "PartnerCreditEntry" e
+                                WHERE e.partner_id = p.id
+                                  AND e.id > COALESCE(s.last_entry_id, 0)), 0) AS availableCredit
+              FROM "Partner" p
+              LEFT JOIN "PartnerCreditSnapshot" s ON s.partner_id = p.id
+             WHERE p.id = :partnerId
+            """, nativeQuery = true)
+    Optional<LedgerBalanceView> findBalance(@Param("partnerId") UUID partnerId);
+
+    /**
+     * Projection of a partner balance as seen by the ledger credit engine.
+     */
+    interface LedgerBalanceView {
+        String getCode();
+
+        BigDecimal getCreditLimit();
+
+        BigDecimal getAvailableCredit();
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.entity.PartnerCreditShard;
+import io.lettuce.core.dynamic.annotation.Param;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public interface PartnerCreditShardRepository extends JpaRepository<PartnerCreditShard, UUID> {
+
+    long countByPartnerId(UUID partnerId);
+
+    /**
+     * Locks every shard of the partner, always in shard order so concurrent lockers cannot deadlock.
+     *
+     * @param partnerId the ID of the partner
+     * @return the shards of the partner ordered by shard index
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PartnerCreditShard s WHERE s.partnerId = :partnerId ORDER BY s.shardIndex")
+    List<PartnerCreditShard> findAllByPartnerIdWithLock(@Param("partnerId") UUID partnerId);
+
+    /**
+     * Locks the shards of the partner from a shard index on, in shard order.
+     *
+     * @param partnerId the ID of the partner
+     * @param fromShard the index of the first shard to lock
+     * @return the locked shards ordered by shard index
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PartnerCreditShard s WHERE s.partnerId = :partnerId AND s.shardIndex >= :fromShard ORDER BY s.shardIndex")
+    List<PartnerCreditShard> findFromShardWithLock(@Param("partnerId") UUID partnerId, @Param("fromShard") int fromShard);
+
+    /**
+     * Locks the shards of the partner below a shard index that no other transaction holds, without waiting
+     * for the others.
+     *
+     * @param partnerId  the ID of the partner
+     * @param belowShard the index above the last shard to lock
+     * @return the locked shards ordered by shard index
+     */
+    @Query(value = """
+            SELECT * FROM "PartnerCreditShard"
+             WHERE partner_id = :partnerId
+               AND shard_index < :belowShard
+             ORDER BY shard_index
+               FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<PartnerCreditShard> findFreeBelowShardWithLock(@Param("partnerId") UUID partnerId, @Param("belowShard") int belowShard);
+
+    @Query("SELECT COALESCE(SUM(s.availableCredit), 0) FROM PartnerCreditShard s WHERE s.partnerId = :partnerId")
+    BigDecimal sumAvailableCredit(@Param("partnerId") UUID partnerId);
+
+    /**
+     * Debits a single shard if it alone has enough credit, locking only that shard row.
+     *
+     * @param partnerId  the ID of the partner
+     * @param shardIndex the index of the shard
+     * @param amount     the amount to debit
+     * @return 1 if the shard was debited, 0 if it does not have enough credit
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE "PartnerCreditShard"
+               SET available_credit = available_credit - :amount
+             WHERE partner_id = :partnerId
+               AND shard_index = :shardIndex
+               AND available_credit >= :amount
+            """, nativeQuery = true)
+    int debitShardIfAvailable(@Param("partnerId") UUID partnerId, @Param("shardIndex") int shardIndex, @Param("amount") BigDecimal amount);
+
+    /**
+     * Copies the sum of the shards to the partner rows whose available credit drifted from it.
+     *
+     * @return the number of partner rows updated
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE "Partner" p
+               SET available_credit = t.available_credit,
+                   version = p.version + 1,
+                   updated_at = now()
+              FROM (SELECT partner_id, SUM(available_credit) AS available_credit
+                      FROM "PartnerCreditShard"
+                     GROUP BY partner_id) t
+             WHERE p.id = t.partner_id
+               AND p.available_credit <> t.available_credit
+            """, nativeQuery = true)
+    int syncPartners();
+}
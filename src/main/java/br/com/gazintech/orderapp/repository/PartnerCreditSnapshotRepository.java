@@ -0,0 +1,67 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.entity.PartnerCreditSnapshot;
+import io.lettuce.core.dynamic.annotation.Param;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.UUID;
+
+public interface PartnerCreditSnapshotRepository extends JpaRepository<PartnerCreditSnapshot, UUID> {
+
+    /**
+     * Creates the first snapshot of a partner from its partner row, if it has none yet.
+     *
+     * @param partnerId the ID of the partner
+     * @return 1 when a snapshot was created
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO "PartnerCreditSnapshot" (partner_id, available_credit, last_entry_id, compacted_at)
+            SELECT id, available_credit, 0, now() FROM "Partner" WHERE id = :partnerId
+            ON CONFLICT (partner_id) DO NOTHING
+            """, nativeQuery = true)
+    int seed(@Param("partnerId") UUID partnerId);
+
+    /**
+     * Folds the entries written after the snapshot into it.
+     *
+     * @param partnerId the ID of the partner
+     * @return 1 when the snapshot moved forward
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE "PartnerCreditSnapshot" s
+               SET available_credit = s.available_credit + t.delta,
+                   last_entry_id = t.last_entry_id,
+                   compacted_at = now()
+              FROM (SELECT SUM(e.delta) AS delta, MAX(e.id) AS last_entry_id
+                      FROM "PartnerCreditEntry" e
+                      JOIN "PartnerCreditSnapshot" current ON current.partner_id = e.partner_id
+                     WHERE e.partner_id = :partnerId
+                       AND e.id > current.last_entry_id) t
+             WHERE s.partner_id = :partnerId
+               AND t.last_entry_id IS NOT NULL
+            """, nativeQuery = true)
+    int fold(@Param("partnerId") UUID partnerId);
+
+    /**
+     * Copies the snapshot to the partner row, so readers of the partner row see a recent balance.
+     *
+     * @param partnerId the ID of the partner
+     * @return 1 when the partner row was updated
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE "Partner" p
+               SET available_credit = s.available_credit,
+                   version = p.version + 1,
+                   updated_at = now()
+              FROM "PartnerCreditSnapshot" s
+             WHERE s.partner_id = p.id
+               AND p.id = :partnerId
+               AND p.available_credit <> s.available_credit
+            """, nativeQuery = true)
+    int copyToPartner(@Param("partnerId") UUID partnerId);
+}
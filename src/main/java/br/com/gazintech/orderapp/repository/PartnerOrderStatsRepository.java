@@ -0,0 +1,103 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.entity.PartnerOrderStats;
+import io.lettuce.core.dynamic.annotation.Param;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writers of the statistics of a partner share a transaction-scoped advisory lock that the rebuild takes
+ * exclusively, so a rebuild never overwrites a change it did not see. The two-key lock space 2 keeps these
+ * locks apart from the single-key locks of the credit ledger, and lock space 3 holds the lock of the rebuild itself.
+ */
+public interface PartnerOrderStatsRepository extends JpaRepository<PartnerOrderStats, PartnerOrderStats.Key> {
+
+    List<PartnerOrderStats> findAllByPartnerId(UUID partnerId);
+
+    /**
+     * Adds orders to the statistics of a partner in a status, creating the row if needed.
+     *
+     * @param partnerId the ID of the partner
+     * @param status    the status of the orders
+     * @param count     the number of orders to add, negative to remove
+     * @param value     the value to add, negative to remove
+     * @return always 1
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO "PartnerOrderStats" (partner_id, status, order_count, total_value, updated_at)
+            SELECT :partnerId, :status, :count, :value, now()
+              FROM pg_advisory_xact_lock_shared(2, hashtext(CAST(:partnerId AS text)))
+            ON CONFLICT (partner_id, status) DO UPDATE
+               SET order_count = "PartnerOrderStats".order_count + EXCLUDED.order_count,
+                   total_value = "PartnerOrderStats".total_value + EXCLUDED.total_value,
+                   updated_at = now()
+            """, nativeQuery = true)
+    int add(@Param("partnerId") UUID partnerId, @Param("status") String status, @Param("count") long count, @Param("value") BigDecimal value);
+
+    /**
+     * Waits for the writers of the partners to finish and keeps new ones out until the end of the transaction.
+     * Locks are taken in hash order, so concurrent rebuilds cannot deadlock.
+     *
+     * @param partnerIds the IDs of the partners
+     * @return the number of locks taken
+     */
+    @Query(value = """
+            SELECT COUNT(pg_advisory_xact_lock(2, t.hash))
+              FROM (SELECT DISTINCT hashtext(CAST(p.id AS text)) AS hash
+                      FROM "Partner" p
+                     WHERE p.id IN (:partnerIds)
+                     ORDER BY hash) t
+            """, nativeQuery = true)
+    long lockPartners(@Param("partnerIds") Collection<UUID> partnerIds);
+
+    /**
+     * Takes the writer locks of the partners in the same hash order as {@link #lockPartners}, so a transaction
+     * writing the statistics of several partners cannot deadlock with a rebuild.
+     *
+     * @param partnerIds the IDs of the partners
+     * @return the number of locks taken
+     */
+    @Query(value = """
+            SELECT COUNT(pg_advisory_xact_lock_shared(2, t.hash))
+              FROM (SELECT DISTINCT hashtext(CAST(p.id AS text)) AS hash
+                      FROM "Partner" p
+                     WHERE p.id IN (:partnerIds)
+                     ORDER BY hash) t
+            """, nativeQuery = true)
+    long lockPartnersShared(@Param("partnerIds") Collection<UUID> partnerIds);
+
+    /**
+     * Takes the lock of the rebuild until the end of the transaction, unless another node holds it.
+     *
+     * @return whether the lock was taken
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(3, 0)", nativeQuery = true)
+    boolean tryLockRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM \"PartnerOrderStats\" WHERE partner_id IN (:partnerIds)", nativeQuery = true)
+    int deleteByPartnerIds(@Param("partnerIds") Collection<UUID> partnerIds);
+
+    /**
+     * Recomputes the statistics of the partners from their orders.
+     *
+     * @param partnerIds the IDs of the partners, whose rows must have been deleted
+     * @return the number of rows written
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO "PartnerOrderStats" (partner_id, status, order_count, total_value, updated_at)
+            SELECT o.partner_id, o.status, COUNT(*), SUM(o.total_value), now()
+              FROM "Order" o
+             WHERE o.partner_id IN (:partnerIds)
+             GROUP BY o.partner_id, o.status
+            """, nativeQuery = true)
+    int insertFromOrders(@Param("partnerIds") Collection<UUID> partnerIds);
+}
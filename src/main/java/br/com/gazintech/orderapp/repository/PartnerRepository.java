@@ -5,8 +5,11 @@ import io.lettuce.core.dynamic.annotation.Param;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -23,4 +26,130 @@ public interface PartnerRepository extends JpaRepository<Partner, UUID> {
     Optional<Partner> findByCodeWithLock(@Param("code") String code);
 
     boolean existsByCode(String code);
-}
\ No newline at end of file
+
+    /**
+     * Debits the partner credit in a single guarded statement, without reading the row first.
+     *
+     * @param id     the ID of the partner
+     * @param amount the amount to debit
+     * @return 1 when the credit was debited, 0 when the partner does not exist or has not enough credit
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE "Partner"
+               SET available_credit = available_credit - :amount,
+                   version = version + 1,
+                   updated_at = now()
+             WHERE id = :id
+               AND available_credit >= :amount
+            """, nativeQuery = true)
+    int debitCreditIfAvailable(@Param("id") UUID id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Credits the partner credit in a single statement, capped at the partner credit limit.
+     *
+     * @param id     the ID of the partner
+     * @param amount the amount to credit
+     * @return 1 when the credit was credited, 0 when the partner does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE "Partner"
+               SET available_credit = LEAST(available_credit + :amount, credit_limit),
+                   version = version + 1,
+                   updated_at = now()
+             WHERE id = :id
+            """, nativeQuery = true)
+    int creditCreditUpToLimit(@Param("id") UUID id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Updates only the credit limit of the partner, leaving the available credit to its owner.
+     *
+     * @param id       the ID of the partner
+     * @param newLimit the new credit limit
+     * @return 1 when the limit was updated, 0 when the partner does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE "Partner"
+               SET credit_limit = :newLimit,
+                   version = version + 1,
+                   updated_at = now()
+             WHERE id = :id
+            """, nativeQuery = true)
+    int updateCreditLimit(@Param("id") UUID id, @Param("newLimit") BigDecimal newLimit);
+
+    /**
+     * Adds a signed delta to the partner available credit, without checks or caps.
+     * Used to reconcile balances owned by an external credit engine.
+     *
+     * @param id    the ID of the partner
+     * @param delta the signed amount to add
+     * @return 1 when the credit was adjusted, 0 when the partner does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE "Partner"
+               SET available_credit = available_credit + :delta,
+                   version = version + 1,
+                   updated_at = now()
+             WHERE id = :id
+            """, nativeQuery = true)
+    int adjustAvailableCredit(@Param("id") UUID id, @Param("delta") BigDecimal delta);
+
+    /**
+     * Reads the credit state of the partner from the database, bypassing the persistence context,
+     * so a retry always sees the latest committed version.
+     *
+     * @param id the ID of the partner
+     * @return the credit state of the partner, or empty if the partner does not exist
+     */
+    @Query(value = """
+            SELECT code, credit_limit AS creditLimit, available_credit AS availableCredit, version
+              FROM "Partner"
+             WHERE id = :id
+            """, nativeQuery = true)
+    Optional<CreditStateView> findCreditStateById(@Param("id") UUID id);
+
+    /**
+     * Sets the partner available credit only if the row is still at the expected {@code @Version}.
+     *
+     * @param id              the ID of the partner
+     * @param availableCredit the new available credit
+     * @param version         the version the new value was computed from
+     * @return 1 when the credit was set, 0 when another transaction changed the partner first
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE "Partner"
+               SET available_credit = :availableCredit,
+                   version = version + 1,
+                   updated_at = now()
+             WHERE id = :id
+               AND version = :version
+            """, nativeQuery = true)
+    int updateAvailableCreditIfVersion(@Param("id") UUID id, @Param("availableCredit") BigDecimal availableCredit, @Param("version") Long version);
+
+    /**
+     * Lists partner IDs in ID order, for jobs that walk every partner in batches.
+     *
+     * @param after the last ID of the previous batch, the nil UUID for the first batch
+     * @param limit the maximum number of IDs to return
+     * @return the IDs following {@code after}
+     */
+    @Query(value = "SELECT id FROM \"Partner\" WHERE id > :after ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<UUID> findIdsAfter(@Param("after") UUID after, @Param("limit") int limit);
+
+    /**
+     * Projection of the partner credit state read by the optimistic credit mode.
+     */
+    interface CreditStateView {
+        String getCode();
+
+        BigDecimal getCreditLimit();
+
+        BigDecimal getAvailableCredit();
+
+        Long getVersion();
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.entity.PendingCreditDelta;
+import io.lettuce.core.dynamic.annotation.Param;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PendingCreditDeltaRepository extends JpaRepository<PendingCreditDelta, Long> {
+
+    /**
+     * Reads the balance of every partner as the partner row plus its pending deltas, in one consistent statement.
+     *
+     * @return the balance of every partner
+     */
+    @Query(value = """
+            SELECT p.id AS partnerId, p.code AS code, p.credit_limit AS creditLimit,
+                   p.available_credit + COALESCE(SUM(d.delta), 0) AS availableCredit
+              FROM "Partner" p
+              LEFT JOIN "PendingCreditDelta" d ON d.partner_id = p.id
+             GROUP BY p.id
+            """, nativeQuery = true)
+    List<CreditBalanceView> findAllBalances();
+
+    /**
+     * Reads the balance of one partner as the partner row plus its pending deltas, in one consistent statement.
+     *
+     * @param partnerId the ID of the partner
+     * @return the balance of the partner, or empty if the partner does not exist
+     */
+    @Query(value = """
+            SELECT p.id AS partnerId, p.code AS code, p.credit_limit AS creditLimit,
+                   p.available_credit + COALESCE(SUM(d.delta), 0) AS availableCredit
+              FROM "Partner" p
+              LEFT JOIN "PendingCreditDelta" d ON d.partner_id = p.id
+             WHERE p.id = :partnerId
+             GROUP BY p.id
+            """, nativeQuery = true)
+    Optional<CreditBalanceView> findBalance(@Param("partnerId") UUID partnerId);
+
+    /**
+     * Removes up to {@code batchSize} of the oldest committed deltas and adds their net sum per partner
+     * to the partner rows, in one atomic statement.
+     *
+     * @param batchSize the maximum number of deltas to fold
+     * @return the number of partner rows updated
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            WITH drained AS (
+                DELETE FROM "PendingCreditDelta"
+                 WHERE id IN (SELECT id FROM "PendingCreditDelta" ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED)
+             RETURNING partner_id, delta
+            ), totals AS (
+                SELECT partner_id, SUM(delta) AS delta FROM drained GROUP BY partner_id
+            )
+            UPDATE "Partner" p
+               SET available_credit = p.available_credit + t.delta,
+                   version = p.version + 1,
+                   updated_at = now()
+              FROM totals t
+             WHERE p.id = t.partner_id
+            """, nativeQuery = true)
+    int flushBatch(@Param("batchSize") int batchSize);
+
+    /**
+     * Projection of a partner balance as seen by the in-memory credit engine.
+     */
+    interface CreditBalanceView {
+        UUID getPartnerId();
+
+        String getCode();
+
+        BigDecimal getCreditLimit();
+
+        BigDecimal getAvailableCredit();
+    }
+}
@@ -1,13 +1,17 @@
 package br.com.gazintech.orderapp.repository.specification;
 
+import br.com.gazintech.orderapp.api.SortDirection;
+import br.com.gazintech.orderapp.dto.OrderCursor;
 import br.com.gazintech.orderapp.dto.OrderSearchDTO;
 import br.com.gazintech.orderapp.entity.Order;
 import jakarta.persistence.criteria.Predicate;
 import lombok.NoArgsConstructor;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Specification class for filtering orders based on various criteria.
@@ -45,4 +49,32 @@ public class OrderSpecifications {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a seek predicate that keeps the orders after the cursor in the {@code (createdAt, id)} order.
+     * The redundant bound on {@code createdAt} alone lets Postgres start the index scan at the cursor
+     * instead of filtering every row before it.
+     *
+     * @param cursor    The position of the last order of the previous page.
+     * @param direction The direction of the keyset order.
+     * @return A Specification that keeps the orders after the cursor.
+     */
+    public static Specification<Order> after(OrderCursor cursor, SortDirection direction) {
+        return (root, query, criteriaBuilder) -> {
+            var createdAt = root.<OffsetDateTime>get("createdAt");
+            var id = root.<UUID>get("id");
+            if (direction == SortDirection.ASC) {
+                return criteriaBuilder.and(
+                        criteriaBuilder.greaterThanOrEqualTo(createdAt, cursor.createdAt()),
+                        criteriaBuilder.or(
+                                criteriaBuilder.greaterThan(createdAt, cursor.createdAt()),
+                                criteriaBuilder.greaterThan(id, cursor.id())));
+            }
+            return criteriaBuilder.and(
+                    criteriaBuilder.lessThanOrEqualTo(createdAt, cursor.createdAt()),
+                    criteriaBuilder.or(
+                            criteriaBuilder.lessThan(createdAt, cursor.createdAt()),
+                            criteriaBuilder.lessThan(id, cursor.id())));
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.utils.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.stereotype.Service;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Populates caches from write paths once their transaction commits, so readers never see
+ * a value whose transaction rolled back and the first read after a write does not miss.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheWriter {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Puts the value in the cache after the current transaction commits, or right away without a transaction.
+     * A cache failure is logged and never fails the write, the next read loads the value from the database.
+     *
+     * @param cacheName the name of the cache
+     * @param key       the cache key
+     * @param value     the value to cache
+     */
+    public void putAfterCommit(String cacheName, Object key, Object value) {
+        TransactionHooks.afterCommit(() -> {
+            try {
+                Cache cache = targetCache(cacheName);
+                if (cache != null) {
+                    cache.put(key, value);
+                    log.debug("Cache populated after commit", kv("cache", cacheName), kv("key", key));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to populate cache after commit", kv("cache", cacheName), kv("key", key), e);
+            }
+        });
+    }
+
+    /**
+     * Evicts the key from the cache after the current transaction commits, or right away without a transaction.
+     * A cache failure is logged and never fails the write, the entry expires with the cache time to live.
+     *
+     * @param cacheName the name of the cache
+     * @param key       the cache key
+     */
+    public void evictAfterCommit(String cacheName, Object key) {
+        TransactionHooks.afterCommit(() -> {
+            try {
+                Cache cache = targetCache(cacheName);
+                if (cache != null) {
+                    cache.evict(key);
+                    log.debug("Cache evicted after commit", kv("cache", cacheName), kv("key", key));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to evict cache after commit", kv("cache", cacheName), kv("key", key), e);
+            }
+        });
+    }
+
+    private Cache targetCache(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        // the call already runs after commit, a transaction-aware cache would defer it to a commit that already happened
+        if (cache instanceof TransactionAwareCacheDecorator transactionAwareCache) {
+            return transactionAwareCache.getTargetCache();
+        }
+        return cache;
+    }
+}
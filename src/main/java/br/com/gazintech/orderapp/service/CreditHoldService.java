@@ -0,0 +1,181 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.entity.CreditHold;
+import br.com.gazintech.orderapp.entity.Money;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
+import br.com.gazintech.orderapp.repository.CreditHoldRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Service for managing credit holds.
+ * A hold reserves the order total when the order is created, becomes a debit when the order is approved
+ * and gives the credit back when the order is canceled or when the hold expires.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CreditHoldService {
+
+    private final CreditHoldRepository creditHoldRepository;
+    private final CreditService creditService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order-app.credit.holds.enabled:false}")
+    private boolean enabled;
+
+    @Value("${order-app.credit.holds.ttl:PT30M}")
+    private Duration ttl = Duration.ofMinutes(30);
+
+    @Value("${order-app.credit.holds.sweep-batch-size:200}")
+    private int sweepBatchSize = 200;
+
+    /**
+     * Indicates if orders reserve their credit at creation.
+     *
+     * @return true if credit holds are enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserves the order total from the partner credit.
+     *
+     * @param order the order to reserve credit for
+     * @throws PartnerNotFoundException     if the partner does not exist
+     * @throws InsufficientBalanceException if the partner does not have enough credit
+     */
+    @Transactional
+    public void placeHold(Order order) throws PartnerNotFoundException, InsufficientBalanceException {
+        UUID partnerId = order.getPartner().getId();
+        log.info("Placing credit hold", kv("orderId", order.getId()), kv("partnerId", partnerId), kv("amount", order.getTotalValue()));
+
+        creditService.debitCredit(partnerId, order.getTotal());
+
+        creditHoldRepository.save(CreditHold.builder()
+                .orderId(order.getId())
+                .partnerId(partnerId)
+                .amount(order.getTotalValue())
+                .expiresAt(OffsetDateTime.now(ZoneOffset.UTC).plus(ttl))
+                .build());
+    }
+
+    /**
+     * Reserves the total of several orders of the same partner with a single debit.
+     *
+     * @param partnerId the ID of the partner
+     * @param orders    the orders to reserve credit for
+     * @throws PartnerNotFoundException     if the partner does not exist
+     * @throws InsufficientBalanceException if the partner does not have enough credit for all the orders
+     */
+    @Transactional
+    public void placeHolds(UUID partnerId, List<Order> orders) throws PartnerNotFoundException, InsufficientBalanceException {
+        Money total = orders.stream()
+                .map(Order::getTotal)
+                .reduce(Money.ZERO, Money::plus);
+        log.info("Placing credit holds", kv("partnerId", partnerId), kv("orders", orders.size()), kv("amount", total));
+
+        creditService.debitCredit(partnerId, total);
+
+        OffsetDateTime expiresAt = OffsetDateTime.now(ZoneOffset.UTC).plus(ttl);
+        creditHoldRepository.saveAll(orders.stream()
+                .map(order -> CreditHold.builder()
+                        .orderId(order.getId())
+                        .partnerId(partnerId)
+                        .amount(order.getTotalValue())
+                        .expiresAt(expiresAt)
+                        .build())
+                .toList());
+    }
+
+    /**
+     * Turns the active hold of an approved order into a debit.
+     *
+     * @param order the approved order
+     * @return true if an active hold covered the order, false if the order still has to be debited
+     */
+    @Transactional
+    public boolean convertHold(Order order) {
+        if (!enabled) {
+            return false;
+        }
+        return creditHoldRepository.findByOrderIdWithLock(order.getId())
+                .filter(hold -> hold.getStatus() == CreditHold.HoldStatus.ACTIVE)
+                .map(hold -> {
+                    hold.setStatus(CreditHold.HoldStatus.CONVERTED);
+                    log.info("Credit hold converted to debit", kv("orderId", order.getId()), kv("amount", hold.getAmount()));
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Gives back the credit of the active hold of a canceled order.
+     *
+     * @param order the canceled order
+     * @return true if an active hold was released
+     */
+    @Transactional
+    public boolean releaseHold(Order order) {
+        if (!enabled) {
+            return false;
+        }
+        return creditHoldRepository.findByOrderIdWithLock(order.getId())
+                .filter(hold -> hold.getStatus() == CreditHold.HoldStatus.ACTIVE)
+                .map(hold -> {
+                    creditService.creditCredit(hold.getPartnerId(), Money.of(hold.getAmount()));
+                    hold.setStatus(CreditHold.HoldStatus.RELEASED);
+                    log.info("Credit hold released", kv("orderId", order.getId()), kv("amount", hold.getAmount()));
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Expires stale holds in batches, giving their credit back with one credit per partner and batch.
+     */
+    @Scheduled(fixedDelayString = "${order-app.credit.holds.sweep-interval-ms:60000}")
+    public void expireHolds() {
+        if (!enabled) {
+            return;
+        }
+        int expired;
+        do {
+            expired = transactionTemplate.execute(status -> expireBatch());
+        } while (expired == sweepBatchSize);
+    }
+
+    private int expireBatch() {
+        List<CreditHold> holds = creditHoldRepository.findExpiredForUpdate(OffsetDateTime.now(ZoneOffset.UTC), sweepBatchSize);
+        if (holds.isEmpty()) {
+            return 0;
+        }
+
+        Map<UUID, Money> amountByPartner = holds.stream()
+                .collect(Collectors.groupingBy(CreditHold::getPartnerId,
+                        Collectors.reducing(Money.ZERO, hold -> Money.of(hold.getAmount()), Money::plus)));
+        amountByPartner.forEach(creditService::creditCredit);
+        holds.forEach(hold -> hold.setStatus(CreditHold.HoldStatus.EXPIRED));
+
+        log.info("Credit holds expired", kv("holds", holds.size()), kv("partners", amountByPartner.size()));
+        return holds.size();
+    }
+}
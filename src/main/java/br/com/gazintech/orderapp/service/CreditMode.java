@@ -0,0 +1,34 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.service.credit.CreditEngine;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Enum representing how {@link CreditService} applies debits and credits to the partner balance.
+ * <p>
+ * - PESSIMISTIC: Locks the partner row with SELECT ... FOR UPDATE, changes the entity and saves it.
+ * - CONDITIONAL_UPDATE: Runs a single guarded UPDATE and takes the outcome from the affected row count.
+ * - OPTIMISTIC: Reads without a lock and writes with an UPDATE guarded by the partner {@code @Version}, retrying with backoff.
+ * - GROUP_COMMIT: Collects concurrent debits of a partner for a few milliseconds and applies them in one locked transaction.
+ * - SHARDED: Splits the credit of hot partners into sub-account rows and debits a random one.
+ * - IN_MEMORY: Keeps balances in process with striped locks and writes them behind to the partner row.
+ * - REDIS: Keeps balances in Redis, debits them in a Lua script and reconciles the partner row from a delta stream.
+ * - LEDGER: Appends every change to an insert-only ledger and reads balances as a snapshot plus the newer entries.
+ * </p>
+ * Modes flagged as engine backed delegate every credit operation to the active {@link CreditEngine}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CreditMode {
+    PESSIMISTIC(false),
+    CONDITIONAL_UPDATE(false),
+    OPTIMISTIC(false),
+    GROUP_COMMIT(false),
+    SHARDED(true),
+    IN_MEMORY(true),
+    REDIS(true),
+    LEDGER(true);
+
+    private final boolean engineBacked;
+}
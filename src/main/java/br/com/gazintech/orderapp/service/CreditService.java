@@ -1,23 +1,45 @@
 package br.com.gazintech.orderapp.service;
 
+import br.com.gazintech.orderapp.entity.Money;
 import br.com.gazintech.orderapp.entity.Partner;
+import br.com.gazintech.orderapp.exception.CreditOperationTimeoutException;
 import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception.InvalidAmountException;
 import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
 import br.com.gazintech.orderapp.repository.PartnerRepository;
+import br.com.gazintech.orderapp.repository.PartnerRepository.CreditStateView;
+import br.com.gazintech.orderapp.service.credit.CreditBatchCoordinator;
+import br.com.gazintech.orderapp.service.credit.CreditEngine;
+import br.com.gazintech.orderapp.utils.TransactionHooks;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 import static net.logstash.logback.argument.StructuredArguments.kv;
 
 /**
  * Service for managing partner credit operations.
  * Provides methods to check, debit, credit, and update credit limits for partners.
+ * Debits and credits are applied according to the configured {@link CreditMode}.
+ * Amounts are {@link Money} from the order down to the partner row; the decimal overloads convert at the boundary.
  */
 @Service
 @RequiredArgsConstructor
@@ -25,6 +47,28 @@ import static net.logstash.logback.argument.StructuredArguments.kv;
 public class CreditService {
 
     private final PartnerRepository partnerRepository;
+    private final ObjectProvider<CreditEngine> creditEngine;
+    private final ObjectProvider<CreditBatchCoordinator> creditBatchCoordinator;
+    private final MeterRegistry meterRegistry;
+    private final EntityManager entityManager;
+
+    @Value("${order-app.credit.mode:PESSIMISTIC}")
+    private CreditMode creditMode = CreditMode.PESSIMISTIC;
+
+    @Value("${order-app.credit.optimistic.max-attempts:5}")
+    private int optimisticMaxAttempts = 5;
+
+    @Value("${order-app.credit.optimistic.base-backoff:5ms}")
+    private Duration optimisticBaseBackoff = Duration.ofMillis(5);
+
+    @Value("${order-app.credit.optimistic.max-backoff:100ms}")
+    private Duration optimisticMaxBackoff = Duration.ofMillis(100);
+
+    @Value("${order-app.credit.optimistic.max-total-backoff:200ms}")
+    private Duration optimisticMaxTotalBackoff = Duration.ofMillis(200);
+
+    @Value("${order-app.credit.group-commit.timeout:PT5S}")
+    private Duration groupCommitTimeout = Duration.ofSeconds(5);
 
     /**
      * Checks if the partner has available credit for the specified amount.
@@ -33,10 +77,28 @@ public class CreditService {
      * @param amount    the amount to check
      * @throws PartnerNotFoundException     if the partner does not exist
      * @throws InsufficientBalanceException if the partner does not have enough credit
+     * @throws InvalidAmountException       if the amount has more than 2 decimal places
      */
     public void hasAvailableCredit(UUID partnerId, BigDecimal amount) throws PartnerNotFoundException, InsufficientBalanceException {
+        hasAvailableCredit(partnerId, toMoney(amount));
+    }
+
+    /**
+     * Checks if the partner has available credit for the specified amount.
+     *
+     * @param partnerId the ID of the partner
+     * @param amount    the amount to check
+     * @throws PartnerNotFoundException     if the partner does not exist
+     * @throws InsufficientBalanceException if the partner does not have enough credit
+     */
+    public void hasAvailableCredit(UUID partnerId, Money amount) throws PartnerNotFoundException, InsufficientBalanceException {
         log.info("Checking available Partner credit", kv("partnerId", partnerId), kv("amount", amount));
 
+        if (creditMode.isEngineBacked()) {
+            creditEngine.getObject().hasAvailableCredit(partnerId, amount.toBigDecimal());
+            return;
+        }
+
         Partner partner = partnerRepository.findById(partnerId)
                 .orElseThrow(() -> new PartnerNotFoundException("Partner not found %s".formatted(partnerId)));
 
@@ -54,13 +116,45 @@ public class CreditService {
      * @param amount    the amount to debit
      * @throws PartnerNotFoundException     if the partner does not exist
      * @throws InsufficientBalanceException if the partner does not have enough credit
+     * @throws InvalidAmountException       if the amount has more than 2 decimal places
      */
     @Transactional
     public void debitCredit(UUID partnerId, BigDecimal amount) throws PartnerNotFoundException, InsufficientBalanceException {
-        log.info("Debiting credit for partner {} amount {}", partnerId, amount);
+        debitCredit(partnerId, toMoney(amount));
+    }
 
-        Partner partner = partnerRepository.findByIdWithLock(partnerId)
-                .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
+    /**
+     * Debits the specified amount from the partner's credit.
+     *
+     * @param partnerId the ID of the partner
+     * @param amount    the amount to debit
+     * @throws PartnerNotFoundException     if the partner does not exist
+     * @throws InsufficientBalanceException if the partner does not have enough credit
+     */
+    @Transactional
+    public void debitCredit(UUID partnerId, Money amount) throws PartnerNotFoundException, InsufficientBalanceException {
+        log.info("Debiting credit for partner {} amount {}", partnerId, amount, kv("creditMode", creditMode));
+
+        if (creditMode.isEngineBacked()) {
+            creditEngine.getObject().debitCredit(partnerId, amount.toBigDecimal());
+            return;
+        }
+
+        switch (creditMode) {
+            case CONDITIONAL_UPDATE -> debitWithConditionalUpdate(partnerId, amount.toBigDecimal());
+            case OPTIMISTIC -> updateOptimistically("debit", partnerId, state -> {
+                if (state.getAvailableCredit().compareTo(amount.toBigDecimal()) < 0) {
+                    throw new InsufficientBalanceException("Insufficient credit for partner: " + state.getCode());
+                }
+                return state.getAvailableCredit().subtract(amount.toBigDecimal());
+            }, () -> debitWithLock(partnerId, amount));
+            case GROUP_COMMIT -> debitWithGroupCommit(partnerId, amount);
+            default -> debitWithLock(partnerId, amount);
+        }
+    }
+
+    private void debitWithLock(UUID partnerId, Money amount) {
+        Partner partner = lockPartner(partnerId);
 
         if (!partner.hasAvailableCredit(amount)) {
             throw new InsufficientBalanceException("Insufficient credit for partner: " + partner.getCode());
@@ -70,7 +164,7 @@ public class CreditService {
         partnerRepository.save(partner);
 
         log.info("Credit debited successfully for partner {} new available credit: {}",
-                partnerId, partner.getAvailableCredit());
+                partnerId, partner.availableCredit());
     }
 
     /**
@@ -79,19 +173,190 @@ public class CreditService {
      * @param partnerId the ID of the partner
      * @param amount    the amount to credit
      * @throws PartnerNotFoundException if the partner does not exist
+     * @throws InvalidAmountException   if the amount has more than 2 decimal places
      */
     @Transactional
     public void creditCredit(UUID partnerId, BigDecimal amount) throws PartnerNotFoundException {
-        log.info("Crediting credit for partner {} amount {}", partnerId, amount);
+        creditCredit(partnerId, toMoney(amount));
+    }
 
-        Partner partner = partnerRepository.findByIdWithLock(partnerId)
-                .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
+    /**
+     * Credits the specified amount to the partner's credit.
+     *
+     * @param partnerId the ID of the partner
+     * @param amount    the amount to credit
+     * @throws PartnerNotFoundException if the partner does not exist
+     */
+    @Transactional
+    public void creditCredit(UUID partnerId, Money amount) throws PartnerNotFoundException {
+        log.info("Crediting credit for partner {} amount {}", partnerId, amount, kv("creditMode", creditMode));
+
+        if (creditMode.isEngineBacked()) {
+            creditEngine.getObject().creditCredit(partnerId, amount.toBigDecimal());
+            return;
+        }
+
+        switch (creditMode) {
+            case CONDITIONAL_UPDATE -> creditWithConditionalUpdate(partnerId, amount.toBigDecimal());
+            case OPTIMISTIC -> updateOptimistically("credit", partnerId,
+                    state -> state.getAvailableCredit().add(amount.toBigDecimal()).min(state.getCreditLimit()),
+                    () -> creditWithLock(partnerId, amount));
+            default -> creditWithLock(partnerId, amount);
+        }
+    }
+
+    private void creditWithLock(UUID partnerId, Money amount) {
+        Partner partner = lockPartner(partnerId);
 
         partner.creditCredit(amount);
         partnerRepository.save(partner);
 
         log.info("Credit credited successfully for partner {} new available credit: {}",
-                partnerId, partner.getAvailableCredit());
+                partnerId, partner.availableCredit());
+    }
+
+    /**
+     * Debits the credit with one guarded UPDATE, so no row lock is held between read and write.
+     * The partner is only read when the update touches no row, to tell a missing partner from a short balance.
+     */
+    private void debitWithConditionalUpdate(UUID partnerId, BigDecimal amount) {
+        int updated = partnerRepository.debitCreditIfAvailable(partnerId, amount);
+        if (updated == 0) {
+            Partner partner = partnerRepository.findById(partnerId)
+                    .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
+            throw new InsufficientBalanceException("Insufficient credit for partner: " + partner.getCode());
+        }
+        refreshIfLoaded(partnerId);
+
+        log.info("Credit debited successfully for partner {} with conditional update", partnerId);
+    }
+
+    /**
+     * Sets the available credit computed from an unlocked read, only if the partner version did not change since.
+     * The check is a native compare-and-set UPDATE on the {@code @Version} column rather than a flush of the entity:
+     * an {@code OptimisticLockException} would mark the caller transaction rollback-only, while a conflict here
+     * only updates no row, so the operation is retried from a fresh read with jittered exponential backoff. The retries run inside the caller transaction, which holds its connection
+     * while backing off, so the total backoff is capped well below the pool timeout. When the attempts or the
+     * backoff budget run out, the operation falls back to the row lock.
+     */
+    private void updateOptimistically(String operation, UUID partnerId,
+                                      Function<CreditStateView, BigDecimal> newAvailableCredit, Runnable fallback) {
+        long backoffBudget = optimisticMaxTotalBackoff.toMillis();
+        for (int attempt = 0; attempt < optimisticMaxAttempts && backoffBudget >= 0; attempt++) {
+            CreditStateView state = partnerRepository.findCreditStateById(partnerId)
+                    .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
+
+            meterRegistry.counter("credit.optimistic.attempts", "operation", operation).increment();
+            if (partnerRepository.updateAvailableCreditIfVersion(partnerId, newAvailableCredit.apply(state), state.getVersion()) == 1) {
+                meterRegistry.summary("credit.optimistic.retries", "operation", operation).record(attempt);
+                refreshIfLoaded(partnerId);
+                log.info("Credit updated optimistically for partner {}", partnerId, kv("operation", operation), kv("retries", attempt));
+                return;
+            }
+
+            meterRegistry.counter("credit.optimistic.conflicts", "operation", operation).increment();
+            if (attempt + 1 < optimisticMaxAttempts) {
+                backoffBudget = backoff(attempt, backoffBudget);
+            }
+        }
+
+        meterRegistry.counter("credit.optimistic.exhausted", "operation", operation).increment();
+        log.warn("Optimistic credit retries exhausted, falling back to row lock", kv("partnerId", partnerId), kv("operation", operation));
+        fallback.run();
+    }
+
+    /**
+     * Sleeps a jittered exponential delay within the remaining budget.
+     *
+     * @return the budget left after sleeping, negative once it is spent
+     */
+    private long backoff(int attempt, long budget) {
+        if (budget == 0) {
+            return -1;
+        }
+        long ceiling = Math.min(budget, Math.min(optimisticMaxBackoff.toMillis(), optimisticBaseBackoff.toMillis() << attempt));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(delay);
+            return budget - delay;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CreditOperationTimeoutException("Credit operation interrupted", e);
+        }
+    }
+
+    /**
+     * Debits the credit through the group-commit coordinator, which applies it together with the other debits
+     * of the partner collected in the same window. The batch commits on its own, so the debit is confirmed in
+     * the caller transaction and given back if that transaction does not commit.
+     */
+    private void debitWithGroupCommit(UUID partnerId, Money amount) {
+        CreditBatchCoordinator coordinator = creditBatchCoordinator.getObject();
+        CompletableFuture<UUID> debit = coordinator.debit(partnerId, amount);
+        UUID debitId;
+        try {
+            debitId = debit.get(groupCommitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (debit.completeExceptionally(e)) {
+                throw new CreditOperationTimeoutException("Credit debit timed out for partner: " + partnerId, e);
+            }
+            // the batch completed the debit while the timeout was being handled
+            debitId = debit.join();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            debit.completeExceptionally(e);
+            throw new CreditOperationTimeoutException("Credit debit interrupted for partner: " + partnerId, e);
+        }
+
+        UUID confirmedId = debitId;
+        TransactionHooks.afterRollback(() -> coordinator.release(confirmedId));
+        coordinator.confirm(debitId);
+        log.info("Credit debited successfully for partner {} with group commit", partnerId);
+    }
+
+    /**
+     * Credits the credit with one UPDATE capped at the credit limit.
+     */
+    private void creditWithConditionalUpdate(UUID partnerId, BigDecimal amount) {
+        int updated = partnerRepository.creditCreditUpToLimit(partnerId, amount);
+        if (updated == 0) {
+            throw new PartnerNotFoundException("Partner not found: " + partnerId);
+        }
+        refreshIfLoaded(partnerId);
+
+        log.info("Credit credited successfully for partner {} with conditional update", partnerId);
+    }
+
+    /**
+     * Locks the partner row and returns the partner as it is once locked. When the persistence context already
+     * holds the partner, e.g. loaded by the caller before placing a hold, it is refreshed under the lock:
+     * a locking query would hand back that instance as it was first read and fail on its outdated version.
+     */
+    private Partner lockPartner(UUID partnerId) {
+        Partner partner = entityManager.getReference(Partner.class, partnerId);
+        if (Hibernate.isInitialized(partner)) {
+            entityManager.refresh(partner, LockModeType.PESSIMISTIC_WRITE);
+            return partner;
+        }
+        return partnerRepository.findByIdWithLock(partnerId)
+                .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
+    }
+
+    /**
+     * Reloads the partner when the persistence context already holds it, e.g. as {@code order.getPartner()},
+     * so it does not keep the credit read before the UPDATE for the rest of the transaction. Clearing the
+     * context instead would detach the orders the caller is still working on.
+     */
+    private void refreshIfLoaded(UUID partnerId) {
+        Partner partner = entityManager.getReference(Partner.class, partnerId);
+        if (Hibernate.isInitialized(partner)) {
+            entityManager.refresh(partner);
+        }
     }
 
     /**
@@ -104,6 +369,10 @@ public class CreditService {
     public BigDecimal getAvailableCredit(UUID partnerId) throws PartnerNotFoundException {
         log.info("Getting available credit for partner {}", partnerId);
 
+        if (creditMode.isEngineBacked()) {
+            return creditEngine.getObject().getAvailableCredit(partnerId);
+        }
+
         Partner partner = partnerRepository.findById(partnerId)
                 .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
 
@@ -116,26 +385,36 @@ public class CreditService {
      * @param partnerId the ID of the partner
      * @param newLimit  the new credit limit
      * @throws PartnerNotFoundException if the partner does not exist
+     * @throws InvalidAmountException   if the new limit has more than 2 decimal places
      */
     @Transactional
     public void updateCreditLimit(UUID partnerId, BigDecimal newLimit) throws PartnerNotFoundException {
         log.info("Updating credit limit for partner {} to {}", partnerId, newLimit);
+        Money limit = toMoney(newLimit);
 
-        Partner partner = partnerRepository.findByIdWithLock(partnerId)
-                .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
-
-        BigDecimal usedCredit = partner.getCreditLimit().subtract(partner.getAvailableCredit());
-        partner.setCreditLimit(newLimit);
-        partner.setAvailableCredit(newLimit.subtract(usedCredit));
-
-        if (partner.getAvailableCredit().compareTo(BigDecimal.ZERO) < 0) {
-            partner.setAvailableCredit(BigDecimal.ZERO);
+        if (creditMode.isEngineBacked()) {
+            creditEngine.getObject().updateCreditLimit(partnerId, limit.toBigDecimal());
+            return;
         }
 
-        Partner saved = partnerRepository.save(partner);
+        Partner partner = lockPartner(partnerId);
+
+        partner.changeCreditLimit(limit);
+        partnerRepository.save(partner);
 
         log.info("Credit limit updated for partner {} new limit: {} new available: {}",
-                partnerId, newLimit, partner.getAvailableCredit());
+                partnerId, newLimit, partner.availableCredit());
+
+    }
 
+    /**
+     * Converts an amount received by the service, refusing fractions of a cent instead of rounding them.
+     */
+    private static Money toMoney(BigDecimal amount) {
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            throw new InvalidAmountException("Amount must have at most 2 decimal places and fit in cents: " + amount, e);
+        }
     }
 }
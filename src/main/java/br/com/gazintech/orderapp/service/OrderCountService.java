@@ -0,0 +1,41 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.dto.OrderCountDTO;
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.repository.OrderRepository;
+import br.com.gazintech.orderapp.repository.specification.OrderSpecifications;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Service for counting the orders matching a search.
+ * Counts are cached for a short time, see {@code order-app.orders.count.cache-ttl}, so paging through
+ * the same search runs the COUNT(*) once instead of on every page.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderCountService {
+
+    private final OrderRepository orderRepository;
+
+    /**
+     * Counts the orders matching the filters of the search, ignoring its page and sort.
+     *
+     * @param searchDTO the search criteria
+     * @return the count of orders
+     */
+    @Cacheable(value = "orderCounts", key = "#searchDTO.countKey()")
+    public OrderCountDTO count(OrderSearchDTO searchDTO) {
+        long total = orderRepository.count(OrderSpecifications.bySearchDto(searchDTO));
+        log.debug("Orders counted", kv("key", searchDTO.countKey()), kv("total", total));
+        return new OrderCountDTO(total, OffsetDateTime.now(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,205 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.api.ExportFormat;
+import br.com.gazintech.orderapp.dto.OrderExportRowDTO;
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.exception.ExportLimitExceededException;
+import br.com.gazintech.orderapp.repository.specification.OrderSpecifications;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Service for exporting orders as a stream.
+ * <p>
+ * Orders are read in {@code (createdAt, id)} order through a forward-only, read-only JDBC cursor of a Hibernate
+ * stateless session, which keeps no persistence context, and each row is written to the output as soon as it is
+ * read. Only one fetch of rows is in memory at a time, whatever the size of the export.
+ * </p>
+ * <p>
+ * An export holds a database connection until it ends, which can take minutes. Exports therefore read from a small
+ * pool of their own, {@code exportDataSource}, on the read replica when it is enabled, and at most one export per
+ * connection of that pool runs at a time; further exports are refused with {@link ExportLimitExceededException}
+ * instead of queuing.
+ * </p>
+ */
+@Service
+@Slf4j
+public class OrderExportService {
+
+    private final SessionFactory sessionFactory;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final DataSource dataSource;
+    private final Semaphore slots;
+
+    public OrderExportService(EntityManagerFactory entityManagerFactory,
+                              ObjectMapper objectMapper,
+                              @Qualifier("exportDataSource") DataSource dataSource,
+                              @Value("${order-app.orders.export.fetch-size:1000}") int fetchSize,
+                              @Value("${order-app.orders.export.max-concurrent:2}") int maxConcurrent) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.objectMapper = objectMapper;
+        this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Reserves an export slot and returns the body that writes the export, releasing the slot once it ends.
+     *
+     * @param filters the search filters, page and sort are ignored
+     * @param format  the format of the export
+     * @return the response body writing the export
+     * @throws ExportLimitExceededException if the maximum number of exports is already running
+     */
+    public StreamingResponseBody stream(OrderSearchDTO filters, ExportFormat format) throws ExportLimitExceededException {
+        acquireSlot();
+        return outputStream -> {
+            try {
+                write(filters, format, outputStream);
+            } finally {
+                slots.release();
+            }
+        };
+    }
+
+    /**
+     * Writes the orders matching the filters to the output, oldest first.
+     *
+     * @param filters      the search filters, page and sort are ignored
+     * @param format       the format of the export
+     * @param outputStream the output, left open
+     * @return the number of exported orders
+     * @throws IOException                  if the output cannot be written
+     * @throws ExportLimitExceededException if the maximum number of exports is already running
+     */
+    public long export(OrderSearchDTO filters, ExportFormat format, OutputStream outputStream)
+            throws IOException, ExportLimitExceededException {
+        acquireSlot();
+        try {
+            return write(filters, format, outputStream);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void acquireSlot() throws ExportLimitExceededException {
+        if (!slots.tryAcquire()) {
+            throw new ExportLimitExceededException();
+        }
+    }
+
+    private long write(OrderSearchDTO filters, ExportFormat format, OutputStream outputStream) throws IOException {
+        log.info("Exporting orders", kv("filters", filters), kv("format", format));
+        long begin = System.currentTimeMillis();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(writer, OrderExportRowDTO.CSV_HEADER);
+        }
+
+        long rows = 0;
+        try (Connection connection = dataSource.getConnection();
+             StatelessSession session = sessionFactory.withStatelessOptions().connection(connection).openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                try (ScrollableResults<Order> orders = query(session, filters).scroll(ScrollMode.FORWARD_ONLY)) {
+                    while (orders.next()) {
+                        writeRow(writer, format, new OrderExportRowDTO(orders.get()));
+                        // hand each fetch to the client before reading the next one
+                        if (++rows % fetchSize == 0) {
+                            writer.flush();
+                        }
+                    }
+                }
+                transaction.commit();
+            } catch (IOException | RuntimeException e) {
+                transaction.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Failed to get an export connection", e);
+        }
+        writer.flush();
+
+        log.info("Orders exported", kv("rows", rows), kv("format", format), kv("elapsedMs", System.currentTimeMillis() - begin));
+        return rows;
+    }
+
+    private Query<Order> query(StatelessSession session, OrderSearchDTO filters) {
+        CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+        CriteriaQuery<Order> query = criteriaBuilder.createQuery(Order.class);
+        Root<Order> root = query.from(Order.class);
+        root.fetch("partner", JoinType.INNER);
+
+        Predicate predicate = OrderSpecifications.bySearchDto(filters).toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(criteriaBuilder.asc(root.get("createdAt")), criteriaBuilder.asc(root.get("id")));
+
+        return session.createQuery(query)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true);
+    }
+
+    private void writeRow(Writer writer, ExportFormat format, OrderExportRowDTO row) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(writer, row.toCsvValues());
+        } else {
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+        }
+    }
+
+    private static void writeCsvLine(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvValue(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
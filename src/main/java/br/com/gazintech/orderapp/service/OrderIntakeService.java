@@ -0,0 +1,224 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.dto.OrderIntakeResponseDTO;
+import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
+import br.com.gazintech.orderapp.entity.OrderIntake;
+import br.com.gazintech.orderapp.entity.UuidV7Generator;
+import br.com.gazintech.orderapp.exception.OrderAppException;
+import br.com.gazintech.orderapp.exception_handler.ExceptionHandlerItem;
+import br.com.gazintech.orderapp.exception_handler.ExceptionHandlerList;
+import br.com.gazintech.orderapp.repository.OrderIntakeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Service for the asynchronous order intake.
+ * <p>
+ * When enabled, order requests are only validated and stored in the {@code OrderIntake} table, and the caller gets
+ * the ID the order will have right away. A pool of workers drains the table in batches with
+ * {@code FOR UPDATE SKIP LOCKED} and creates each order through {@link OrderService#createOrder} in its own
+ * transaction, so bursts wait in the table instead of holding request threads and pool connections.
+ * </p>
+ * A claimed intake is hidden from other workers for the lease duration. If its worker dies, the intake becomes due
+ * again once the lease ends, and the order primary key guarantees it is never created twice.
+ * <p>
+ * Created and failed intakes are kept for the retention period, so clients can still poll their outcome,
+ * and are then deleted in batches by a scheduled purge.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderIntakeService {
+
+    private final OrderIntakeRepository orderIntakeRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExceptionHandlerList exceptionHandlerList;
+
+    @Value("${order-app.orders.intake.async:false}")
+    private boolean async;
+
+    @Value("${order-app.orders.intake.workers:4}")
+    private int workers = 4;
+
+    @Value("${order-app.orders.intake.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${order-app.orders.intake.poll-interval-ms:200}")
+    private long pollIntervalMillis = 200;
+
+    @Value("${order-app.orders.intake.lease:PT1M}")
+    private Duration lease = Duration.ofMinutes(1);
+
+    @Value("${order-app.orders.intake.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${order-app.orders.intake.retention:P7D}")
+    private Duration retention = Duration.ofDays(7);
+
+    @Value("${order-app.orders.intake.purge-batch-size:1000}")
+    private int purgeBatchSize = 1000;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Indicates if orders are accepted into the intake instead of being created in the request.
+     *
+     * @return true if the asynchronous intake is enabled
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!async) {
+            return;
+        }
+        scheduler = Executors.newScheduledThreadPool(workers, new CustomizableThreadFactory("order-intake-"));
+        for (int i = 0; i < workers; i++) {
+            scheduler.scheduleWithFixedDelay(this::drainSafely, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        log.info("Order intake workers started", kv("workers", workers), kv("batchSize", batchSize));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stores an order request to be created by the workers.
+     *
+     * @param orderDTO the validated order request
+     * @return the accepted intake, whose ID is the ID of the future order
+     */
+    @Transactional
+    public OrderIntakeResponseDTO accept(OrderPostRequestDTO orderDTO) {
+        OrderIntake intake = orderIntakeRepository.save(OrderIntake.builder()
+                .id(UuidV7Generator.next())
+                .payload(orderDTO)
+                .availableAt(OffsetDateTime.now(ZoneOffset.UTC))
+                .build());
+
+        log.info("Order accepted into intake", kv("orderId", intake.getId()), kv("partnerId", orderDTO.getPartnerId()));
+        return new OrderIntakeResponseDTO(intake);
+    }
+
+    /**
+     * Finds the intake of an order that is not created yet.
+     *
+     * @param id the ID of the order
+     * @return the intake, if the order went through the asynchronous intake
+     */
+    @Transactional(readOnly = true)
+    public Optional<OrderIntake> findById(UUID id) {
+        return orderIntakeRepository.findById(id);
+    }
+
+    /**
+     * Creates due orders in batches until no due intake is left.
+     *
+     * @return the number of intakes processed
+     */
+    public int drain() {
+        int processed = 0;
+        List<OrderIntake> batch;
+        do {
+            batch = transactionTemplate.execute(status -> claimBatch());
+            batch.forEach(this::process);
+            processed += batch.size();
+        } while (batch.size() == batchSize);
+        return processed;
+    }
+
+    /**
+     * Deletes the created and failed intakes finished longer than the retention period ago.
+     *
+     * @return the number of intakes deleted
+     */
+    @Scheduled(fixedDelayString = "${order-app.orders.intake.purge-interval-ms:3600000}")
+    public int purge() {
+        OffsetDateTime before = OffsetDateTime.now(ZoneOffset.UTC).minus(retention);
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> orderIntakeRepository.deleteFinishedBefore(before, purgeBatchSize));
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+        if (purged > 0) {
+            log.info("Finished order intakes purged", kv("intakes", purged), kv("before", before));
+        }
+        return purged;
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.error("Order intake drain failed", e);
+        }
+    }
+
+    private List<OrderIntake> claimBatch() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<OrderIntake> intakes = orderIntakeRepository.findDueForUpdate(now, batchSize);
+        intakes.forEach(intake -> {
+            intake.setAttempts(intake.getAttempts() + 1);
+            intake.setAvailableAt(now.plus(lease));
+        });
+        return intakes;
+    }
+
+    private void process(OrderIntake intake) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                orderService.createOrder(intake.getPayload(), intake.getId());
+                orderIntakeRepository.finish(intake.getId(), OrderIntake.IntakeStatus.CREATED.name(), null, null);
+            });
+            log.info("Order created from intake", kv("orderId", intake.getId()), kv("attempt", intake.getAttempts()));
+        } catch (OrderAppException e) {
+            fail(intake, e);
+        } catch (RuntimeException e) {
+            if (intake.getAttempts() >= maxAttempts) {
+                fail(intake, e);
+            } else {
+                log.warn("Order intake attempt failed, retrying after lease", kv("orderId", intake.getId()),
+                        kv("attempt", intake.getAttempts()), e);
+            }
+        }
+    }
+
+    private void fail(OrderIntake intake, RuntimeException exception) {
+        ExceptionHandlerItem item = exceptionHandlerList.findByClass(exception.getClass());
+        String message = item.isShowOriginalMessage() ? exception.getMessage() : item.message();
+        transactionTemplate.executeWithoutResult(status ->
+                orderIntakeRepository.finish(intake.getId(), OrderIntake.IntakeStatus.FAILED.name(), item.errorCode(), message));
+        log.warn("Order intake failed", kv("orderId", intake.getId()), kv("errorCode", item.errorCode()),
+                kv("errorMessage", exception.getMessage()));
+    }
+}
@@ -0,0 +1,193 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.dto.OrderSearchResultDTO;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.utils.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Caches the IDs and pagination of order searches, so dashboards polling the same search do not reach Postgres.
+ * <p>
+ * A search belongs to the scope of its partner, else of its status, else to the scope of all orders. Each scope
+ * has a generation counter in Redis that is part of the cache key, and writes bump the generations of the scopes
+ * they touch once they commit. Entries of an older generation are never read again and expire with
+ * {@code order-app.orders.search-cache.ttl}.
+ * </p>
+ * <p>
+ * When a generation cannot be bumped, entries of the old generation would be served stale. This node then bypasses
+ * the cache for that scope and retries the bump on every search of the scope, until a retry succeeds or one TTL has
+ * passed, after which every entry cached before the write has expired.
+ * </p>
+ * Cache failures are logged and turn into misses, a search never fails because of this cache.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSearchCache {
+
+    static final String CACHE_NAME = "orderSearches";
+    private static final String GENERATION_KEY_PREFIX = "order-search:generation:";
+    private static final String ALL_SCOPE = "all";
+
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${order-app.orders.search-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order-app.orders.search-cache.ttl:PT1M}")
+    private Duration ttl = Duration.ofMinutes(1);
+
+    /**
+     * Scopes whose generation could not be bumped, with the instant their stale entries have all expired.
+     */
+    private final Map<String, Instant> failedBumps = new ConcurrentHashMap<>();
+
+    /**
+     * Builds the cache key of a search with the current generation of its scope. The key must be built before
+     * the search runs, so a result read before a concurrent write commits is stored under the old generation.
+     *
+     * @param searchDTO the search criteria
+     * @return the cache key, or empty if the cache is disabled or unavailable
+     */
+    public Optional<String> key(OrderSearchDTO searchDTO) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String scope = scope(searchDTO);
+        if (failedBumps.containsKey(scope) && !retryBump(scope)) {
+            return Optional.empty();
+        }
+        try {
+            String generation = redisTemplate.opsForValue().get(GENERATION_KEY_PREFIX + scope);
+            return Optional.of(scope + "@" + (generation == null ? "0" : generation) + ":" + searchDTO.searchKey());
+        } catch (RuntimeException e) {
+            log.warn("Failed to read the search cache generation", kv("scope", scope), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the cached result of a search.
+     *
+     * @param key the cache key of the search
+     * @return the cached result, if any
+     */
+    public Optional<OrderSearchResultDTO> get(String key) {
+        try {
+            return Optional.ofNullable(cache().get(key, OrderSearchResultDTO.class));
+        } catch (RuntimeException e) {
+            log.warn("Failed to read the search cache", kv("key", key), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Caches the result of a search. Inside a transaction the put waits for the commit.
+     *
+     * @param key    the cache key of the search
+     * @param result the IDs and pagination of the result
+     */
+    public void put(String key, OrderSearchResultDTO result) {
+        try {
+            cache().put(key, result);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write the search cache", kv("key", key), e);
+        }
+    }
+
+    /**
+     * Invalidates the cached searches that can include an order of the partner with one of the statuses,
+     * once the current transaction commits.
+     *
+     * @param partnerId the partner of the changed order
+     * @param statuses  the statuses the order had before and after the change
+     */
+    public void invalidate(UUID partnerId, Order.OrderStatus... statuses) {
+        if (!enabled) {
+            return;
+        }
+        Set<String> scopes = new LinkedHashSet<>();
+        scopes.add(partnerScope(partnerId));
+        for (Order.OrderStatus status : statuses) {
+            if (status != null) {
+                scopes.add(statusScope(status));
+            }
+        }
+        scopes.add(ALL_SCOPE);
+
+        TransactionHooks.afterCommit(() -> scopes.forEach(scope -> {
+            try {
+                bump(scope);
+            } catch (RuntimeException e) {
+                failedBumps.put(scope, Instant.now().plus(ttl));
+                log.warn("Failed to invalidate cached searches, bypassing the cache of the scope", kv("scope", scope), e);
+            }
+        }));
+    }
+
+    /**
+     * Retries the bump of a scope that failed before.
+     *
+     * @return true if the cache of the scope can be used again
+     */
+    private boolean retryBump(String scope) {
+        Instant expiresAt = failedBumps.get(scope);
+        if (expiresAt == null) {
+            return true;
+        }
+        try {
+            bump(scope);
+        } catch (RuntimeException e) {
+            if (Instant.now().isBefore(expiresAt)) {
+                return false;
+            }
+        }
+        failedBumps.remove(scope, expiresAt);
+        return true;
+    }
+
+    private void bump(String scope) {
+        redisTemplate.opsForValue().increment(GENERATION_KEY_PREFIX + scope);
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+
+    private static String scope(OrderSearchDTO searchDTO) {
+        if (searchDTO.getPartnerId() != null) {
+            return partnerScope(searchDTO.getPartnerId());
+        }
+        if (searchDTO.getStatus() != null) {
+            return statusScope(searchDTO.getStatus());
+        }
+        return ALL_SCOPE;
+    }
+
+    private static String partnerScope(UUID partnerId) {
+        return "partner:" + partnerId;
+    }
+
+    private static String statusScope(Order.OrderStatus status) {
+        return "status:" + status;
+    }
+}
@@ -1,27 +1,51 @@
 package br.com.gazintech.orderapp.service;
 
 
+import br.com.gazintech.orderapp.api.CountMode;
+import br.com.gazintech.orderapp.api.CursorPage;
+import br.com.gazintech.orderapp.dto.OrderBatchResultDTO;
+import br.com.gazintech.orderapp.dto.OrderCursor;
 import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
 import br.com.gazintech.orderapp.dto.OrderResponseDTO;
 import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.dto.OrderSearchResultDTO;
 import br.com.gazintech.orderapp.entity.Order;
 import br.com.gazintech.orderapp.entity.Partner;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception.InvalidCursorException;
+import br.com.gazintech.orderapp.exception.OrderAppException;
 import br.com.gazintech.orderapp.exception.OrderNotFoundException;
 import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
+import br.com.gazintech.orderapp.exception_handler.ExceptionHandlerItem;
+import br.com.gazintech.orderapp.exception_handler.ExceptionHandlerList;
 import br.com.gazintech.orderapp.repository.OrderRepository;
 import br.com.gazintech.orderapp.repository.PartnerRepository;
 import br.com.gazintech.orderapp.repository.specification.OrderSpecifications;
 import br.com.gazintech.orderapp.utils.OrderStatusStateMachine;
+import br.com.gazintech.orderapp.utils.ReplicaRouting;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.UUID;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
 
 /**
  * Service for managing orders.
@@ -35,7 +59,18 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final PartnerRepository partnerRepository;
     private final CreditService creditService;
+    private final CreditHoldService creditHoldService;
     private final NotificationService notificationService;
+    private final ExceptionHandlerList exceptionHandlerList;
+    private final CacheWriter cacheWriter;
+    private final OrderCountService orderCountService;
+    private final OrderSearchCache orderSearchCache;
+    private final CacheManager cacheManager;
+    private final ReplicaLagGuard replicaLagGuard;
+    private final PartnerOrderStatsService partnerOrderStatsService;
+
+    @Value("${order-app.orders.count.estimate-threshold:100000}")
+    private long estimateThreshold = 100_000;
 
     /**
      * Creates a new order for the specified partner.
@@ -46,13 +81,26 @@ public class OrderService {
      */
     @Transactional
     public OrderResponseDTO createOrder(OrderPostRequestDTO orderDTO)  throws PartnerNotFoundException {
+        return createOrder(orderDTO, null);
+    }
+
+    /**
+     * Creates a new order with a given ID, used for orders accepted by the asynchronous intake.
+     *
+     * @param orderDTO the order data
+     * @param orderId  the ID of the order, or null to generate one
+     * @return the created order
+     * @throws PartnerNotFoundException if the partner does not exist
+     */
+    @Transactional
+    public OrderResponseDTO createOrder(OrderPostRequestDTO orderDTO, UUID orderId)  throws PartnerNotFoundException {
         log.info("Creating order for partner: {}", orderDTO.getPartnerId());
 
         Partner partner = partnerRepository.findById(orderDTO.getPartnerId())
                 .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + orderDTO.getPartnerId()));
 
         log.debug("Parsing dto to Order entity for partner: {}", partner.getId());
-        Order order = new Order(partner, orderDTO);
+        Order order = new Order(orderId, partner, orderDTO);
 
         order.getItems().forEach(item -> item.setOrder(order));
 
@@ -61,27 +109,123 @@ public class OrderService {
         order.calculateTotalValue();
         log.debug("Total value calculated: {}", order.getTotalValue());
 
-        creditService.hasAvailableCredit(partner.getId(), order.getTotalValue());
+        if (!creditHoldService.isEnabled()) {
+            creditService.hasAvailableCredit(partner.getId(), order.getTotal());
+        }
 
         Order savedOrder = orderRepository.save(order);
 
+        // reserve the order total so approval cannot fail for lack of credit
+        if (creditHoldService.isEnabled()) {
+            creditHoldService.placeHold(savedOrder);
+        }
+
         log.info("Order created successfully with ID: {}", savedOrder.getId());
+        orderSearchCache.invalidate(partner.getId(), Order.OrderStatus.PENDING);
+        replicaLagGuard.recordWrite(partner.getId(), List.of(savedOrder.getId()));
+        partnerOrderStatsService.orderCreated(partner.getId(), savedOrder.getTotalValue());
+
+        // clients usually read the order right after creating it
+        OrderResponseDTO response = new OrderResponseDTO(savedOrder);
+        cacheWriter.putAfterCommit("orders", savedOrder.getId(), response);
+        return response;
+    }
+
+    /**
+     * Creates a batch of orders in a single transaction.
+     * Each distinct partner is loaded once and its credit is checked against the sum of its orders,
+     * accepting orders in request order while they fit. Orders that cannot be created are reported
+     * in their result instead of failing the batch.
+     *
+     * @param orderDTOs the orders to create
+     * @return one result per order, in request order
+     */
+    @Transactional
+    public List<OrderBatchResultDTO> createOrders(List<OrderPostRequestDTO> orderDTOs) {
+        log.info("Creating order batch", kv("orders", orderDTOs.size()));
+
+        Set<UUID> partnerIds = orderDTOs.stream().map(OrderPostRequestDTO::getPartnerId).collect(Collectors.toSet());
+        Map<UUID, Partner> partners = partnerRepository.findAllById(partnerIds).stream()
+                .collect(Collectors.toMap(Partner::getId, Function.identity()));
+
+        OrderBatchResultDTO[] results = new OrderBatchResultDTO[orderDTOs.size()];
+        Map<UUID, BigDecimal> remainingCredit = new HashMap<>();
+        Map<UUID, List<Order>> acceptedByPartner = new LinkedHashMap<>();
+        Map<Order, Integer> indexes = new IdentityHashMap<>();
+
+        for (int index = 0; index < orderDTOs.size(); index++) {
+            OrderPostRequestDTO orderDTO = orderDTOs.get(index);
+            Partner partner = partners.get(orderDTO.getPartnerId());
+            if (partner == null) {
+                results[index] = failed(index, new PartnerNotFoundException("Partner not found: " + orderDTO.getPartnerId()));
+                continue;
+            }
+
+            Order order = new Order(partner, orderDTO);
+            order.getItems().forEach(item -> item.setOrder(order));
+            order.calculateTotalValue();
+
+            BigDecimal remaining = remainingCredit.computeIfAbsent(partner.getId(), creditService::getAvailableCredit);
+            if (remaining.compareTo(order.getTotalValue()) < 0) {
+                results[index] = failed(index, new InsufficientBalanceException("Insufficient credit for partner: " + partner.getCode()));
+                continue;
+            }
+            remainingCredit.put(partner.getId(), remaining.subtract(order.getTotalValue()));
+            acceptedByPartner.computeIfAbsent(partner.getId(), id -> new ArrayList<>()).add(order);
+            indexes.put(order, index);
+        }
 
-        return new OrderResponseDTO(savedOrder);
+        // saved in one flush, so Hibernate sends the order and item inserts as JDBC batches
+        List<Order> accepted = acceptedByPartner.values().stream().flatMap(List::stream).toList();
+        orderRepository.saveAll(accepted);
+
+        if (creditHoldService.isEnabled()) {
+            acceptedByPartner.forEach(creditHoldService::placeHolds);
+        }
+        acceptedByPartner.forEach((partnerId, orders) -> {
+            orderSearchCache.invalidate(partnerId, Order.OrderStatus.PENDING);
+            replicaLagGuard.recordWrite(partnerId, orders.stream().map(Order::getId).toList());
+            orders.forEach(order -> partnerOrderStatsService.orderCreated(partnerId, order.getTotalValue()));
+        });
+
+        accepted.forEach(order -> {
+            OrderResponseDTO response = new OrderResponseDTO(order);
+            cacheWriter.putAfterCommit("orders", order.getId(), response);
+            results[indexes.get(order)] = OrderBatchResultDTO.builder()
+                    .index(indexes.get(order))
+                    .status(OrderBatchResultDTO.Status.CREATED)
+                    .order(response)
+                    .build();
+        });
+
+        log.info("Order batch created", kv("orders", orderDTOs.size()), kv("created", accepted.size()),
+                kv("partners", partners.size()));
+        return Arrays.asList(results);
+    }
+
+    private OrderBatchResultDTO failed(int index, OrderAppException exception) {
+        ExceptionHandlerItem handler = exceptionHandlerList.findByClass(exception.getClass());
+        return OrderBatchResultDTO.builder()
+                .index(index)
+                .status(OrderBatchResultDTO.Status.FAILED)
+                .errorCode(handler.errorCode())
+                .errorMessage(exception.getMessage())
+                .build();
     }
 
     /**
-     * Retrieves an order by its ID.
+     * Retrieves an order by its ID, from the read replica unless it was written recently.
      *
      * @param id the ID of the order
      * @return the order response
      * @throws OrderNotFoundException if the order does not exist
      */
+    @Transactional(readOnly = true)
     @Cacheable(value = "orders", key = "#id")
     public OrderResponseDTO getOrderById(UUID id) throws OrderNotFoundException {
         log.info("Fetching order by ID: {}", id);
 
-        Order order = orderRepository.findById(id)
+        Order order = replicaLagGuard.read(id, null, () -> orderRepository.findDetailedById(id))
                 .orElseThrow(() -> new OrderNotFoundException("Order not found: %s".formatted(id)));
 
         return new OrderResponseDTO(order);
@@ -107,18 +251,27 @@ public class OrderService {
 
         OrderStatusStateMachine.transitionTo(order, newStatus);
 
-        // if order is being approved, check credit
-        if (newStatus == Order.OrderStatus.APPROVED && oldStatus == Order.OrderStatus.PENDING) {
-            creditService.debitCredit(order.getPartner().getId(), order.getTotalValue());
+        // if order is being approved, turn its credit hold into a debit or check credit
+        if (newStatus == Order.OrderStatus.APPROVED && oldStatus == Order.OrderStatus.PENDING
+                && !creditHoldService.convertHold(order)) {
+            creditService.debitCredit(order.getPartner().getId(), order.getTotal());
+        }
+
+        // if a pending order is being canceled, release its credit hold
+        if (newStatus == Order.OrderStatus.CANCELED && oldStatus == Order.OrderStatus.PENDING) {
+            creditHoldService.releaseHold(order);
         }
 
         // if order is being canceled, credit back the amount
         if (newStatus == Order.OrderStatus.CANCELED && oldStatus == Order.OrderStatus.APPROVED) {
-            creditService.creditCredit(order.getPartner().getId(), order.getTotalValue());
+            creditService.creditCredit(order.getPartner().getId(), order.getTotal());
         }
 
 
         log.info("Order {} status updated from {} to {}", id, oldStatus, newStatus);
+        orderSearchCache.invalidate(order.getPartner().getId(), oldStatus, newStatus);
+        replicaLagGuard.recordWrite(order.getPartner().getId(), List.of(id));
+        partnerOrderStatsService.statusChanged(order.getPartner().getId(), oldStatus, newStatus, order.getTotalValue());
 
         notificationService.notifyOrderStatusChange(order, oldStatus);
 
@@ -132,7 +285,7 @@ public class OrderService {
      * @throws OrderNotFoundException if the order does not exist
      */
     @Transactional
-    @CachePut(value = "orders", key = "#id")
+    @CacheEvict(value = "orders", key = "#id")
     public void cancelOrder(UUID id) throws OrderNotFoundException {
         log.info("Canceling order: {}", id);
 
@@ -140,16 +293,220 @@ public class OrderService {
                 .orElseThrow(() -> new OrderNotFoundException("Order not found: " + id));
         Order.OrderStatus oldStatus = order.getStatus();
         order.cancel();
+        if (oldStatus == Order.OrderStatus.PENDING) {
+            creditHoldService.releaseHold(order);
+        }
         log.info("Order {} status changed to CANCELED", id);
+        orderSearchCache.invalidate(order.getPartner().getId(), oldStatus, Order.OrderStatus.CANCELED);
+        replicaLagGuard.recordWrite(order.getPartner().getId(), List.of(id));
+        partnerOrderStatsService.statusChanged(order.getPartner().getId(), oldStatus, Order.OrderStatus.CANCELED, order.getTotalValue());
         notificationService.notifyOrderStatusChange(order, oldStatus);
     }
 
+    /**
+     * Searches orders with their partner and items in a fixed number of queries, whatever the page size:
+     * the page with its partners, the items of the page and the count.
+     * <p>
+     * With {@link CountMode#ESTIMATE} the page is read as a slice and the exact COUNT(*) is skipped: a search
+     * without filters takes the planner row estimate once the table is large, and a filtered one takes
+     * the cached count of its filters. The last page always has an exact total.
+     * </p>
+     * Results are cached by {@link OrderSearchCache}, a cached page only reads its orders from the orders cache.
+     * A search with selected fields reads only their columns instead, and is not cached.
+     * The search runs on the read replica unless its partner or order was written recently.
+     *
+     * @param searchDTO the search criteria
+     * @return the page of orders
+     */
+    @Transactional(readOnly = true)
     public Page<OrderResponseDTO> searchOrders(OrderSearchDTO searchDTO) {
         log.info("Searching orders with criteria: {}", searchDTO);
+        return replicaLagGuard.read(searchDTO.getOrderId(), searchDTO.getPartnerId(),
+                () -> searchDTO.isSparse() ? findFieldsPage(searchDTO) : findCachedOrPage(searchDTO));
+    }
+
+    private Page<OrderResponseDTO> findCachedOrPage(OrderSearchDTO searchDTO) {
+        Optional<String> cacheKey = orderSearchCache.key(searchDTO);
+        Optional<OrderSearchResultDTO> cached = cacheKey.flatMap(orderSearchCache::get);
+        Optional<List<OrderResponseDTO>> cachedOrders = cached.flatMap(this::findCachedOrders);
+        if (cachedOrders.isPresent()) {
+            log.info("Found {} orders matching criteria in the search cache", cached.get().getTotalItems());
+            return new PageImpl<>(cachedOrders.get(), searchDTO.toPageable(), cached.get().getTotalItems());
+        }
+
+        Page<OrderResponseDTO> page = findPage(searchDTO);
+        cacheKey.ifPresent(key -> orderSearchCache.put(key, toSearchResult(page, page.getTotalElements())));
+        return page;
+    }
+
+    private Page<OrderResponseDTO> findFieldsPage(OrderSearchDTO searchDTO) {
+        Specification<Order> specification = OrderSpecifications.bySearchDto(searchDTO);
+        Slice<OrderResponseDTO> slice = orderRepository.findFields(specification, searchDTO.toPageable(), searchDTO.getFields());
+
+        long seen = slice.getPageable().getOffset() + slice.getNumberOfElements();
+        long total;
+        if (!slice.hasNext() && (slice.hasContent() || slice.getPageable().getOffset() == 0)) {
+            total = seen;
+        } else if (searchDTO.getCountMode() == CountMode.ESTIMATE) {
+            total = Math.max(estimateCount(searchDTO), seen + 1);
+        } else {
+            total = orderRepository.count(specification);
+        }
+        log.info("Found {} orders matching criteria with fields {}", total, searchDTO.getFields());
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+
+    private Page<OrderResponseDTO> findPage(OrderSearchDTO searchDTO) {
+        if (searchDTO.getCountMode() == CountMode.ESTIMATE) {
+            Slice<Order> slice = findSlice(searchDTO);
+            long seen = slice.getPageable().getOffset() + slice.getNumberOfElements();
+            long total = slice.hasNext() ? Math.max(estimateCount(searchDTO), seen + 1) : seen;
+            log.info("Found about {} orders matching criteria", total);
+            return new PageImpl<>(slice.getContent(), slice.getPageable(), total).map(OrderResponseDTO::new);
+        }
 
         Page<Order> orders = orderRepository.findAll(OrderSpecifications.bySearchDto(searchDTO), searchDTO.toPageable());
         log.info("Found {} orders matching criteria", orders.getTotalElements());
 
+        fetchItems(orders.getContent());
+
         return orders.map(OrderResponseDTO::new);
     }
+
+    /**
+     * Searches orders without counting them. One extra row tells if there is a next page,
+     * so the cost of a page does not grow with the number of matching orders.
+     *
+     * @param searchDTO the search criteria
+     * @return the slice of orders
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderResponseDTO> searchOrdersWithoutCount(OrderSearchDTO searchDTO) {
+        log.info("Searching orders without count with criteria: {}", searchDTO);
+        return replicaLagGuard.read(searchDTO.getOrderId(), searchDTO.getPartnerId(), () -> searchDTO.isSparse()
+                ? orderRepository.findFields(OrderSpecifications.bySearchDto(searchDTO), searchDTO.toPageable(), searchDTO.getFields())
+                : findCachedOrSlice(searchDTO));
+    }
+
+    private Slice<OrderResponseDTO> findCachedOrSlice(OrderSearchDTO searchDTO) {
+        Optional<String> cacheKey = orderSearchCache.key(searchDTO);
+        Optional<OrderSearchResultDTO> cached = cacheKey.flatMap(orderSearchCache::get);
+        Optional<List<OrderResponseDTO>> cachedOrders = cached.flatMap(this::findCachedOrders);
+        if (cachedOrders.isPresent()) {
+            return new SliceImpl<>(cachedOrders.get(), searchDTO.toPageable(), cached.get().isHasNext());
+        }
+
+        Slice<OrderResponseDTO> slice = findSlice(searchDTO).map(OrderResponseDTO::new);
+        cacheKey.ifPresent(key -> orderSearchCache.put(key, toSearchResult(slice, null)));
+        return slice;
+    }
+
+    /**
+     * Searches orders with cursor pagination. Each page continues right after the {@code (createdAt, id)} of the
+     * previous one with a seek predicate, so deep pages cost the same as the first, no count is run and orders
+     * inserted meanwhile never shift the pages.
+     *
+     * @param searchDTO the search criteria, with an empty cursor for the first page
+     * @return the page of orders with the cursor of the next page
+     * @throws InvalidCursorException if the cursor cannot be decoded
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponseDTO> searchOrdersByCursor(OrderSearchDTO searchDTO) throws InvalidCursorException {
+        log.info("Searching orders by cursor with criteria: {}", searchDTO);
+        return replicaLagGuard.read(searchDTO.getOrderId(), searchDTO.getPartnerId(), () -> findCursorPage(searchDTO));
+    }
+
+    private CursorPage<OrderResponseDTO> findCursorPage(OrderSearchDTO searchDTO) {
+        Specification<Order> specification = OrderSpecifications.bySearchDto(searchDTO);
+        if (!searchDTO.getCursor().isEmpty()) {
+            specification = specification.and(
+                    OrderSpecifications.after(OrderCursor.decode(searchDTO.getCursor()), searchDTO.getSortDirection()));
+        }
+
+        // one extra row tells if there is a next page without counting
+        int size = searchDTO.getSize();
+        if (searchDTO.isSparse()) {
+            Slice<OrderResponseDTO> slice = orderRepository.findFields(specification,
+                    PageRequest.of(0, size, searchDTO.toKeysetSort()), searchDTO.getFields());
+            String nextCursor = slice.hasNext() ? OrderCursor.after(slice.getContent().get(size - 1)).encode() : null;
+            return new CursorPage<>(slice.getContent(), nextCursor);
+        }
+
+        List<Order> orders = orderRepository.findBy(specification, query -> query
+                .sortBy(searchDTO.toKeysetSort())
+                .project("partner")
+                .limit(size + 1)
+                .all());
+
+        boolean hasNext = orders.size() > size;
+        List<Order> page = hasNext ? orders.subList(0, size) : orders;
+        fetchItems(page);
+
+        String nextCursor = hasNext ? OrderCursor.after(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(page.stream().map(OrderResponseDTO::new).toList(), nextCursor);
+    }
+
+    private Slice<Order> findSlice(OrderSearchDTO searchDTO) {
+        PageRequest pageable = searchDTO.toPageable();
+        Slice<Order> orders = orderRepository.findSlice(OrderSpecifications.bySearchDto(searchDTO), pageable);
+        fetchItems(orders.getContent());
+        return orders;
+    }
+
+    /**
+     * Reads the orders of a cached search from the orders cache, loading the missing ones in one query.
+     * Returns empty if an order no longer exists, so the search runs again.
+     * Orders loaded on the replica are not put in the orders cache, which other reads trust to be current.
+     */
+    private Optional<List<OrderResponseDTO>> findCachedOrders(OrderSearchResultDTO result) {
+        Cache ordersCache = cacheManager.getCache("orders");
+        Map<UUID, OrderResponseDTO> orders = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : result.getIds()) {
+            OrderResponseDTO order = ordersCache == null ? null : ordersCache.get(id, OrderResponseDTO.class);
+            if (order != null) {
+                orders.put(id, order);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            // the search only checked its own filters for fresh writes, so these orders may be older on the replica
+            boolean onReplica = ReplicaRouting.isReplicaRequested();
+            orderRepository.findDetailedByIdIn(missing).forEach(order -> {
+                OrderResponseDTO response = new OrderResponseDTO(order);
+                orders.put(order.getId(), response);
+                if (!onReplica) {
+                    cacheWriter.putAfterCommit("orders", order.getId(), response);
+                }
+            });
+        }
+        if (orders.size() < result.getIds().size()) {
+            return Optional.empty();
+        }
+        return Optional.of(result.getIds().stream().map(orders::get).toList());
+    }
+
+    private static OrderSearchResultDTO toSearchResult(Slice<OrderResponseDTO> slice, Long totalItems) {
+        List<UUID> ids = slice.getContent().stream().map(OrderResponseDTO::getId).toList();
+        return new OrderSearchResultDTO(ids, totalItems, slice.hasNext());
+    }
+
+    private long estimateCount(OrderSearchDTO searchDTO) {
+        if (!searchDTO.hasFilters()) {
+            long estimate = orderRepository.estimateCount();
+            // the estimate of a small or never analyzed table is too coarse, and counting it is cheap
+            if (estimate >= estimateThreshold) {
+                return estimate;
+            }
+        }
+        return orderCountService.count(searchDTO).getTotal();
+    }
+
+    private void fetchItems(List<Order> orders) {
+        if (!orders.isEmpty()) {
+            orderRepository.findAllWithItemsByIdIn(orders.stream().map(Order::getId).toList());
+        }
+    }
 }
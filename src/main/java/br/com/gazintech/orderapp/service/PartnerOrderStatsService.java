@@ -0,0 +1,311 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.dto.PartnerOrderStatsDTO;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.entity.PartnerOrderStats;
+import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
+import br.com.gazintech.orderapp.repository.PartnerOrderStatsRepository;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Service for the order statistics of partners, the number and value of their orders in each status.
+ * <p>
+ * Order writes record their changes with {@link #orderCreated} and {@link #statusChanged}. The changes of a
+ * transaction are summed per partner and status and written right before it commits, in key order, so the
+ * statistics rows are only locked while the transaction commits and concurrent writers cannot deadlock.
+ * Reads are served from the {@code partnerOrderStats} cache, evicted when the statistics of the partner change.
+ * </p>
+ * A scheduled rebuild recomputes every partner from the orders in parallel batches, correcting any drift.
+ * It runs on a scheduler of its own, and only on one node at a time: the others skip their run.
+ */
+@Service
+@Slf4j
+public class PartnerOrderStatsService {
+
+    static final String CACHE_NAME = "partnerOrderStats";
+    private static final UUID FIRST_PARTNER_ID = new UUID(0, 0);
+
+    private final PartnerOrderStatsRepository partnerOrderStatsRepository;
+    private final PartnerRepository partnerRepository;
+    private final CacheWriter cacheWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildBatchSize;
+    private final int rebuildWorkers;
+    private final String rebuildCron;
+    private ThreadPoolTaskScheduler rebuildScheduler;
+
+    public PartnerOrderStatsService(PartnerOrderStatsRepository partnerOrderStatsRepository,
+                                    PartnerRepository partnerRepository,
+                                    CacheWriter cacheWriter,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${order-app.partners.order-stats.rebuild-batch-size:500}") int rebuildBatchSize,
+                                    @Value("${order-app.partners.order-stats.rebuild-workers:4}") int rebuildWorkers,
+                                    @Value("${order-app.partners.order-stats.rebuild-cron:0 0 4 * * *}") String rebuildCron) {
+        this.partnerOrderStatsRepository = partnerOrderStatsRepository;
+        this.partnerRepository = partnerRepository;
+        this.cacheWriter = cacheWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.rebuildWorkers = rebuildWorkers;
+        this.rebuildCron = rebuildCron;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (Scheduled.CRON_DISABLED.equals(rebuildCron)) {
+            return;
+        }
+        // a long rebuild would otherwise hold the single thread of the shared scheduler
+        rebuildScheduler = new ThreadPoolTaskScheduler();
+        rebuildScheduler.setThreadNamePrefix("partner-order-stats-rebuild-");
+        rebuildScheduler.initialize();
+        rebuildScheduler.schedule(this::rebuild, new CronTrigger(rebuildCron));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rebuildScheduler != null) {
+            rebuildScheduler.shutdown();
+        }
+    }
+
+    /**
+     * Records a new pending order in the statistics of its partner when the current transaction commits.
+     *
+     * @param partnerId the ID of the partner
+     * @param value     the total value of the order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCreated(UUID partnerId, BigDecimal value) {
+        add(partnerId, Order.OrderStatus.PENDING, 1, value);
+    }
+
+    /**
+     * Moves an order between statuses in the statistics of its partner when the current transaction commits.
+     *
+     * @param partnerId the ID of the partner
+     * @param oldStatus the status the order had
+     * @param newStatus the status the order has now
+     * @param value     the total value of the order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusChanged(UUID partnerId, Order.OrderStatus oldStatus, Order.OrderStatus newStatus, BigDecimal value) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        add(partnerId, oldStatus, -1, value.negate());
+        add(partnerId, newStatus, 1, value);
+    }
+
+    /**
+     * Retrieves the order statistics of a partner, with every status.
+     *
+     * @param partnerId the ID of the partner
+     * @return the order statistics of the partner
+     * @throws PartnerNotFoundException if the partner does not exist
+     */
+    @Cacheable(value = CACHE_NAME, key = "#partnerId")
+    @Transactional(readOnly = true)
+    public PartnerOrderStatsDTO getStats(UUID partnerId) throws PartnerNotFoundException {
+        log.info("Fetching order statistics of partner", kv("partnerId", partnerId));
+
+        Map<Order.OrderStatus, PartnerOrderStats> rows = partnerOrderStatsRepository.findAllByPartnerId(partnerId).stream()
+                .collect(Collectors.toMap(PartnerOrderStats::getStatus, Function.identity()));
+        if (rows.isEmpty() && !partnerRepository.existsById(partnerId)) {
+            throw new PartnerNotFoundException("Partner not found: " + partnerId);
+        }
+
+        List<PartnerOrderStatsDTO.StatusStatsDTO> statuses = Arrays.stream(Order.OrderStatus.values())
+                .map(status -> {
+                    PartnerOrderStats row = rows.get(status);
+                    return row == null
+                            ? new PartnerOrderStatsDTO.StatusStatsDTO(status, 0, BigDecimal.ZERO)
+                            : new PartnerOrderStatsDTO.StatusStatsDTO(status, row.getOrderCount(), row.getTotalValue());
+                })
+                .toList();
+        long totalOrders = statuses.stream().mapToLong(PartnerOrderStatsDTO.StatusStatsDTO::getOrderCount).sum();
+        BigDecimal totalValue = statuses.stream()
+                .map(PartnerOrderStatsDTO.StatusStatsDTO::getTotalValue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new PartnerOrderStatsDTO(partnerId, totalOrders, totalValue, statuses);
+    }
+
+    /**
+     * Builds the statistics of every partner when the table is still empty, e.g. on the first start
+     * after the statistics were introduced. Nodes starting together leave it to the first one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (partnerOrderStatsRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recomputes the statistics of every partner from its orders, in batches of partners run in parallel.
+     * Each batch waits for the in-flight writers of its partners and holds new ones until it commits,
+     * so the order writes running meanwhile are neither lost nor counted twice.
+     * Skipped while another node is rebuilding.
+     */
+    public void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> {
+            // held until the rebuild ends, the batches commit in transactions of their own
+            if (!partnerOrderStatsRepository.tryLockRebuild()) {
+                log.info("Partner order statistics already being rebuilt by another node, skipping");
+                return;
+            }
+            rebuildAll();
+        });
+    }
+
+    private void rebuildAll() {
+        log.info("Rebuilding partner order statistics", kv("batchSize", rebuildBatchSize), kv("workers", rebuildWorkers));
+        long begin = System.currentTimeMillis();
+
+        int partners = 0;
+        int failedBatches = 0;
+        Deque<Future<?>> running = new ArrayDeque<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(rebuildWorkers, new CustomizableThreadFactory("partner-order-stats-"))) {
+            UUID after = FIRST_PARTNER_ID;
+            List<UUID> batch;
+            do {
+                batch = partnerRepository.findIdsAfter(after, rebuildBatchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<UUID> partnerIds = batch;
+                running.add(executor.submit(() -> rebuildBatch(partnerIds)));
+                after = batch.get(batch.size() - 1);
+                partners += batch.size();
+
+                // keeps the workers busy without queueing every partner in memory
+                if (running.size() >= rebuildWorkers * 2 && !await(running.poll())) {
+                    failedBatches++;
+                }
+            } while (batch.size() == rebuildBatchSize);
+
+            while (!running.isEmpty()) {
+                if (!await(running.poll())) {
+                    failedBatches++;
+                }
+            }
+        }
+
+        log.info("Partner order statistics rebuilt", kv("partners", partners), kv("failedBatches", failedBatches),
+                kv("elapsedMs", System.currentTimeMillis() - begin));
+    }
+
+    private void rebuildBatch(List<UUID> partnerIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            partnerOrderStatsRepository.lockPartners(partnerIds);
+            partnerOrderStatsRepository.deleteByPartnerIds(partnerIds);
+            partnerOrderStatsRepository.insertFromOrders(partnerIds);
+            partnerIds.forEach(partnerId -> cacheWriter.evictAfterCommit(CACHE_NAME, partnerId));
+        });
+        log.debug("Partner order statistics batch rebuilt", kv("partners", partnerIds.size()));
+    }
+
+    private static boolean await(Future<?> batch) {
+        try {
+            batch.get();
+            return true;
+        } catch (ExecutionException e) {
+            // the partners of the batch keep their incrementally maintained statistics
+            log.error("Failed to rebuild a batch of partner order statistics", e.getCause());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void add(UUID partnerId, Order.OrderStatus status, long count, BigDecimal value) {
+        Delta delta = pendingDeltas().computeIfAbsent(new PartnerOrderStats.Key(partnerId, status), key -> new Delta());
+        delta.count += count;
+        delta.value = delta.value.add(value);
+    }
+
+    /**
+     * Returns the changes of the current transaction, writing them right before it commits.
+     */
+    @SuppressWarnings("unchecked")
+    private SortedMap<PartnerOrderStats.Key, Delta> pendingDeltas() {
+        SortedMap<PartnerOrderStats.Key, Delta> deltas =
+                (SortedMap<PartnerOrderStats.Key, Delta>) TransactionSynchronizationManager.getResource(this);
+        if (deltas != null) {
+            return deltas;
+        }
+
+        SortedMap<PartnerOrderStats.Key, Delta> created = new TreeMap<>(Comparator
+                .comparing(PartnerOrderStats.Key::getPartnerId)
+                .thenComparing(PartnerOrderStats.Key::getStatus));
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                write(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PartnerOrderStatsService.this);
+            }
+        });
+        return created;
+    }
+
+    private void write(SortedMap<PartnerOrderStats.Key, Delta> deltas) {
+        Map<PartnerOrderStats.Key, Delta> changed = new LinkedHashMap<>();
+        deltas.forEach((key, delta) -> {
+            if (delta.count != 0 || delta.value.signum() != 0) {
+                changed.put(key, delta);
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> partnerIds = changed.keySet().stream()
+                .map(PartnerOrderStats.Key::getPartnerId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (partnerIds.size() > 1) {
+            partnerOrderStatsRepository.lockPartnersShared(partnerIds);
+        }
+        changed.forEach((key, delta) ->
+                partnerOrderStatsRepository.add(key.getPartnerId(), key.getStatus().name(), delta.count, delta.value));
+        partnerIds.forEach(partnerId -> cacheWriter.evictAfterCommit(CACHE_NAME, partnerId));
+    }
+
+    private static class Delta {
+        private long count;
+        private BigDecimal value = BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.configuration.ReplicaLagMonitor;
+import br.com.gazintech.orderapp.utils.ReplicaRouting;
+import br.com.gazintech.orderapp.utils.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Runs order reads on the read replica, except the reads of freshly written orders, so a client reading an order
+ * right after writing it never gets the older copy of a lagging replica.
+ * <p>
+ * Writes mark their orders and partner in Redis once they commit, for {@code order-app.datasource.replica.max-lag}
+ * plus the time a lag measurement stays valid. Replicas lagging longer than that are already out of the read path,
+ * so an order whose mark expired is on every replica still in use. Reads of a marked order, or searches of a marked
+ * partner, run on the primary.
+ * </p>
+ * When Redis cannot be reached the reads run on the primary.
+ */
+@Service
+@Slf4j
+public class ReplicaLagGuard {
+
+    private static final String ORDER_KEY_PREFIX = "replica-guard:order:";
+    private static final String PARTNER_KEY_PREFIX = "replica-guard:partner:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final Duration freshWindow;
+
+    public ReplicaLagGuard(StringRedisTemplate redisTemplate,
+                           @Value("${order-app.datasource.replica.enabled:false}") boolean enabled,
+                           @Value("${order-app.datasource.replica.max-lag:PT5S}") Duration maxLag,
+                           @Value("${order-app.datasource.replica.lag-check-interval-ms:1000}") long lagCheckIntervalMs) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        // a replica stays in use until its last good measurement goes stale, so it may lag that much longer
+        this.freshWindow = maxLag.plusMillis(lagCheckIntervalMs * ReplicaLagMonitor.STALE_AFTER_CHECKS);
+    }
+
+    /**
+     * Marks the orders and their partner as freshly written once the current transaction commits.
+     *
+     * @param partnerId the partner of the orders
+     * @param orderIds  the written orders
+     */
+    public void recordWrite(UUID partnerId, Collection<UUID> orderIds) {
+        if (!enabled) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        keys.add(PARTNER_KEY_PREFIX + partnerId);
+        orderIds.forEach(orderId -> keys.add(ORDER_KEY_PREFIX + orderId));
+
+        TransactionHooks.afterCommit(() -> {
+            try {
+                keys.forEach(key -> redisTemplate.opsForValue().set(key, "1", freshWindow));
+            } catch (RuntimeException e) {
+                log.warn("Failed to mark freshly written orders", kv("partnerId", partnerId), e);
+            }
+        });
+    }
+
+    /**
+     * Runs the reads on the replica, unless the order or the partner was written recently.
+     * Must wrap the first statement of a read-only transaction, see {@link ReplicaRouting}.
+     *
+     * @param orderId   the order read, or null
+     * @param partnerId the partner whose orders are read, or null
+     * @param reads     the reads to run
+     * @param <T>       the type of the result
+     * @return the result of the reads
+     */
+    public <T> T read(UUID orderId, UUID partnerId, Supplier<T> reads) {
+        if (!enabled || isFresh(orderId, partnerId)) {
+            return reads.get();
+        }
+        return ReplicaRouting.onReplica(reads);
+    }
+
+    private boolean isFresh(UUID orderId, UUID partnerId) {
+        if (orderId == null && partnerId == null) {
+            return false;
+        }
+        List<String> keys = new ArrayList<>();
+        if (orderId != null) {
+            keys.add(ORDER_KEY_PREFIX + orderId);
+        }
+        if (partnerId != null) {
+            keys.add(PARTNER_KEY_PREFIX + partnerId);
+        }
+        try {
+            Long existing = redisTemplate.countExistingKeys(keys);
+            return existing == null || existing > 0;
+        } catch (RuntimeException e) {
+            log.warn("Failed to check freshly written orders, reading from the primary", kv("orderId", orderId), kv("partnerId", partnerId), e);
+            return true;
+        }
+    }
+}
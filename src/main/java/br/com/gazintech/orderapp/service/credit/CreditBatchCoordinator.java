@@ -0,0 +1,285 @@
+package br.com.gazintech.orderapp.service.credit;
+
+import br.com.gazintech.orderapp.entity.CreditBatchDebit;
+import br.com.gazintech.orderapp.entity.Money;
+import br.com.gazintech.orderapp.entity.UuidV7Generator;
+import br.com.gazintech.orderapp.exception.CreditOperationTimeoutException;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
+import br.com.gazintech.orderapp.repository.CreditBatchDebitRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Group-commit coordinator for partner debits.
+ * <p>
+ * Debits of the same partner that arrive within a short window are collected into one batch, which is applied
+ * with a single row lock in its own transaction. Requests are decided in arrival order, so each caller gets its
+ * own outcome: a debit that does not fit the remaining credit fails with {@link InsufficientBalanceException}
+ * without failing the others. Futures complete only after the batch commits.
+ * </p>
+ * <p>
+ * Batches run on a small connection pool of their own, {@code creditBatchDataSource}, so callers waiting on a batch
+ * while holding connections of the application pool can never starve it. Each committed debit is recorded as a
+ * {@link CreditBatchDebit}, which the caller confirms in its own transaction with {@link #confirm}. A debit that is
+ * not confirmed, because the caller rolled back, stopped waiting or crashed, is given back: right away when the
+ * coordinator knows, and by a scheduled sweep once the confirmation grace period has passed otherwise.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "order-app.credit.mode", havingValue = "GROUP_COMMIT")
+public class CreditBatchCoordinator {
+
+    private static final String RELEASE_SQL = """
+            WITH released AS (
+                DELETE FROM "CreditBatchDebit" d
+                 WHERE d.id = (SELECT id FROM "CreditBatchDebit" WHERE id = ? FOR UPDATE SKIP LOCKED)
+                RETURNING d.partner_id, d.amount
+            ), credited AS (
+                UPDATE "Partner" p
+                   SET available_credit = LEAST(p.credit_limit, p.available_credit + r.amount),
+                       version = p.version + 1,
+                       updated_at = now()
+                  FROM released r
+                 WHERE p.id = r.partner_id
+                RETURNING p.id
+            )
+            SELECT COUNT(*) FROM credited
+            """;
+
+    private final CreditBatchDebitRepository creditBatchDebitRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final Duration confirmGrace;
+    private final int sweepBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Map<UUID, Batch> openBatches = new ConcurrentHashMap<>();
+
+    public CreditBatchCoordinator(CreditBatchDebitRepository creditBatchDebitRepository,
+                                  @Qualifier("creditBatchDataSource") DataSource dataSource,
+                                  @Value("${order-app.credit.group-commit.window-ms:2}") long windowMillis,
+                                  @Value("${order-app.credit.group-commit.max-batch-size:256}") int maxBatchSize,
+                                  @Value("${order-app.credit.group-commit.workers:4}") int workers,
+                                  @Value("${order-app.credit.group-commit.confirm-grace:PT1M}") Duration confirmGrace,
+                                  @Value("${order-app.credit.group-commit.sweep-batch-size:200}") int sweepBatchSize) {
+        this.creditBatchDebitRepository = creditBatchDebitRepository;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.confirmGrace = confirmGrace;
+        this.sweepBatchSize = sweepBatchSize;
+        this.scheduler = Executors.newScheduledThreadPool(workers, new CustomizableThreadFactory("credit-batch-"));
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Queues a debit into the open batch of the partner, opening one if needed.
+     *
+     * @param partnerId the ID of the partner
+     * @param amount    the amount to debit
+     * @return a future completed with the ID of the batched debit once the batch commits,
+     * or failed with the reason of this debit
+     */
+    public CompletableFuture<UUID> debit(UUID partnerId, Money amount) {
+        DebitRequest request = new DebitRequest(UuidV7Generator.next(), amount, new CompletableFuture<>());
+        Batch[] full = new Batch[1];
+
+        openBatches.compute(partnerId, (id, batch) -> {
+            if (batch == null) {
+                Batch opened = new Batch(id);
+                scheduler.schedule(() -> close(opened), windowMillis, TimeUnit.MILLISECONDS);
+                batch = opened;
+            }
+            batch.requests().add(request);
+            if (batch.requests().size() >= maxBatchSize) {
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+
+        if (full[0] != null) {
+            scheduler.execute(() -> apply(full[0]));
+        }
+        return request.result();
+    }
+
+    /**
+     * Confirms a batched debit in the current transaction, so it stands once that transaction commits.
+     *
+     * @param debitId the ID of the batched debit
+     * @throws CreditOperationTimeoutException if the debit was already given back
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void confirm(UUID debitId) throws CreditOperationTimeoutException {
+        if (creditBatchDebitRepository.confirm(debitId) == 0) {
+            throw new CreditOperationTimeoutException("Credit debit was given back before it was confirmed: " + debitId);
+        }
+    }
+
+    /**
+     * Gives back a batched debit that was not confirmed, in a transaction of its own.
+     * Does nothing if the debit was confirmed or already given back.
+     *
+     * @param debitId the ID of the batched debit
+     */
+    public void release(UUID debitId) {
+        scheduler.execute(() -> {
+            try {
+                if (releaseNow(debitId)) {
+                    log.info("Batched debit given back", kv("debitId", debitId));
+                }
+            } catch (RuntimeException e) {
+                // the sweep gives it back once the confirmation grace period has passed
+                log.warn("Failed to give back batched debit", kv("debitId", debitId), e);
+            }
+        });
+    }
+
+    /**
+     * Gives back the batched debits left unconfirmed for longer than the confirmation grace period,
+     * e.g. by a caller that crashed before it committed.
+     */
+    @Scheduled(fixedDelayString = "${order-app.credit.group-commit.sweep-interval-ms:60000}")
+    public void sweep() {
+        int released;
+        do {
+            List<UUID> expired = jdbcTemplate.queryForList("""
+                            SELECT id FROM "CreditBatchDebit"
+                             WHERE created_at < ?
+                             ORDER BY created_at
+                             LIMIT ?""", UUID.class,
+                    Timestamp.from(Instant.now().minus(confirmGrace)), sweepBatchSize);
+            released = (int) expired.stream().filter(this::releaseNow).count();
+            if (released > 0) {
+                log.info("Unconfirmed batched debits given back", kv("debits", released));
+            }
+        } while (released == sweepBatchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        openBatches.keySet().forEach(partnerId -> {
+            Batch batch = openBatches.remove(partnerId);
+            if (batch != null) {
+                apply(batch);
+            }
+        });
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Deletes the debit and credits the partner in one statement, skipping a debit whose confirmation is in flight.
+     */
+    private boolean releaseNow(UUID debitId) {
+        Long credited = transactionTemplate.execute(status -> jdbcTemplate.queryForObject(RELEASE_SQL, Long.class, debitId));
+        return credited != null && credited > 0;
+    }
+
+    private void close(Batch batch) {
+        if (openBatches.remove(batch.partnerId(), batch)) {
+            apply(batch);
+        }
+    }
+
+    private void apply(Batch batch) {
+        UUID partnerId = batch.partnerId();
+        List<DebitRequest> requests = batch.requests();
+        BatchOutcome outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> {
+                List<PartnerCredit> rows = jdbcTemplate.query(
+                        "SELECT code, available_credit FROM \"Partner\" WHERE id = ? FOR UPDATE",
+                        (rs, rowNum) -> new PartnerCredit(rs.getString("code"), Money.of(rs.getBigDecimal("available_credit"))),
+                        partnerId);
+                if (rows.isEmpty()) {
+                    throw new PartnerNotFoundException("Partner not found: " + partnerId);
+                }
+
+                Money available = rows.get(0).availableCredit();
+                List<Boolean> debited = new ArrayList<>(requests.size());
+                List<Object[]> debits = new ArrayList<>();
+                for (DebitRequest request : requests) {
+                    boolean fits = !request.result().isDone() && available.isGreaterThanOrEqualTo(request.amount());
+                    if (fits) {
+                        available = available.minus(request.amount());
+                        debits.add(new Object[]{request.debitId(), partnerId, request.amount().toBigDecimal()});
+                    }
+                    debited.add(fits);
+                }
+                if (!debits.isEmpty()) {
+                    jdbcTemplate.update("""
+                            UPDATE "Partner"
+                               SET available_credit = ?, version = version + 1, updated_at = now()
+                             WHERE id = ?""", available.toBigDecimal(), partnerId);
+                    jdbcTemplate.batchUpdate("""
+                            INSERT INTO "CreditBatchDebit" (id, partner_id, amount, created_at)
+                            VALUES (?, ?, ?, now())""", debits);
+                }
+                return new BatchOutcome(rows.get(0).code(), debited);
+            });
+        } catch (RuntimeException e) {
+            requests.forEach(request -> request.result().completeExceptionally(e));
+            log.warn("Credit batch failed", kv("partnerId", partnerId), kv("requests", requests.size()), e);
+            return;
+        }
+
+        for (int i = 0; i < requests.size(); i++) {
+            DebitRequest request = requests.get(i);
+            if (!outcome.debited().get(i)) {
+                request.result().completeExceptionally(
+                        new InsufficientBalanceException("Insufficient credit for partner: " + outcome.code()));
+            } else if (!request.result().complete(request.debitId())) {
+                // the caller stopped waiting, so it will never confirm the debit
+                release(request.debitId());
+            }
+        }
+        log.debug("Credit batch committed", kv("partnerId", partnerId), kv("requests", requests.size()));
+    }
+
+    private record DebitRequest(UUID debitId, Money amount, CompletableFuture<UUID> result) {
+    }
+
+    private record Batch(UUID partnerId, List<DebitRequest> requests) {
+        Batch(UUID partnerId) {
+            this(partnerId, new ArrayList<>());
+        }
+    }
+
+    private record PartnerCredit(String code, Money availableCredit) {
+    }
+
+    private record BatchOutcome(String code, List<Boolean> debited) {
+    }
+}
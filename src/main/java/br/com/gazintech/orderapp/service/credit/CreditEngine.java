@@ -0,0 +1,62 @@
+package br.com.gazintech.orderapp.service.credit;
+
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Interface for alternative credit backends used by {@link br.com.gazintech.orderapp.service.CreditService}.
+ * An engine owns the partner balance for the credit modes flagged as engine backed,
+ * and is only registered when its mode is selected with {@code order-app.credit.mode}.
+ */
+public interface CreditEngine {
+
+    /**
+     * Checks if the partner has available credit for the specified amount.
+     *
+     * @param partnerId the ID of the partner
+     * @param amount    the amount to check
+     * @throws PartnerNotFoundException     if the partner does not exist
+     * @throws InsufficientBalanceException if the partner does not have enough credit
+     */
+    void hasAvailableCredit(UUID partnerId, BigDecimal amount) throws PartnerNotFoundException, InsufficientBalanceException;
+
+    /**
+     * Debits the specified amount from the partner's credit.
+     *
+     * @param partnerId the ID of the partner
+     * @param amount    the amount to debit
+     * @throws PartnerNotFoundException     if the partner does not exist
+     * @throws InsufficientBalanceException if the partner does not have enough credit
+     */
+    void debitCredit(UUID partnerId, BigDecimal amount) throws PartnerNotFoundException, InsufficientBalanceException;
+
+    /**
+     * Credits the specified amount to the partner's credit, capped at the credit limit.
+     *
+     * @param partnerId the ID of the partner
+     * @param amount    the amount to credit
+     * @throws PartnerNotFoundException if the partner does not exist
+     */
+    void creditCredit(UUID partnerId, BigDecimal amount) throws PartnerNotFoundException;
+
+    /**
+     * Retrieves the available credit for the specified partner.
+     *
+     * @param partnerId the ID of the partner
+     * @return the available credit amount
+     * @throws PartnerNotFoundException if the partner does not exist
+     */
+    BigDecimal getAvailableCredit(UUID partnerId) throws PartnerNotFoundException;
+
+    /**
+     * Updates the credit limit for the specified partner, keeping the used credit unchanged.
+     *
+     * @param partnerId the ID of the partner
+     * @param newLimit  the new credit limit
+     * @throws PartnerNotFoundException if the partner does not exist
+     */
+    void updateCreditLimit(UUID partnerId, BigDecimal newLimit) throws PartnerNotFoundException;
+}
@@ -0,0 +1,280 @@
+package br.com.gazintech.orderapp.service.credit;
+
+import br.com.gazintech.orderapp.entity.PendingCreditDelta;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import br.com.gazintech.orderapp.repository.PendingCreditDeltaRepository;
+import br.com.gazintech.orderapp.utils.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Credit engine that keeps partner balances in process and decides debits under striped locks,
+ * so approvals for the same partner no longer serialize on the partner row.
+ * <p>
+ * Every accepted change is journaled as a {@link PendingCreditDelta} insert in the caller's transaction,
+ * which is what makes the engine crash safe: a balance is always rebuilt as the partner row plus its
+ * pending deltas. A write-behind job folds the pending deltas into the partner rows in batches.
+ * Debits are applied in memory right away and reverted if the caller's transaction rolls back. Credits only
+ * become spendable once the caller's transaction commits, so a debit can never spend credit that is rolled back.
+ * </p>
+ * The engine assumes it is the only writer of partner credit, so it must run on a single application instance.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "order-app.credit.mode", havingValue = "IN_MEMORY")
+public class InMemoryCreditEngine implements CreditEngine {
+
+    private static final int MAX_FLUSH_BATCHES_PER_RUN = 10;
+
+    private final PartnerRepository partnerRepository;
+    private final PendingCreditDeltaRepository pendingCreditDeltaRepository;
+    private final int flushBatchSize;
+    private final ReentrantLock[] stripes;
+    private volatile Map<UUID, Account> accounts = new ConcurrentHashMap<>();
+
+    public InMemoryCreditEngine(PartnerRepository partnerRepository,
+                                PendingCreditDeltaRepository pendingCreditDeltaRepository,
+                                @Value("${order-app.credit.in-memory.stripes:64}") int stripeCount,
+                                @Value("${order-app.credit.in-memory.flush-batch-size:500}") int flushBatchSize) {
+        this.partnerRepository = partnerRepository;
+        this.pendingCreditDeltaRepository = pendingCreditDeltaRepository;
+        this.flushBatchSize = flushBatchSize;
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(1, stripeCount))];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Rebuilds every partner balance from the database, discarding what is held in memory.
+     * Runs while the context starts, before the web server takes requests: a debit in flight during a rebuild
+     * would be missing from the rebuilt balance, and given back to it on rollback.
+     */
+    @PostConstruct
+    public void rebuild() {
+        Map<UUID, Account> rebuilt = new ConcurrentHashMap<>();
+        pendingCreditDeltaRepository.findAllBalances()
+                .forEach(balance -> rebuilt.put(balance.getPartnerId(), new Account(balance)));
+        accounts = rebuilt;
+        log.info("In-memory credit ledger rebuilt", kv("partners", rebuilt.size()));
+    }
+
+    @Override
+    public void hasAvailableCredit(UUID partnerId, BigDecimal amount) {
+        Account account = account(partnerId);
+        ReentrantLock lock = stripe(partnerId);
+        lock.lock();
+        try {
+            if (account.available.compareTo(amount) < 0) {
+                throw new InsufficientBalanceException("Insufficient credit for partner: " + account.code);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void debitCredit(UUID partnerId, BigDecimal amount) {
+        Account account = account(partnerId);
+        ReentrantLock lock = stripe(partnerId);
+        lock.lock();
+        try {
+            if (account.available.compareTo(amount) < 0) {
+                throw new InsufficientBalanceException("Insufficient credit for partner: " + account.code);
+            }
+            account.available = account.available.subtract(amount);
+        } finally {
+            lock.unlock();
+        }
+
+        journalDebit(partnerId, amount.negate());
+        log.debug("Credit debited in memory", kv("partnerId", partnerId), kv("amount", amount));
+    }
+
+    @Override
+    public void creditCredit(UUID partnerId, BigDecimal amount) {
+        Account account = account(partnerId);
+        BigDecimal applied;
+        ReentrantLock lock = stripe(partnerId);
+        lock.lock();
+        try {
+            // credits still waiting for their commit count against the limit, so together they cannot exceed it
+            BigDecimal committed = account.available.add(account.pendingCredit);
+            applied = committed.add(amount).min(account.creditLimit).subtract(committed).max(BigDecimal.ZERO);
+            account.pendingCredit = account.pendingCredit.add(applied);
+        } finally {
+            lock.unlock();
+        }
+
+        journalCredit(partnerId, applied);
+        log.debug("Credit credited in memory after commit", kv("partnerId", partnerId), kv("amount", applied));
+    }
+
+    @Override
+    public BigDecimal getAvailableCredit(UUID partnerId) {
+        Account account = account(partnerId);
+        ReentrantLock lock = stripe(partnerId);
+        lock.lock();
+        try {
+            return account.available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateCreditLimit(UUID partnerId, BigDecimal newLimit) {
+        Account account = account(partnerId);
+        BigDecimal previousLimit;
+        BigDecimal delta;
+        ReentrantLock lock = stripe(partnerId);
+        lock.lock();
+        try {
+            BigDecimal usedCredit = account.creditLimit.subtract(account.available);
+            BigDecimal newAvailable = newLimit.subtract(usedCredit).max(BigDecimal.ZERO);
+            delta = newAvailable.subtract(account.available);
+            previousLimit = account.creditLimit;
+            account.creditLimit = newLimit;
+            // a lower balance applies right away like a debit, a higher one waits for the commit like a credit
+            if (delta.signum() < 0) {
+                account.available = newAvailable;
+            } else {
+                account.pendingCredit = account.pendingCredit.add(delta);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        TransactionHooks.afterRollback(() -> {
+            lock.lock();
+            try {
+                account.creditLimit = previousLimit;
+            } finally {
+                lock.unlock();
+            }
+        });
+        partnerRepository.updateCreditLimit(partnerId, newLimit);
+        if (delta.signum() < 0) {
+            journalDebit(partnerId, delta);
+        } else {
+            journalCredit(partnerId, delta);
+        }
+    }
+
+    /**
+     * Folds the committed pending deltas into the partner rows.
+     */
+    @Scheduled(fixedDelayString = "${order-app.credit.in-memory.flush-interval-ms:100}")
+    public void flush() {
+        int batches = 0;
+        int updated;
+        do {
+            updated = pendingCreditDeltaRepository.flushBatch(flushBatchSize);
+            batches++;
+        } while (updated > 0 && batches < MAX_FLUSH_BATCHES_PER_RUN);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Flushing in-memory credit ledger before shutdown");
+        flush();
+    }
+
+    /**
+     * Records a debit already applied in memory in the caller's transaction, and gives it back if that
+     * transaction rolls back.
+     */
+    private void journalDebit(UUID partnerId, BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+        TransactionHooks.afterRollback(() -> update(partnerId, account -> account.available = account.available.subtract(delta)));
+        save(partnerId, delta);
+    }
+
+    /**
+     * Records a credit reserved as pending in the caller's transaction, and makes it spendable only once that
+     * transaction commits. A rollback drops the reservation.
+     */
+    private void journalCredit(UUID partnerId, BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> update(partnerId, account -> {
+            account.pendingCredit = account.pendingCredit.subtract(delta);
+            account.available = account.available.add(delta);
+        }));
+        TransactionHooks.afterRollback(() -> update(partnerId, account -> account.pendingCredit = account.pendingCredit.subtract(delta)));
+        save(partnerId, delta);
+    }
+
+    private void save(UUID partnerId, BigDecimal delta) {
+        pendingCreditDeltaRepository.save(PendingCreditDelta.builder()
+                .partnerId(partnerId)
+                .delta(delta)
+                .build());
+    }
+
+    private void update(UUID partnerId, Consumer<Account> change) {
+        Account account = account(partnerId);
+        ReentrantLock lock = stripe(partnerId);
+        lock.lock();
+        try {
+            change.accept(account);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the account of the partner, loading it from the database the first time it is used.
+     */
+    private Account account(UUID partnerId) {
+        Map<UUID, Account> current = accounts;
+        Account account = current.get(partnerId);
+        if (account != null) {
+            return account;
+        }
+        Account loaded = pendingCreditDeltaRepository.findBalance(partnerId)
+                .map(Account::new)
+                .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
+        Account existing = current.putIfAbsent(partnerId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private ReentrantLock stripe(UUID partnerId) {
+        return stripes[partnerId.hashCode() & (stripes.length - 1)];
+    }
+
+    /**
+     * In-memory balance of a partner. Fields are guarded by the stripe lock of the partner.
+     */
+    private static final class Account {
+        private final String code;
+        private BigDecimal creditLimit;
+        private BigDecimal available;
+        private BigDecimal pendingCredit = BigDecimal.ZERO;
+
+        private Account(PendingCreditDeltaRepository.CreditBalanceView balance) {
+            this.code = balance.getCode();
+            this.creditLimit = balance.getCreditLimit();
+            this.available = balance.getAvailableCredit();
+        }
+    }
+}
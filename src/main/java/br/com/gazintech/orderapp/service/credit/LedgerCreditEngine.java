@@ -0,0 +1,146 @@
+package br.com.gazintech.orderapp.service.credit;
+
+import br.com.gazintech.orderapp.entity.PartnerCreditDirty;
+import br.com.gazintech.orderapp.entity.PartnerCreditEntry;
+import br.com.gazintech.orderapp.entity.PartnerCreditSnapshot;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
+import br.com.gazintech.orderapp.repository.PartnerCreditDirtyRepository;
+import br.com.gazintech.orderapp.repository.PartnerCreditEntryRepository;
+import br.com.gazintech.orderapp.repository.PartnerCreditEntryRepository.LedgerBalanceView;
+import br.com.gazintech.orderapp.repository.PartnerCreditSnapshotRepository;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Credit engine that never rewrites a balance: every debit, credit and limit change is an insert into the
+ * {@link PartnerCreditEntry} ledger, which keeps the full credit history of each partner.
+ * <p>
+ * The available credit is the partner {@link PartnerCreditSnapshot} plus the entries written after it,
+ * read in a single statement. The first entry after a compaction marks the partner in {@link PartnerCreditDirty},
+ * and a scheduled compaction folds the new entries of the marked partners into their snapshot and copies it to
+ * the partner row, so the row is only rewritten once per compaction instead of once per order.
+ * </p>
+ * Writers of the same partner are serialized by a transaction-scoped advisory lock, so the balance check
+ * and the insert are atomic without locking or updating the partner row. Compaction takes the same lock,
+ * which guarantees no entry below the snapshot position is still uncommitted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "order-app.credit.mode", havingValue = "LEDGER")
+public class LedgerCreditEngine implements CreditEngine {
+
+    private final PartnerCreditEntryRepository partnerCreditEntryRepository;
+    private final PartnerCreditSnapshotRepository partnerCreditSnapshotRepository;
+    private final PartnerCreditDirtyRepository partnerCreditDirtyRepository;
+    private final PartnerRepository partnerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int compactionBatchSize;
+
+    public LedgerCreditEngine(PartnerCreditEntryRepository partnerCreditEntryRepository,
+                              PartnerCreditSnapshotRepository partnerCreditSnapshotRepository,
+                              PartnerCreditDirtyRepository partnerCreditDirtyRepository,
+                              PartnerRepository partnerRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${order-app.credit.ledger.compaction-batch-size:200}") int compactionBatchSize) {
+        this.partnerCreditEntryRepository = partnerCreditEntryRepository;
+        this.partnerCreditSnapshotRepository = partnerCreditSnapshotRepository;
+        this.partnerCreditDirtyRepository = partnerCreditDirtyRepository;
+        this.partnerRepository = partnerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.compactionBatchSize = compactionBatchSize;
+    }
+
+    @Override
+    public void hasAvailableCredit(UUID partnerId, BigDecimal amount) {
+        LedgerBalanceView balance = balance(partnerId);
+        if (balance.getAvailableCredit().compareTo(amount) < 0) {
+            throw new InsufficientBalanceException("Insufficient credit for partner: " + balance.getCode());
+        }
+    }
+
+    @Override
+    public void debitCredit(UUID partnerId, BigDecimal amount) {
+        partnerCreditEntryRepository.lockPartner(partnerId);
+        hasAvailableCredit(partnerId, amount);
+
+        append(partnerId, PartnerCreditEntry.EntryType.DEBIT, amount.negate());
+        log.debug("Credit debited in ledger", kv("partnerId", partnerId), kv("amount", amount));
+    }
+
+    @Override
+    public void creditCredit(UUID partnerId, BigDecimal amount) {
+        partnerCreditEntryRepository.lockPartner(partnerId);
+        LedgerBalanceView balance = balance(partnerId);
+
+        BigDecimal applied = amount.min(balance.getCreditLimit().subtract(balance.getAvailableCredit()));
+        if (applied.signum() > 0) {
+            append(partnerId, PartnerCreditEntry.EntryType.CREDIT, applied);
+        }
+        log.debug("Credit credited in ledger", kv("partnerId", partnerId), kv("amount", applied));
+    }
+
+    @Override
+    public BigDecimal getAvailableCredit(UUID partnerId) {
+        return balance(partnerId).getAvailableCredit();
+    }
+
+    @Override
+    public void updateCreditLimit(UUID partnerId, BigDecimal newLimit) {
+        partnerCreditEntryRepository.lockPartner(partnerId);
+        LedgerBalanceView balance = balance(partnerId);
+
+        BigDecimal usedCredit = balance.getCreditLimit().subtract(balance.getAvailableCredit());
+        BigDecimal newAvailable = newLimit.subtract(usedCredit).max(BigDecimal.ZERO);
+        BigDecimal delta = newAvailable.subtract(balance.getAvailableCredit());
+        if (delta.signum() != 0) {
+            append(partnerId, PartnerCreditEntry.EntryType.LIMIT_ADJUSTMENT, delta);
+        }
+        partnerRepository.updateCreditLimit(partnerId, newLimit);
+    }
+
+    /**
+     * Folds the entries written since the last snapshot into new snapshots, one marked partner per transaction.
+     * Entries are kept as the credit history of the partner.
+     */
+    @Scheduled(fixedDelayString = "${order-app.credit.ledger.compaction-interval-ms:60000}")
+    public void compact() {
+        List<UUID> partnerIds;
+        do {
+            partnerIds = partnerCreditDirtyRepository.findPartnersToCompact(compactionBatchSize);
+            partnerIds.forEach(partnerId -> transactionTemplate.executeWithoutResult(status -> {
+                partnerCreditEntryRepository.lockPartner(partnerId);
+                partnerCreditSnapshotRepository.seed(partnerId);
+                partnerCreditSnapshotRepository.fold(partnerId);
+                partnerCreditSnapshotRepository.copyToPartner(partnerId);
+                partnerCreditDirtyRepository.clear(partnerId);
+            }));
+            log.debug("Credit ledger compacted", kv("partners", partnerIds.size()));
+        } while (partnerIds.size() == compactionBatchSize);
+    }
+
+    private LedgerBalanceView balance(UUID partnerId) {
+        return partnerCreditEntryRepository.findBalance(partnerId)
+                .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
+    }
+
+    private void append(UUID partnerId, PartnerCreditEntry.EntryType entryType, BigDecimal delta) {
+        partnerCreditEntryRepository.save(PartnerCreditEntry.builder()
+                .partnerId(partnerId)
+                .entryType(entryType)
+                .delta(delta)
+                .build());
+        partnerCreditDirtyRepository.mark(partnerId);
+    }
+}
@@ -0,0 +1,307 @@
+package br.com.gazintech.orderapp.service.credit;
+
+import br.com.gazintech.orderapp.entity.CreditStreamEntry;
+import br.com.gazintech.orderapp.entity.Partner;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
+import br.com.gazintech.orderapp.repository.CreditStreamEntryRepository;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import br.com.gazintech.orderapp.utils.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Credit engine that keeps partner balances in Redis and decides every change atomically in a Lua script,
+ * so credit decisions take no Postgres row lock.
+ * <p>
+ * Balances are stored in cents in the hash {@code credit:account:<partnerId>}. Each script appends the applied
+ * delta to the append-only stream {@code credit:deltas} in the same atomic step, and the caller's transaction
+ * records the entry as committed in {@link CreditStreamEntry}. A scheduled reconciler folds the committed
+ * entries into the partner rows, marking them applied in the same transaction so each is applied exactly once.
+ * </p>
+ * <p>
+ * A change whose transaction rolls back is compensated right away. Should that compensation be lost, e.g. the
+ * node crashes before or during the rollback, the reconciler finds the entry still unrecorded once the commit
+ * grace window has passed, records it as reverted and compensates it then. Compensation removes the entry in
+ * the same script, so it never runs twice.
+ * </p>
+ * Redis is the owner of the balance in this mode, so it must run with persistence (AOF) enabled.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "order-app.credit.mode", havingValue = "REDIS")
+public class RedisCreditEngine implements CreditEngine {
+
+    static final String STREAM_KEY = "credit:deltas";
+    private static final String ACCOUNT_KEY_PREFIX = "credit:account:";
+    private static final long NOT_LOADED = -1L;
+
+    private static final RedisScript<Long> INIT_SCRIPT = RedisScript.of(new ClassPathResource("redis/credit-init.lua"), Long.class);
+    private static final RedisScript<Long> COMPENSATE_SCRIPT = RedisScript.of(new ClassPathResource("redis/credit-compensate.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DEBIT_SCRIPT = RedisScript.of(new ClassPathResource("redis/credit-debit.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CREDIT_SCRIPT = RedisScript.of(new ClassPathResource("redis/credit-credit.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LIMIT_SCRIPT = RedisScript.of(new ClassPathResource("redis/credit-limit.lua"), List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final PartnerRepository partnerRepository;
+    private final CreditStreamEntryRepository creditStreamEntryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int reconcileBatchSize;
+    private final Duration commitGrace;
+    private final Duration entryRetention;
+
+    public RedisCreditEngine(StringRedisTemplate redisTemplate,
+                             PartnerRepository partnerRepository,
+                             CreditStreamEntryRepository creditStreamEntryRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${order-app.credit.redis.reconcile-batch-size:1000}") int reconcileBatchSize,
+                             @Value("${order-app.credit.redis.commit-grace:PT5M}") Duration commitGrace,
+                             @Value("${order-app.credit.redis.entry-retention:P1D}") Duration entryRetention) {
+        this.redisTemplate = redisTemplate;
+        this.partnerRepository = partnerRepository;
+        this.creditStreamEntryRepository = creditStreamEntryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.reconcileBatchSize = reconcileBatchSize;
+        this.commitGrace = commitGrace;
+        this.entryRetention = entryRetention;
+    }
+
+    @Override
+    public void hasAvailableCredit(UUID partnerId, BigDecimal amount) {
+        if (availableCents(partnerId) < toCents(amount)) {
+            throw new InsufficientBalanceException("Insufficient credit for partner: " + code(partnerId));
+        }
+    }
+
+    @Override
+    public void debitCredit(UUID partnerId, BigDecimal amount) {
+        List<Object> result = executeLoaded(DEBIT_SCRIPT, partnerId, String.valueOf(toCents(amount)));
+        if ((Long) result.get(0) == 0) {
+            throw new InsufficientBalanceException("Insufficient credit for partner: " + code(partnerId));
+        }
+
+        recordCommitted(partnerId, (String) result.get(1));
+        log.debug("Credit debited in Redis", kv("partnerId", partnerId), kv("amount", amount));
+    }
+
+    @Override
+    public void creditCredit(UUID partnerId, BigDecimal amount) {
+        List<Object> result = executeLoaded(CREDIT_SCRIPT, partnerId, String.valueOf(toCents(amount)));
+        long applied = (Long) result.get(0);
+        if (applied > 0) {
+            recordCommitted(partnerId, (String) result.get(1));
+        }
+        log.debug("Credit credited in Redis", kv("partnerId", partnerId), kv("amountInCents", applied));
+    }
+
+    @Override
+    public BigDecimal getAvailableCredit(UUID partnerId) {
+        return BigDecimal.valueOf(availableCents(partnerId), 2);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void updateCreditLimit(UUID partnerId, BigDecimal newLimit) {
+        List<Object> args = List.of(String.valueOf(toCents(newLimit)), partnerId.toString());
+        List<Object> result = redisTemplate.execute(LIMIT_SCRIPT, keys(partnerId), args.toArray());
+        if (result == null) {
+            load(partnerId);
+            result = redisTemplate.execute(LIMIT_SCRIPT, keys(partnerId), args.toArray());
+        }
+
+        recordCommitted(partnerId, (String) result.get(1));
+        partnerRepository.updateCreditLimit(partnerId, newLimit);
+    }
+
+    /**
+     * Applies the committed entries of the delta stream to the partner rows and compensates the ones whose
+     * transaction never committed, then trims them from the stream and prunes their old outcomes.
+     */
+    @Scheduled(fixedDelayString = "${order-app.credit.redis.reconcile-interval-ms:500}")
+    public void reconcile() {
+        String after = null;
+        Batch batch;
+        do {
+            String from = after;
+            batch = transactionTemplate.execute(status -> reconcileBatch(from));
+            if (!batch.done().isEmpty()) {
+                redisTemplate.opsForStream().delete(STREAM_KEY, batch.done().toArray(RecordId[]::new));
+            }
+            batch.reverted().forEach(this::compensate);
+            after = batch.lastEntryId();
+        } while (batch.read() == reconcileBatchSize);
+
+        prune();
+    }
+
+    private Batch reconcileBatch(String after) {
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().range(STREAM_KEY,
+                after == null ? Range.unbounded() : Range.rightUnbounded(Range.Bound.exclusive(after)),
+                Limit.limit().count(reconcileBatchSize));
+        if (records == null || records.isEmpty()) {
+            return new Batch(0, after, List.of(), List.of());
+        }
+
+        Map<String, CreditStreamEntry> entries = creditStreamEntryRepository.findAllByIdWithLock(
+                        records.stream().map(entry -> entry.getId().getValue()).toList()).stream()
+                .collect(Collectors.toMap(CreditStreamEntry::getEntryId, Function.identity()));
+        long graceStart = System.currentTimeMillis() - commitGrace.toMillis();
+
+        Map<UUID, Long> deltaByPartner = new HashMap<>();
+        List<RecordId> done = new ArrayList<>();
+        List<MapRecord<String, Object, Object>> reverted = new ArrayList<>();
+        for (MapRecord<String, Object, Object> entry : records) {
+            CreditStreamEntry outcome = entries.get(entry.getId().getValue());
+            if (outcome == null) {
+                // still in flight, unless its transaction is older than the grace window and never committed
+                if (entry.getId().getTimestamp() < graceStart
+                        && creditStreamEntryRepository.insertRevertedIfAbsent(entry.getId().getValue()) == 1) {
+                    reverted.add(entry);
+                }
+                continue;
+            }
+            switch (outcome.getStatus()) {
+                case COMMITTED -> {
+                    deltaByPartner.merge(partnerId(entry), Long.parseLong((String) entry.getValue().get("delta")), Long::sum);
+                    outcome.setStatus(CreditStreamEntry.EntryStatus.APPLIED);
+                    done.add(entry.getId());
+                }
+                // left behind by a run that failed after its commit
+                case APPLIED -> done.add(entry.getId());
+                case REVERTED -> reverted.add(entry);
+            }
+        }
+        deltaByPartner.forEach((partnerId, delta) ->
+                partnerRepository.adjustAvailableCredit(partnerId, BigDecimal.valueOf(delta, 2)));
+
+        log.debug("Redis credit deltas reconciled", kv("entries", records.size()), kv("partners", deltaByPartner.size()),
+                kv("reverted", reverted.size()));
+        return new Batch(records.size(), records.get(records.size() - 1).getId().getValue(), done, reverted);
+    }
+
+    /**
+     * Deletes the outcomes older than the retention period, keeping those of entries still in the stream.
+     */
+    private void prune() {
+        long before = System.currentTimeMillis() - entryRetention.toMillis();
+        List<MapRecord<String, Object, Object>> oldest = redisTemplate.opsForStream().range(STREAM_KEY,
+                Range.unbounded(), Limit.limit().count(1));
+        if (oldest != null && !oldest.isEmpty()) {
+            before = Math.min(before, oldest.get(0).getId().getTimestamp());
+        }
+
+        OffsetDateTime pruneBefore = Instant.ofEpochMilli(before).atOffset(ZoneOffset.UTC);
+        Integer pruned = transactionTemplate.execute(status -> creditStreamEntryRepository.deleteFinishedBefore(pruneBefore));
+        if (pruned != null && pruned > 0) {
+            log.debug("Redis credit stream outcomes pruned", kv("entries", pruned));
+        }
+    }
+
+    private long availableCents(UUID partnerId) {
+        Object available = redisTemplate.opsForHash().get(accountKey(partnerId), "available");
+        if (available == null) {
+            load(partnerId);
+            available = redisTemplate.opsForHash().get(accountKey(partnerId), "available");
+        }
+        return Long.parseLong((String) available);
+    }
+
+    private String code(UUID partnerId) {
+        return (String) redisTemplate.opsForHash().get(accountKey(partnerId), "code");
+    }
+
+    /**
+     * Runs a script that returns {@code { -1 }} for an account Redis does not own yet, seeding it from the database once.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private List<Object> executeLoaded(RedisScript<List> script, UUID partnerId, String cents) {
+        List<Object> result = redisTemplate.execute(script, keys(partnerId), cents, partnerId.toString());
+        if ((Long) result.get(0) == NOT_LOADED) {
+            load(partnerId);
+            result = redisTemplate.execute(script, keys(partnerId), cents, partnerId.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Seeds the Redis account from the partner row. Redis keeps its own value if the account already exists.
+     */
+    private void load(UUID partnerId) {
+        Partner partner = partnerRepository.findById(partnerId)
+                .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
+        redisTemplate.execute(INIT_SCRIPT, List.of(accountKey(partnerId)),
+                String.valueOf(toCents(partner.getAvailableCredit())),
+                String.valueOf(toCents(partner.getCreditLimit())),
+                partner.getCode());
+        log.info("Redis credit account loaded from database", kv("partnerId", partnerId));
+    }
+
+    /**
+     * Records the stream entry as committed in the current transaction, compensating it right away if the
+     * transaction rolls back. The reconciler compensates it later if that does not happen.
+     */
+    private void recordCommitted(UUID partnerId, String entryId) {
+        creditStreamEntryRepository.insertCommitted(entryId);
+        TransactionHooks.afterRollback(() -> compensate(partnerId, entryId));
+    }
+
+    private void compensate(MapRecord<String, Object, Object> entry) {
+        compensate(partnerId(entry), entry.getId().getValue());
+    }
+
+    private void compensate(UUID partnerId, String entryId) {
+        try {
+            Long compensated = redisTemplate.execute(COMPENSATE_SCRIPT, keys(partnerId), entryId);
+            if (compensated != null && compensated == 1) {
+                log.info("Redis credit change compensated", kv("partnerId", partnerId), kv("entryId", entryId));
+            }
+        } catch (RuntimeException e) {
+            // the reconciler compensates the entry once the commit grace window has passed
+            log.warn("Failed to compensate Redis credit change", kv("partnerId", partnerId), kv("entryId", entryId), e);
+        }
+    }
+
+    private static UUID partnerId(MapRecord<String, Object, Object> entry) {
+        return UUID.fromString((String) entry.getValue().get("partnerId"));
+    }
+
+    private static List<String> keys(UUID partnerId) {
+        return List.of(accountKey(partnerId), STREAM_KEY);
+    }
+
+    private static String accountKey(UUID partnerId) {
+        return ACCOUNT_KEY_PREFIX + partnerId;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private record Batch(int read, String lastEntryId, List<RecordId> done, List<MapRecord<String, Object, Object>> reverted) {
+    }
+}
@@ -0,0 +1,282 @@
+package br.com.gazintech.orderapp.service.credit;
+
+import br.com.gazintech.orderapp.entity.Partner;
+import br.com.gazintech.orderapp.entity.PartnerCreditShard;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
+import br.com.gazintech.orderapp.repository.PartnerCreditShardRepository;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import br.com.gazintech.orderapp.utils.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Credit engine that splits the credit of hot partners into {@link PartnerCreditShard} sub-accounts.
+ * <p>
+ * A debit picks a random shard and updates only that row when it has enough credit. When the shard runs dry,
+ * every shard of the partner is locked in shard order and the debit borrows from the siblings. The available
+ * credit is the sum of the shards, and the partner row is refreshed from that sum by a scheduled job.
+ * </p>
+ * <p>
+ * The shard debited by the fast path stays locked until the transaction ends. A transaction that already locked
+ * shards of the partner therefore skips the fast path on its next debit and takes the shard order lock, except
+ * for the shards below its fast path shard: waiting for those while another transaction waits for the fast path
+ * shard would deadlock, so they are only taken when free. Such a debit can be refused while other transactions
+ * hold the credit of the lower shards.
+ * </p>
+ * Partners listed in {@code order-app.credit.sharded.hot-partners} get {@code shards} sub-accounts, any other
+ * partner gets a single one, which behaves like the pessimistic mode. Shards are created on first use from the
+ * partner row; the shard count of a partner is fixed once its shards exist.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "order-app.credit.mode", havingValue = "SHARDED")
+public class ShardedCreditEngine implements CreditEngine {
+
+    private final PartnerCreditShardRepository partnerCreditShardRepository;
+    private final PartnerRepository partnerRepository;
+    private final int shards;
+    private final Set<UUID> hotPartners;
+    private final Map<UUID, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    public ShardedCreditEngine(PartnerCreditShardRepository partnerCreditShardRepository,
+                               PartnerRepository partnerRepository,
+                               @Value("${order-app.credit.sharded.shards:8}") int shards,
+                               @Value("${order-app.credit.sharded.hot-partners:}") Set<UUID> hotPartners) {
+        this.partnerCreditShardRepository = partnerCreditShardRepository;
+        this.partnerRepository = partnerRepository;
+        this.shards = shards;
+        this.hotPartners = hotPartners;
+    }
+
+    @Override
+    public void hasAvailableCredit(UUID partnerId, BigDecimal amount) {
+        if (getAvailableCredit(partnerId).compareTo(amount) < 0) {
+            throw insufficientCredit(partnerId);
+        }
+    }
+
+    @Override
+    public void debitCredit(UUID partnerId, BigDecimal amount) {
+        int shardCount = shardCount(partnerId);
+        int shardIndex = ThreadLocalRandom.current().nextInt(shardCount);
+        Map<UUID, Integer> lockedPartners = lockedPartners();
+        // a debit that does not fit the shard locks nothing
+        if (!lockedPartners.containsKey(partnerId)
+                && partnerCreditShardRepository.debitShardIfAvailable(partnerId, shardIndex, amount) == 1) {
+            lockedPartners.put(partnerId, shardIndex);
+            log.debug("Credit debited from shard", kv("partnerId", partnerId), kv("shardIndex", shardIndex), kv("amount", amount));
+            return;
+        }
+
+        List<PartnerCreditShard> partnerShards = lockShards(partnerId);
+        BigDecimal available = partnerShards.stream()
+                .map(PartnerCreditShard::getAvailableCredit)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (available.compareTo(amount) < 0) {
+            throw insufficientCredit(partnerId);
+        }
+
+        BigDecimal remaining = amount;
+        for (int i = 0; i < partnerShards.size() && remaining.signum() > 0; i++) {
+            PartnerCreditShard shard = partnerShards.get((shardIndex + i) % partnerShards.size());
+            BigDecimal taken = remaining.min(shard.getAvailableCredit());
+            shard.setAvailableCredit(shard.getAvailableCredit().subtract(taken));
+            remaining = remaining.subtract(taken);
+        }
+        log.debug("Credit debited borrowing from sibling shards", kv("partnerId", partnerId), kv("amount", amount));
+    }
+
+    @Override
+    public void creditCredit(UUID partnerId, BigDecimal amount) {
+        shardCount(partnerId);
+        List<PartnerCreditShard> partnerShards = lockShards(partnerId);
+
+        int shardIndex = ThreadLocalRandom.current().nextInt(partnerShards.size());
+        BigDecimal remaining = amount;
+        for (int i = 0; i < partnerShards.size() && remaining.signum() > 0; i++) {
+            PartnerCreditShard shard = partnerShards.get((shardIndex + i) % partnerShards.size());
+            BigDecimal given = remaining.min(shard.getCreditLimit().subtract(shard.getAvailableCredit()));
+            if (given.signum() > 0) {
+                shard.setAvailableCredit(shard.getAvailableCredit().add(given));
+                remaining = remaining.subtract(given);
+            }
+        }
+        log.debug("Credit credited to shards", kv("partnerId", partnerId), kv("amount", amount.subtract(remaining)));
+    }
+
+    /**
+     * Sums the shards of the partner. Partners not split yet are read from the partner row, so reads never
+     * create shards outside of a transaction.
+     */
+    @Override
+    public BigDecimal getAvailableCredit(UUID partnerId) {
+        if (existingShardCount(partnerId) == 0) {
+            return partnerRepository.findById(partnerId)
+                    .map(Partner::getAvailableCredit)
+                    .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
+        }
+        return partnerCreditShardRepository.sumAvailableCredit(partnerId);
+    }
+
+    /**
+     * Keeps the used credit of the partner and spreads the new limit and available credit evenly over the shards.
+     */
+    @Override
+    public void updateCreditLimit(UUID partnerId, BigDecimal newLimit) {
+        shardCount(partnerId);
+        List<PartnerCreditShard> partnerShards = partnerCreditShardRepository.findAllByPartnerIdWithLock(partnerId);
+        lockedPartners().putIfAbsent(partnerId, 0);
+
+        BigDecimal usedCredit = partnerShards.stream()
+                .map(shard -> shard.getCreditLimit().subtract(shard.getAvailableCredit()))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal newAvailable = newLimit.subtract(usedCredit).max(BigDecimal.ZERO);
+
+        List<BigDecimal> limits = split(newLimit, partnerShards.size());
+        List<BigDecimal> availables = split(newAvailable, partnerShards.size());
+        for (int i = 0; i < partnerShards.size(); i++) {
+            partnerShards.get(i).setCreditLimit(limits.get(i));
+            partnerShards.get(i).setAvailableCredit(availables.get(i));
+        }
+        partnerRepository.updateCreditLimit(partnerId, newLimit);
+    }
+
+    /**
+     * Copies the sum of the shards to the partner rows.
+     */
+    @Scheduled(fixedDelayString = "${order-app.credit.sharded.sync-interval-ms:5000}")
+    public void syncPartners() {
+        int updated = partnerCreditShardRepository.syncPartners();
+        log.debug("Partner credit synchronized from shards", kv("partners", updated));
+    }
+
+    /**
+     * Locks the shards of the partner in shard order. Shards below the one the fast path debited in the current
+     * transaction are only taken when no other transaction holds them.
+     */
+    private List<PartnerCreditShard> lockShards(UUID partnerId) {
+        Map<UUID, Integer> lockedPartners = lockedPartners();
+        int fastPathShard = lockedPartners.getOrDefault(partnerId, 0);
+        List<PartnerCreditShard> partnerShards = new ArrayList<>();
+        if (fastPathShard > 0) {
+            partnerShards.addAll(partnerCreditShardRepository.findFreeBelowShardWithLock(partnerId, fastPathShard));
+        }
+        partnerShards.addAll(partnerCreditShardRepository.findFromShardWithLock(partnerId, fastPathShard));
+        lockedPartners.putIfAbsent(partnerId, 0);
+        return partnerShards;
+    }
+
+    /**
+     * Returns the partners whose shards the current transaction locked, with the shard the fast path debited,
+     * or 0 when it locked them in shard order only.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<UUID, Integer> lockedPartners() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new HashMap<>();
+        }
+        Map<UUID, Integer> lockedPartners = (Map<UUID, Integer>) TransactionSynchronizationManager.getResource(this);
+        if (lockedPartners != null) {
+            return lockedPartners;
+        }
+
+        Map<UUID, Integer> created = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ShardedCreditEngine.this);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Returns the number of shards of the partner, splitting the partner row into shards on first use.
+     */
+    private int shardCount(UUID partnerId) {
+        int existing = existingShardCount(partnerId);
+        return existing > 0 ? existing : createShards(partnerId);
+    }
+
+    /**
+     * Returns the number of shards the partner already has, or 0. Only existing counts are cached,
+     * since shards are never removed once created.
+     */
+    private int existingShardCount(UUID partnerId) {
+        Integer cached = shardCounts.get(partnerId);
+        if (cached != null) {
+            return cached;
+        }
+        int existing = (int) partnerCreditShardRepository.countByPartnerId(partnerId);
+        if (existing > 0) {
+            shardCounts.put(partnerId, existing);
+        }
+        return existing;
+    }
+
+    private int createShards(UUID partnerId) {
+        Partner partner = partnerRepository.findByIdWithLock(partnerId)
+                .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
+        long existing = partnerCreditShardRepository.countByPartnerId(partnerId);
+        if (existing > 0) {
+            return (int) existing;
+        }
+
+        int shardCount = hotPartners.contains(partnerId) ? shards : 1;
+        List<BigDecimal> limits = split(partner.getCreditLimit(), shardCount);
+        List<BigDecimal> availables = split(partner.getAvailableCredit(), shardCount);
+        List<PartnerCreditShard> partnerShards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            partnerShards.add(PartnerCreditShard.builder()
+                    .partnerId(partnerId)
+                    .shardIndex(i)
+                    .creditLimit(limits.get(i))
+                    .availableCredit(availables.get(i))
+                    .build());
+        }
+        partnerCreditShardRepository.saveAllAndFlush(partnerShards);
+        TransactionHooks.afterRollback(() -> shardCounts.remove(partnerId));
+
+        log.info("Partner credit split into shards", kv("partnerId", partnerId), kv("shards", shardCount));
+        return shardCount;
+    }
+
+    private InsufficientBalanceException insufficientCredit(UUID partnerId) {
+        Partner partner = partnerRepository.findById(partnerId)
+                .orElseThrow(() -> new PartnerNotFoundException("Partner not found: " + partnerId));
+        return new InsufficientBalanceException("Insufficient credit for partner: " + partner.getCode());
+    }
+
+    /**
+     * Splits an amount into equal parts in cents, giving the remainder to the first parts, so the parts
+     * of an available credit never exceed the parts of a greater or equal limit.
+     */
+    static List<BigDecimal> split(BigDecimal amount, int parts) {
+        long cents = amount.movePointRight(2).longValueExact();
+        List<BigDecimal> split = new ArrayList<>(parts);
+        for (int i = 0; i < parts; i++) {
+            long part = cents / parts + (i < cents % parts ? 1 : 0);
+            split.add(BigDecimal.valueOf(part, 2));
+        }
+        return split;
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.gazintech.orderapp.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.function.Supplier;
+
+/**
+ * Utility class to run reads on the read replica, when one is configured.
+ * <p>
+ * Connections are only taken at the first statement of a transaction and then kept until it ends, so
+ * {@link #onReplica(Supplier)} must wrap the first statement to have any effect. Everything else runs on the
+ * primary, including the read-only transactions Spring Data opens on its own.
+ * </p>
+ * Only reads may run on the replica, it rejects writes.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA_REQUESTED = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Runs the reads on the replica.
+     *
+     * @param reads the reads to run
+     * @param <T>   the type of the result
+     * @return the result of the reads
+     */
+    public static <T> T onReplica(Supplier<T> reads) {
+        if (REPLICA_REQUESTED.get()) {
+            return reads.get();
+        }
+        REPLICA_REQUESTED.set(true);
+        try {
+            return reads.get();
+        } finally {
+            REPLICA_REQUESTED.remove();
+        }
+    }
+
+    /**
+     * @return whether the current reads asked for the replica
+     */
+    public static boolean isReplicaRequested() {
+        return REPLICA_REQUESTED.get();
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.gazintech.orderapp.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utility class to run callbacks when the current transaction completes.
+ * Used by code that changes state outside the database and has to follow the outcome of the transaction.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TransactionHooks {
+
+    /**
+     * Runs the callback if the current transaction rolls back.
+     * Does nothing when there is no active transaction, since there is nothing to roll back.
+     *
+     * @param callback the callback to run after a rollback
+     */
+    public static void afterRollback(Runnable callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    callback.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the callback once the current transaction commits.
+     * Runs it right away when there is no active transaction, since the changes are already visible.
+     *
+     * @param callback the callback to run after a commit
+     */
+    public static void afterCommit(Runnable callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                callback.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,22 @@
+-- Reverts the change of a stream entry whose transaction did not commit, removing the entry in the same step,
+-- so an entry is compensated at most once however many times this runs.
+-- KEYS[1] account hash, KEYS[2] delta stream
+-- ARGV[1] stream entry id
+-- Returns 0 when the entry is no longer in the stream, otherwise 1.
+local entries = redis.call('XRANGE', KEYS[2], ARGV[1], ARGV[1])
+if #entries == 0 then
+    return 0
+end
+local fields = entries[1][2]
+local entry = {}
+for i = 1, #fields, 2 do
+    entry[fields[i]] = fields[i + 1]
+end
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    redis.call('HINCRBY', KEYS[1], 'available', -tonumber(entry['delta']))
+    if entry['previousLimit'] then
+        redis.call('HSET', KEYS[1], 'limit', entry['previousLimit'])
+    end
+end
+redis.call('XDEL', KEYS[2], ARGV[1])
+return 1
@@ -0,0 +1,17 @@
+-- Credits an account up to its limit, and appends the applied delta to the stream.
+-- KEYS[1] account hash, KEYS[2] delta stream
+-- ARGV[1] amount in cents, ARGV[2] partner id
+-- Returns { -1 } when the account is not loaded, { 0 } when nothing was credited,
+-- otherwise { credited cents, stream entry id }.
+local account = redis.call('HMGET', KEYS[1], 'available', 'limit')
+if not account[1] then
+    return { -1 }
+end
+local available = tonumber(account[1])
+local applied = math.max(0, math.min(tonumber(ARGV[1]), tonumber(account[2]) - available))
+if applied == 0 then
+    return { 0 }
+end
+redis.call('HINCRBY', KEYS[1], 'available', applied)
+local id = redis.call('XADD', KEYS[2], '*', 'partnerId', ARGV[2], 'delta', string.format('%d', applied))
+return { applied, id }
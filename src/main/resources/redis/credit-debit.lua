@@ -0,0 +1,15 @@
+-- Debits an account only if it has enough credit, and appends the delta to the stream.
+-- KEYS[1] account hash, KEYS[2] delta stream
+-- ARGV[1] amount in cents, ARGV[2] partner id
+-- Returns { -1 } when the account is not loaded, { 0 } when the credit is insufficient,
+-- otherwise { 1, stream entry id }.
+local available = redis.call('HGET', KEYS[1], 'available')
+if not available then
+    return { -1 }
+end
+if tonumber(available) < tonumber(ARGV[1]) then
+    return { 0 }
+end
+redis.call('HINCRBY', KEYS[1], 'available', -tonumber(ARGV[1]))
+local id = redis.call('XADD', KEYS[2], '*', 'partnerId', ARGV[2], 'delta', string.format('%d', -tonumber(ARGV[1])))
+return { 1, id }
@@ -0,0 +1,8 @@
+-- Seeds a partner account from the database unless Redis already owns it.
+-- KEYS[1] account hash
+-- ARGV[1] available credit in cents, ARGV[2] credit limit in cents, ARGV[3] partner code
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'available', ARGV[1], 'limit', ARGV[2], 'code', ARGV[3])
+return 1
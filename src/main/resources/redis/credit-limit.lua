@@ -0,0 +1,18 @@
+-- Changes the credit limit keeping the used credit, and appends the available credit delta to the stream
+-- with the previous limit, so the change can be compensated.
+-- KEYS[1] account hash, KEYS[2] delta stream
+-- ARGV[1] new limit in cents, ARGV[2] partner id
+-- Returns nil when the account is not loaded, otherwise { available delta in cents, stream entry id }.
+local account = redis.call('HMGET', KEYS[1], 'available', 'limit')
+if not account[1] then
+    return nil
+end
+local available = tonumber(account[1])
+local limit = tonumber(account[2])
+local newLimit = tonumber(ARGV[1])
+local newAvailable = math.max(0, newLimit - (limit - available))
+local delta = newAvailable - available
+redis.call('HSET', KEYS[1], 'available', newAvailable, 'limit', newLimit)
+local id = redis.call('XADD', KEYS[2], '*', 'partnerId', ARGV[2], 'delta', string.format('%d', delta),
+        'previousLimit', string.format('%d', limit))
+return { delta, id }
@@ -0,0 +1,169 @@
+package br.com.gazintech.orderapp;
+
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.entity.OrderItem;
+import br.com.gazintech.orderapp.entity.Partner;
+import br.com.gazintech.orderapp.repository.OrderRepository;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HTTP load benchmark with 2000 concurrent clients, which goes through Tomcat, Redis and JDBC.
+ * Clients alternate between reading an order by ID and searching the orders of a partner with an exact count.
+ * Every read asks for an order no other request read, so it misses the cache and reaches the database,
+ * and the search cache is disabled, so searches always run their queries.
+ * Subclasses run it with platform and with virtual request threads so their latencies can be compared.
+ * Server virtual threads pinned to their carrier during the run fail the benchmark.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = "order-app.orders.search-cache.enabled=false")
+public abstract class AbstractHttpLoadBenchmark extends AbstractIntegrationTest {
+
+    private static final int CLIENTS = 2_000;
+    private static final int REQUESTS_PER_CLIENT = 6;
+    private static final String CLIENT_THREAD_PREFIX = "load-client-";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /**
+     * Name of the threading mode, used in the report.
+     *
+     * @return the threading mode
+     */
+    protected abstract String threadingMode();
+
+    @Test
+    @DisplayName("Should serve 2000 concurrent clients")
+    void shouldServeConcurrentClients() throws InterruptedException {
+        Partner partner = createPartner(BigDecimal.valueOf(1000), BigDecimal.valueOf(1000));
+        // half of the requests read an order, each a different one
+        List<UUID> orderIds = createOrders(partner, CLIENTS * REQUESTS_PER_CLIENT / 2);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        String baseUrl = "http://localhost:" + port + "/v1/orders";
+
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger pinned = new AtomicInteger();
+        List<Long> readLatencies = Collections.synchronizedList(new ArrayList<>(orderIds.size()));
+        List<Long> searchLatencies = Collections.synchronizedList(new ArrayList<>(orderIds.size()));
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (RecordingStream recording = new RecordingStream();
+             ExecutorService clients = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(CLIENT_THREAD_PREFIX, 0).factory())) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(20));
+            recording.onEvent("jdk.VirtualThreadPinned", event -> {
+                // only pins of the server count, not those of the load clients
+                RecordedThread thread = event.getThread("eventThread");
+                if (thread == null || thread.getJavaName() == null || !thread.getJavaName().startsWith(CLIENT_THREAD_PREFIX)) {
+                    pinned.incrementAndGet();
+                }
+            });
+            recording.startAsync();
+
+            for (int i = 0; i < CLIENTS; i++) {
+                int client = i;
+                clients.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < REQUESTS_PER_CLIENT; j++) {
+                        int request = client * REQUESTS_PER_CLIENT + j;
+                        boolean read = request % 2 == 0;
+                        URI uri = read
+                                ? URI.create(baseUrl + "/" + orderIds.get(request / 2))
+                                : URI.create(baseUrl + "?partner-id=" + partner.getId() + "&count=exact&page=" + (request / 2) % 50);
+                        long begin = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(uri).GET().build(),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                failed.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        } finally {
+                            (read ? readLatencies : searchLatencies).add(System.nanoTime() - begin);
+                        }
+                    }
+                    return null;
+                });
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            clients.shutdown();
+            assertTrue(clients.awaitTermination(5, TimeUnit.MINUTES));
+            long elapsedNanos = System.nanoTime() - begin;
+            report("read", elapsedNanos, readLatencies, pinned.get());
+            report("search", elapsedNanos, searchLatencies, pinned.get());
+        }
+
+        assertEquals(0, failed.get());
+        assertEquals(0, pinned.get(), "server virtual threads were pinned to their carrier");
+    }
+
+    private List<UUID> createOrders(Partner partner, int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = Order.builder()
+                    .partner(partner)
+                    .items(new ArrayList<>())
+                    .totalValue(BigDecimal.TEN)
+                    .status(Order.OrderStatus.PENDING)
+                    .build();
+            order.getItems().add(OrderItem.builder().order(order).code("001").name("Item 1").quantity(1).price(BigDecimal.TEN).build());
+            orders.add(order);
+        }
+        return orderRepository.saveAll(orders).stream().map(Order::getId).toList();
+    }
+
+    private void report(String endpoint, long elapsedNanos, List<Long> latencies, int pinned) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        int requests = sorted.size();
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        log.info("Load benchmark finished", kv("threads", threadingMode()), kv("endpoint", endpoint), kv("clients", CLIENTS),
+                kv("requests", requests), kv("elapsedMs", elapsedNanos / 1_000_000), kv("throughputPerSecond", Math.round(requests / seconds)),
+                kv("p50Ms", percentile(sorted, 0.50) / 1_000_000.0), kv("p99Ms", percentile(sorted, 0.99) / 1_000_000.0), kv("pinned", pinned));
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
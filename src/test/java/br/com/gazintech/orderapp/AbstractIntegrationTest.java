@@ -1,7 +1,10 @@
 package br.com.gazintech.orderapp;
 
+import br.com.gazintech.orderapp.entity.Partner;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
 import com.redis.testcontainers.RedisContainer;
 import org.junit.jupiter.api.BeforeAll;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -9,6 +12,9 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.math.BigDecimal;
+import java.util.UUID;
+
 @SpringBootTest
 @Testcontainers
 public abstract class AbstractIntegrationTest {
@@ -23,6 +29,9 @@ public abstract class AbstractIntegrationTest {
     private static final RedisContainer redisContainer = new RedisContainer("redis:8")
             .withExposedPorts(6379);
 
+    @Autowired
+    private PartnerRepository partnerRepository;
+
     @BeforeAll
     static void setUp() {
         postgresContainer.start();
@@ -38,4 +47,33 @@ public abstract class AbstractIntegrationTest {
         registry.add("spring.data.redis.host", redisContainer::getHost);
         registry.add("spring.data.redis.port", redisContainer::getFirstMappedPort);
     }
-}
\ No newline at end of file
+
+    /**
+     * Saves an active partner with a unique code.
+     *
+     * @param creditLimit     the credit limit of the partner
+     * @param availableCredit the credit the partner can still spend
+     * @return the saved partner
+     */
+    protected Partner createPartner(BigDecimal creditLimit, BigDecimal availableCredit) {
+        return partnerRepository.save(newPartner(creditLimit, availableCredit));
+    }
+
+    /**
+     * Builds an active partner with a unique code, for tests running on containers of their own.
+     *
+     * @param creditLimit     the credit limit of the partner
+     * @param availableCredit the credit the partner can still spend
+     * @return the partner, not saved yet
+     */
+    public static Partner newPartner(BigDecimal creditLimit, BigDecimal availableCredit) {
+        Partner partner = new Partner();
+        partner.setName("Test Partner");
+        partner.setCode("TST-" + UUID.randomUUID().toString().substring(0, 8));
+        partner.setEmail("partner@mock.com");
+        partner.setCreditLimit(creditLimit);
+        partner.setAvailableCredit(availableCredit);
+        partner.setActive(true);
+        return partner;
+    }
+}
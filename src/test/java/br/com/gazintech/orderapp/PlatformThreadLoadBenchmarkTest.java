@@ -0,0 +1,12 @@
+package br.com.gazintech.orderapp;
+
+import org.junit.jupiter.api.DisplayName;
+
+@DisplayName("HTTP load benchmark on platform threads")
+class PlatformThreadLoadBenchmarkTest extends AbstractHttpLoadBenchmark {
+
+    @Override
+    protected String threadingMode() {
+        return "platform";
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.gazintech.orderapp;
+
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("virtual-threads")
+@DisplayName("HTTP load benchmark on virtual threads")
+class VirtualThreadLoadBenchmarkTest extends AbstractHttpLoadBenchmark {
+
+    @Override
+    protected String threadingMode() {
+        return "virtual";
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.gazintech.orderapp.configuration;
+
+import br.com.gazintech.orderapp.dto.OrderSearchResultDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("CacheConfiguration Unit Tests")
+class CacheConfigurationTest {
+
+    private final CustomJackson2JsonRedisSerializer serializer =
+            new CustomJackson2JsonRedisSerializer(new CacheConfiguration().redisObjectMapper());
+
+    @Test
+    @DisplayName("Should read back values holding JDK immutable collections")
+    void shouldReadBackValuesHoldingImmutableCollections() {
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        OrderSearchResultDTO result = new OrderSearchResultDTO(ids.stream().toList(), 3L, true);
+
+        OrderSearchResultDTO read = (OrderSearchResultDTO) serializer.deserialize(serializer.serialize(result));
+
+        assertEquals(ids, read.getIds());
+        assertEquals(3L, read.getTotalItems());
+    }
+
+    @Test
+    @DisplayName("Should read back JDK immutable collections as values")
+    void shouldReadBackImmutableCollectionsAsValues() {
+        assertEquals(List.of("a"), serializer.deserialize(serializer.serialize(List.of("a"))));
+        assertEquals(Set.of("a", "b"), serializer.deserialize(serializer.serialize(Set.of("a", "b"))));
+        assertEquals(Map.of("a", "b"), serializer.deserialize(serializer.serialize(Map.of("a", "b"))));
+    }
+}
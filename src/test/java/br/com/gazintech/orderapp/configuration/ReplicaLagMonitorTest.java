@@ -0,0 +1,92 @@
+package br.com.gazintech.orderapp.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReplicaLagMonitor Unit Tests")
+class ReplicaLagMonitorTest {
+
+    private static final String PRIMARY_POSITION = "0/3000060";
+
+    @Mock
+    private JdbcTemplate primaryJdbcTemplate;
+
+    @Mock
+    private JdbcTemplate replicaJdbcTemplate;
+
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @BeforeEach
+    void setUp() {
+        replicaLagMonitor = monitor(Duration.ofMinutes(1));
+        when(primaryJdbcTemplate.queryForObject(anyString(), eq(String.class))).thenReturn(PRIMARY_POSITION);
+    }
+
+    @Test
+    @DisplayName("Should keep the replica in the read path once it replayed the position of the primary")
+    void shouldKeepReplicaOnceItReplayedPrimaryPosition() {
+        when(replicaJdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(PRIMARY_POSITION))).thenReturn(0L);
+
+        replicaLagMonitor.checkLag();
+
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+    }
+
+    @Test
+    @DisplayName("Should take the replica out of the read path while it lags more than the maximum")
+    void shouldTakeReplicaOutWhileItLagsMoreThanMaximum() {
+        when(replicaJdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(PRIMARY_POSITION))).thenReturn(5_001L);
+
+        replicaLagMonitor.checkLag();
+
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+    }
+
+    @Test
+    @DisplayName("Should take the replica out of the read path when the lag cannot be measured")
+    void shouldTakeReplicaOutWhenLagCannotBeMeasured() {
+        when(replicaJdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(PRIMARY_POSITION)))
+                .thenReturn(0L)
+                .thenThrow(new DataAccessResourceFailureException("replica down"));
+
+        replicaLagMonitor.checkLag();
+        replicaLagMonitor.checkLag();
+
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+    }
+
+    @Test
+    @DisplayName("Should take the replica out of the read path once the last measurement is stale")
+    void shouldTakeReplicaOutOnceLastMeasurementIsStale() throws InterruptedException {
+        replicaLagMonitor = monitor(Duration.ofMillis(100));
+        when(replicaJdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(PRIMARY_POSITION))).thenReturn(0L);
+
+        replicaLagMonitor.checkLag();
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+
+        // no check ran for more than the allowed number of intervals
+        Thread.sleep(100 * (ReplicaLagMonitor.STALE_AFTER_CHECKS + 1));
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+    }
+
+    private ReplicaLagMonitor monitor(Duration checkInterval) {
+        return new ReplicaLagMonitor(primaryJdbcTemplate, replicaJdbcTemplate, Duration.ofSeconds(5), checkInterval,
+                new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,203 @@
+package br.com.gazintech.orderapp.configuration;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.api.SortDirection;
+import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
+import br.com.gazintech.orderapp.dto.OrderResponseDTO;
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.repository.OrderRepository;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import br.com.gazintech.orderapp.repository.specification.OrderSpecifications;
+import br.com.gazintech.orderapp.service.OrderService;
+import br.com.gazintech.orderapp.utils.ReplicaRouting;
+import com.redis.testcontainers.RedisContainer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a primary and a hot standby streaming from it. Pausing the WAL replay of the standby makes it lag
+ * on demand, so a read shows which database served it.
+ */
+@SpringBootTest(properties = {
+        "order-app.datasource.replica.enabled=true",
+        "order-app.datasource.replica.max-lag=PT1M",
+        "order-app.orders.search-cache.enabled=false"
+})
+@Testcontainers
+@DisplayName("Read replica routing Integration Tests")
+class ReplicaRoutingTest {
+
+    private static final Network network = Network.newNetwork();
+
+    // the image only allows replication connections from localhost
+    private static final String ALLOW_REPLICATION = """
+            #!/bin/bash
+            echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
+            """;
+
+    @Container
+    private static final PostgreSQLContainer<?> primaryContainer = new PostgreSQLContainer<>("postgres:17")
+            .withDatabaseName("orderApp")
+            .withUsername("test")
+            .withPassword("test")
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withCopyToContainer(Transferable.of(ALLOW_REPLICATION, 0755), "/docker-entrypoint-initdb.d/allow-replication.sh");
+
+    @Container
+    private static final GenericContainer<?> replicaContainer = new GenericContainer<>("postgres:17")
+            .withNetwork(network)
+            .dependsOn(primaryContainer)
+            .withEnv("PGPASSWORD", "test")
+            .withExposedPorts(5432)
+            // clones the primary and starts as a standby streaming from it
+            .withCreateContainerCmdModifier(cmd -> cmd.withEntrypoint("bash", "-c"))
+            .withCommand("gosu postgres pg_basebackup -h primary -U test -D /var/lib/postgresql/data -R -X stream"
+                    + " && exec docker-entrypoint.sh postgres")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept read-only connections.*\\s", 1));
+
+    @Container
+    private static final RedisContainer redisContainer = new RedisContainer("redis:8")
+            .withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primaryContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", primaryContainer::getUsername);
+        registry.add("spring.datasource.password", primaryContainer::getPassword);
+        registry.add("order-app.datasource.replica.url",
+                () -> "jdbc:postgresql://%s:%d/orderApp".formatted(replicaContainer.getHost(), replicaContainer.getMappedPort(5432)));
+        registry.add("spring.data.redis.host", redisContainer::getHost);
+        registry.add("spring.data.redis.port", redisContainer::getFirstMappedPort);
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PartnerRepository partnerRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    private UUID partnerId;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = partnerRepository.save(AbstractIntegrationTest.newPartner(BigDecimal.valueOf(1000), BigDecimal.valueOf(1000))).getId();
+
+        replicaLagMonitor.checkLag();
+    }
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(replicaDataSource).execute("SELECT pg_wal_replay_resume()");
+        orderRepository.deleteAll(orderRepository.findAll(
+                OrderSpecifications.bySearchDto(OrderSearchDTO.builder().partnerId(partnerId).build())));
+    }
+
+    @Test
+    @DisplayName("Should run the reads asking for the replica on it and the others on the primary")
+    void shouldRunReadsAskingForReplicaOnIt() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+        assertEquals(Boolean.TRUE, readOnly.execute(status -> ReplicaRouting.onReplica(() -> inRecovery(jdbcTemplate))));
+        assertEquals(Boolean.FALSE, readOnly.execute(status -> inRecovery(jdbcTemplate)));
+    }
+
+    @Test
+    @DisplayName("Should read a freshly written order from the primary while the replica lags")
+    void shouldReadFreshlyWrittenOrderFromPrimaryWhileReplicaLags() {
+        pauseReplay();
+        UUID orderId = createOrder().getId();
+        cacheManager.getCache("orders").evict(orderId);
+
+        assertEquals(orderId, orderService.getOrderById(orderId).getId());
+        assertEquals(1, orderService.searchOrders(search(partnerId, null)).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Should serve other reads from the replica while it lags")
+    void shouldServeOtherReadsFromReplicaWhileItLags() {
+        pauseReplay();
+        UUID orderId = createOrder().getId();
+
+        List<OrderResponseDTO> pending = orderService.searchOrders(search(null, Order.OrderStatus.PENDING)).getContent();
+
+        assertTrue(pending.stream().noneMatch(order -> order.getId().equals(orderId)));
+    }
+
+    private OrderResponseDTO createOrder() {
+        return orderService.createOrder(OrderPostRequestDTO.builder()
+                .partnerId(partnerId)
+                .items(List.of(OrderPostRequestDTO.OrderItemDTO.builder().name("Item 1").code("001").quantity(1).price(BigDecimal.TEN).build()))
+                .build());
+    }
+
+    private void pauseReplay() {
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("SELECT pg_wal_replay_pause()");
+        // the replay checks for a pause request before each record, so nothing written from now on is replayed
+        assertNotEquals("not paused", replica.queryForObject("SELECT pg_get_wal_replay_pause_state()", String.class));
+    }
+
+    private static Boolean inRecovery(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class);
+    }
+
+    private static OrderSearchDTO search(UUID partnerId, Order.OrderStatus status) {
+        return OrderSearchDTO.builder()
+                .partnerId(partnerId)
+                .status(status)
+                .page(0)
+                .size(100)
+                .sortBy("createdAt")
+                .sortDirection(SortDirection.DESC)
+                .build();
+    }
+}
@@ -0,0 +1,173 @@
+package br.com.gazintech.orderapp.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TwoLevelCacheManager Unit Tests")
+class TwoLevelCacheManagerTest {
+
+    private static final String CHANNEL = "order-app:cache:invalidation";
+
+    @Mock
+    private CacheManager redisCacheManager;
+
+    @Mock
+    private Cache redisCache;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TwoLevelCacheManager cacheManager;
+
+    private final UUID key = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisCacheManager.getCache("orders")).thenReturn(redisCache);
+        cacheManager = new TwoLevelCacheManager(redisCacheManager,
+                Caffeine.newBuilder().maximumSize(100).expireAfterWrite(Duration.ofMinutes(1)),
+                Set.of("orders"), new GenericJackson2JsonRedisSerializer(), redisTemplate, CHANNEL, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should answer repeated reads from the local tier")
+    void shouldAnswerRepeatedReadsFromLocalTier() {
+        when(redisCache.get(key)).thenReturn(new SimpleValueWrapper("order"));
+        Cache cache = cacheManager.getCache("orders");
+
+        assertEquals("order", cache.get(key).get());
+        assertEquals("order", cache.get(key).get());
+
+        verify(redisCache, times(1)).get(key);
+        assertEquals(0.5, hitRatio("l1"));
+        assertEquals(1.0, hitRatio("l2"));
+    }
+
+    @Test
+    @DisplayName("Should hand out a copy of the local value on every read")
+    void shouldHandOutCopyOfLocalValueOnEveryRead() {
+        Cache cache = cacheManager.getCache("orders");
+        cache.put(key, new ArrayList<>(List.of("item")));
+
+        @SuppressWarnings("unchecked")
+        List<String> first = (List<String>) cache.get(key).get();
+        first.add("changed by a caller");
+
+        assertEquals(List.of("item"), cache.get(key).get());
+        verify(redisCache, never()).get(key);
+    }
+
+    @Test
+    @DisplayName("Should not keep a value read from Redis before an invalidation of the key")
+    void shouldNotKeepValueReadBeforeInvalidation() {
+        when(redisCache.get(key)).thenAnswer(invocation -> {
+            // another node changes the key while this read is in flight
+            cacheManager.onMessage(message("other-node:orders:" + key), null);
+            return new SimpleValueWrapper("stale order");
+        });
+        Cache cache = cacheManager.getCache("orders");
+
+        assertEquals("stale order", cache.get(key).get());
+        cache.get(key);
+
+        verify(redisCache, times(2)).get(key);
+    }
+
+    @Test
+    @DisplayName("Should write to Redis and announce the key on put")
+    void shouldWriteToRedisAndAnnounceKeyOnPut() {
+        Cache cache = cacheManager.getCache("orders");
+
+        cache.put(key, "order");
+
+        verify(redisCache).put(key, "order");
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), message.capture());
+        assertTrue(message.getValue().endsWith(":orders:" + key));
+        assertEquals("order", cache.get(key).get());
+        verify(redisCache, never()).get(key);
+    }
+
+    @Test
+    @DisplayName("Should drop the local copy when another node changes the key")
+    void shouldDropLocalCopyWhenAnotherNodeChangesKey() {
+        when(redisCache.get(key)).thenReturn(new SimpleValueWrapper("order"));
+        Cache cache = cacheManager.getCache("orders");
+        cache.get(key);
+
+        cacheManager.onMessage(message("other-node:orders:" + key), null);
+        cache.get(key);
+
+        verify(redisCache, times(2)).get(key);
+    }
+
+    @Test
+    @DisplayName("Should keep the local copy on its own invalidation")
+    void shouldKeepLocalCopyOnOwnInvalidation() {
+        Cache cache = cacheManager.getCache("orders");
+        cache.put(key, "order");
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), published.capture());
+
+        cacheManager.onMessage(message(published.getValue()), null);
+
+        assertEquals("order", cache.get(key).get());
+        verify(redisCache, never()).get(key);
+    }
+
+    @Test
+    @DisplayName("Should evict from both tiers")
+    void shouldEvictFromBothTiers() {
+        Cache cache = cacheManager.getCache("orders");
+        cache.put(key, "order");
+
+        cache.evict(key);
+
+        verify(redisCache).evict(key);
+        assertNull(cache.get(key));
+        verify(redisCache).get(key);
+    }
+
+    @Test
+    @DisplayName("Should hand out caches without a local tier as they are")
+    void shouldHandOutCachesWithoutLocalTierAsTheyAre() {
+        Cache countCache = mock(Cache.class);
+        when(redisCacheManager.getCache("orderCounts")).thenReturn(countCache);
+
+        assertSame(countCache, cacheManager.getCache("orderCounts"));
+    }
+
+    private double hitRatio(String tier) {
+        return meterRegistry.get("cache.tier.hit.ratio").tags("cache", "orders", "tier", tier).gauge().value();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
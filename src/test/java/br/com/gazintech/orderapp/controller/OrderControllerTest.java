@@ -2,12 +2,17 @@ package br.com.gazintech.orderapp.controller;
 
 import br.com.gazintech.orderapp.AbstractIntegrationTest;
 import br.com.gazintech.orderapp.api.ApiResponse;
+import br.com.gazintech.orderapp.dto.OrderBatchPostRequestDTO;
+import br.com.gazintech.orderapp.dto.OrderBatchResultDTO;
 import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
 import br.com.gazintech.orderapp.entity.Order;
 import br.com.gazintech.orderapp.entity.OrderItem;
 import br.com.gazintech.orderapp.entity.Partner;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception.InvalidCursorException;
 import br.com.gazintech.orderapp.exception.InvalidOrderStatusException;
 import br.com.gazintech.orderapp.exception.OrderNotFoundException;
+import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
 import br.com.gazintech.orderapp.exception_handler.ExceptionHandlerItem;
 import br.com.gazintech.orderapp.exception_handler.ExceptionHandlerList;
 import br.com.gazintech.orderapp.repository.OrderRepository;
@@ -31,16 +36,23 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import javax.sql.DataSource;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -187,6 +199,86 @@ class OrderControllerTest extends AbstractIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("POST /v1/orders/batch - Create Orders in batch")
+    class CreateOrdersBatchTests {
+
+        @Test
+        @DisplayName("Should create all orders of the batch")
+        void shouldCreateAllOrdersOfBatch() throws Exception {
+            OrderBatchPostRequestDTO batch = OrderBatchPostRequestDTO.builder()
+                    .orders(List.of(
+                            order(partnerCreated.getId(), BigDecimal.valueOf(100)),
+                            order(partnerCreated.getId(), BigDecimal.valueOf(200))
+                    ))
+                    .build();
+
+            mockMvc.perform(post("/v1/orders/batch")
+                            .header("X-Idempotency-Key", UUID.randomUUID().toString())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batch)))
+                    .andDo(print())
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.body", hasSize(2)))
+                    .andExpect(jsonPath("$.body[0].status", is(OrderBatchResultDTO.Status.CREATED.name())))
+                    .andExpect(jsonPath("$.body[1].status", is(OrderBatchResultDTO.Status.CREATED.name())))
+                    .andExpect(jsonPath("$.body[1].order.partner.id", is(partnerCreated.getId().toString())));
+        }
+
+        @Test
+        @DisplayName("Should report the orders that could not be created")
+        void shouldReportOrdersThatCouldNotBeCreated() throws Exception {
+            ExceptionHandlerItem partnerNotFound = handlerList.findByClass(PartnerNotFoundException.class);
+            ExceptionHandlerItem insufficientBalance = handlerList.findByClass(InsufficientBalanceException.class);
+
+            // the partner has 1000 of credit, so the third order no longer fits once the first one is accepted
+            OrderBatchPostRequestDTO batch = OrderBatchPostRequestDTO.builder()
+                    .orders(List.of(
+                            order(partnerCreated.getId(), BigDecimal.valueOf(600)),
+                            order(UUID.randomUUID(), BigDecimal.valueOf(10)),
+                            order(partnerCreated.getId(), BigDecimal.valueOf(500)),
+                            order(partnerCreated.getId(), BigDecimal.valueOf(400))
+                    ))
+                    .build();
+
+            mockMvc.perform(post("/v1/orders/batch")
+                            .header("X-Idempotency-Key", UUID.randomUUID().toString())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batch)))
+                    .andDo(print())
+                    .andExpect(status().isMultiStatus())
+                    .andExpect(jsonPath("$.body", hasSize(4)))
+                    .andExpect(jsonPath("$.body[0].status", is(OrderBatchResultDTO.Status.CREATED.name())))
+                    .andExpect(jsonPath("$.body[1].status", is(OrderBatchResultDTO.Status.FAILED.name())))
+                    .andExpect(jsonPath("$.body[1].error-code", is(partnerNotFound.errorCode())))
+                    .andExpect(jsonPath("$.body[2].status", is(OrderBatchResultDTO.Status.FAILED.name())))
+                    .andExpect(jsonPath("$.body[2].error-code", is(insufficientBalance.errorCode())))
+                    .andExpect(jsonPath("$.body[3].status", is(OrderBatchResultDTO.Status.CREATED.name())))
+                    .andExpect(jsonPath("$.body[3].index", is(3)));
+        }
+
+        @Test
+        @DisplayName("Should return 400 when the batch is empty")
+        void shouldReturn400WhenBatchIsEmpty() throws Exception {
+            ExceptionHandlerItem exception = handlerList.findByClass(MethodArgumentNotValidException.class);
+
+            mockMvc.perform(post("/v1/orders/batch")
+                            .header("X-Idempotency-Key", UUID.randomUUID().toString())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new OrderBatchPostRequestDTO(List.of()))))
+                    .andDo(print())
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error-code", is(exception.errorCode())));
+        }
+
+        private OrderPostRequestDTO order(UUID partnerId, BigDecimal price) {
+            return OrderPostRequestDTO.builder()
+                    .partnerId(partnerId)
+                    .items(List.of(OrderPostRequestDTO.OrderItemDTO.builder().name("Item 1").code("001").quantity(1).price(price).build()))
+                    .build();
+        }
+    }
+
     @Nested
     @DisplayName("GET /v1/orders - Search Orders")
     class SearchOrdersTests {
@@ -272,6 +364,202 @@ class OrderControllerTest extends AbstractIntegrationTest {
                     .andExpect(jsonPath("$.body", hasSize(0)))
                     .andExpect(jsonPath("$.pagination.total-items", is(0)));
         }
+
+        @Test
+        @DisplayName("Should page through orders with a cursor")
+        void shouldPageThroughOrdersWithCursor() throws Exception {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                OrderItem item = new OrderItem();
+                item.setCode("001");
+                item.setName("Test Item");
+                item.setQuantity(1);
+                item.setPrice(BigDecimal.valueOf(10.00));
+                Order orderTest = Order.builder()
+                        .partner(partnerCreated)
+                        .items(List.of(item))
+                        .totalValue(BigDecimal.valueOf(10.00))
+                        .status(Order.OrderStatus.PENDING)
+                        .build();
+                item.setOrder(orderTest);
+                orderRepository.save(orderTest);
+            }
+
+            String cursor = "";
+            for (int pageNumber = 0; pageNumber < 3; pageNumber++) {
+                String response = mockMvc.perform(get("/v1/orders")
+                                .param("partner-id", partnerCreated.getId().toString())
+                                .param("size", "2")
+                                .param("cursor", cursor))
+                        .andDo(print())
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+
+                var body = objectMapper.readTree(response);
+                body.path("body").forEach(order -> ids.add(order.path("id").asText()));
+                cursor = body.path("pagination").path("next-cursor").asText(null);
+                if (pageNumber < 2) {
+                    assertNotNull(cursor);
+                }
+            }
+
+            assertNull(cursor);
+            assertEquals(5, ids.size());
+            assertEquals(5, ids.stream().distinct().count());
+        }
+
+        @Test
+        @DisplayName("Should page without a total when the count is none")
+        void shouldPageWithoutTotalWhenCountIsNone() throws Exception {
+            saveOrders(3);
+
+            mockMvc.perform(get("/v1/orders")
+                            .param("partner-id", partnerCreated.getId().toString())
+                            .param("size", "2")
+                            .param("count", "none"))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.body", hasSize(2)))
+                    .andExpect(jsonPath("$.pagination.has-next", is(true)))
+                    .andExpect(jsonPath("$.pagination.count", is("none")))
+                    .andExpect(jsonPath("$.pagination.total-items").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("Should return the exact total when the count is exact")
+        void shouldReturnExactTotalWhenCountIsExact() throws Exception {
+            saveOrders(3);
+
+            mockMvc.perform(get("/v1/orders")
+                            .param("partner-id", partnerCreated.getId().toString())
+                            .param("size", "2")
+                            .param("count", "EXACT"))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.body", hasSize(2)))
+                    .andExpect(jsonPath("$.pagination.total-items", is(3)))
+                    .andExpect(jsonPath("$.pagination.has-next", is(true)))
+                    .andExpect(jsonPath("$.pagination.count", is("exact")));
+        }
+
+        @Test
+        @DisplayName("Should return 400 when the count mode is invalid")
+        void shouldReturn400WhenCountModeIsInvalid() throws Exception {
+            ExceptionHandlerItem exception = handlerList.findByClass(MethodArgumentTypeMismatchException.class);
+
+            mockMvc.perform(get("/v1/orders")
+                            .param("count", "sometimes"))
+                    .andDo(print())
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error-code", is(exception.errorCode())));
+        }
+
+        @Test
+        @DisplayName("Should return only the selected fields and the id")
+        void shouldReturnOnlySelectedFields() throws Exception {
+            saveOrders(3);
+
+            mockMvc.perform(get("/v1/orders")
+                            .param("partner-id", partnerCreated.getId().toString())
+                            .param("size", "2")
+                            .param("count", "exact")
+                            .param("fields", "status,totalValue"))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.body", hasSize(2)))
+                    .andExpect(jsonPath("$.body[0].id").exists())
+                    .andExpect(jsonPath("$.body[0].status", is(Order.OrderStatus.PENDING.name())))
+                    .andExpect(jsonPath("$.body[0].totalValue").exists())
+                    .andExpect(jsonPath("$.body[0].items").doesNotExist())
+                    .andExpect(jsonPath("$.body[0].partner").doesNotExist())
+                    .andExpect(jsonPath("$.body[0].createdAt").doesNotExist())
+                    .andExpect(jsonPath("$.pagination.total-items", is(3)));
+        }
+
+        @Test
+        @DisplayName("Should page through the selected fields with a cursor")
+        void shouldPageThroughSelectedFieldsWithCursor() throws Exception {
+            saveOrders(3);
+
+            String response = mockMvc.perform(get("/v1/orders")
+                            .param("partner-id", partnerCreated.getId().toString())
+                            .param("size", "2")
+                            .param("cursor", "")
+                            .param("fields", "items"))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.body", hasSize(2)))
+                    .andExpect(jsonPath("$.body[0].items", hasSize(1)))
+                    .andExpect(jsonPath("$.body[0].status").doesNotExist())
+                    .andReturn().getResponse().getContentAsString();
+            String cursor = objectMapper.readTree(response).path("pagination").path("next-cursor").asText();
+
+            mockMvc.perform(get("/v1/orders")
+                            .param("partner-id", partnerCreated.getId().toString())
+                            .param("size", "2")
+                            .param("cursor", cursor)
+                            .param("fields", "items"))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.body", hasSize(1)))
+                    .andExpect(jsonPath("$.body[0].items", hasSize(1)));
+        }
+
+        @Test
+        @DisplayName("Should return 400 when a field is unknown")
+        void shouldReturn400WhenFieldIsUnknown() throws Exception {
+            ExceptionHandlerItem exception = handlerList.findByClass(MethodArgumentTypeMismatchException.class);
+
+            mockMvc.perform(get("/v1/orders")
+                            .param("fields", "id,secret"))
+                    .andDo(print())
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error-code", is(exception.errorCode())));
+        }
+
+        private void saveOrders(int count) {
+            for (int i = 0; i < count; i++) {
+                OrderItem item = new OrderItem();
+                item.setCode("001");
+                item.setName("Test Item");
+                item.setQuantity(1);
+                item.setPrice(BigDecimal.valueOf(10.00));
+                Order orderTest = Order.builder()
+                        .partner(partnerCreated)
+                        .items(List.of(item))
+                        .totalValue(BigDecimal.valueOf(10.00))
+                        .status(Order.OrderStatus.PENDING)
+                        .build();
+                item.setOrder(orderTest);
+                orderRepository.save(orderTest);
+            }
+        }
+
+        @Test
+        @DisplayName("Should return 400 when the cursor is invalid")
+        void shouldReturn400WhenCursorIsInvalid() throws Exception {
+            ExceptionHandlerItem exception = handlerList.findByClass(InvalidCursorException.class);
+
+            mockMvc.perform(get("/v1/orders")
+                            .param("cursor", "not-a-cursor"))
+                    .andDo(print())
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error-code", is(exception.errorCode())));
+        }
+
+        @Test
+        @DisplayName("Should return 400 when the cursor date is out of range")
+        void shouldReturn400WhenCursorDateIsOutOfRange() throws Exception {
+            ExceptionHandlerItem exception = handlerList.findByClass(InvalidCursorException.class);
+            String cursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((Long.MAX_VALUE + "|" + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8));
+
+            mockMvc.perform(get("/v1/orders")
+                            .param("cursor", cursor))
+                    .andDo(print())
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error-code", is(exception.errorCode())));
+        }
     }
 
     @Nested
@@ -308,6 +596,37 @@ class OrderControllerTest extends AbstractIntegrationTest {
 
         }
 
+        @Test
+        @DisplayName("Should return only the selected fields of the order and its id")
+        void shouldReturnOnlySelectedFieldsOfOrder() throws Exception {
+            OrderItem item = new OrderItem();
+            item.setCode("001");
+            item.setName("Test Item");
+            item.setQuantity(1);
+            item.setPrice(BigDecimal.TEN);
+
+            Order orderTest = Order.builder()
+                    .partner(partnerCreated)
+                    .items(List.of(item))
+                    .totalValue(BigDecimal.TEN)
+                    .status(Order.OrderStatus.PENDING)
+                    .build();
+
+            item.setOrder(orderTest);
+
+            Order saved = orderRepository.save(orderTest);
+
+            mockMvc.perform(get("/v1/orders/{id}", saved.getId())
+                            .param("fields", "status"))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.body.id", is(saved.getId().toString())))
+                    .andExpect(jsonPath("$.body.status", is(Order.OrderStatus.PENDING.name())))
+                    .andExpect(jsonPath("$.body.partner").doesNotExist())
+                    .andExpect(jsonPath("$.body.items").doesNotExist())
+                    .andExpect(jsonPath("$.body.totalValue").doesNotExist());
+        }
+
         @Test
         @DisplayName("Should return 404 when order not found")
         void shouldReturn404WhenOrderNotFound() throws Exception {
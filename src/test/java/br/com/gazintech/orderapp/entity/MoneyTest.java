@@ -0,0 +1,75 @@
+package br.com.gazintech.orderapp.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Money Unit Tests")
+class MoneyTest {
+
+    @Test
+    @DisplayName("Should reject fractions of a cent instead of rounding them")
+    void shouldRejectFractionsOfCent() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("12.345")));
+        assertEquals(1234L, Money.of(new BigDecimal("12.340")).cents());
+        assertEquals(new BigDecimal("12.30"), Money.of(new BigDecimal("12.3")).toBigDecimal());
+    }
+
+    @Test
+    @DisplayName("Should fail instead of wrapping around on overflow")
+    void shouldFailInsteadOfWrappingAroundOnOverflow() {
+        Money max = Money.ofCents(Long.MAX_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> max.times(2));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MIN_VALUE).minus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("99999999999999999.99")));
+    }
+
+    @Test
+    @DisplayName("Should calculate the order total from item subtotals")
+    void shouldCalculateOrderTotalFromItemSubtotals() {
+        Order order = Order.builder()
+                .items(List.of(
+                        OrderItem.builder().quantity(2).price(new BigDecimal("5.54")).build(),
+                        OrderItem.builder().quantity(3).price(new BigDecimal("0.10")).build()))
+                .build();
+
+        order.calculateTotalValue();
+
+        assertEquals(new BigDecimal("11.38"), order.getTotalValue());
+    }
+
+    @Test
+    @DisplayName("Should keep the used credit when the credit limit changes")
+    void shouldKeepUsedCreditWhenCreditLimitChanges() {
+        Partner partner = new Partner();
+        partner.setCreditLimit(new BigDecimal("100.00"));
+        partner.setAvailableCredit(new BigDecimal("70.00"));
+
+        partner.changeCreditLimit(Money.ofCents(20_000));
+        assertEquals(new BigDecimal("170.00"), partner.getAvailableCredit());
+
+        partner.changeCreditLimit(Money.ofCents(1_000));
+        assertEquals(Money.ZERO, partner.availableCredit());
+        assertEquals(new BigDecimal("10.00"), partner.getCreditLimit());
+    }
+
+    @Test
+    @DisplayName("Should cap partner credits at the credit limit")
+    void shouldCapPartnerCreditsAtCreditLimit() {
+        Partner partner = new Partner();
+        partner.setCreditLimit(new BigDecimal("100.00"));
+        partner.setAvailableCredit(new BigDecimal("90.00"));
+
+        partner.creditCredit(Money.of(new BigDecimal("25.00")));
+
+        assertEquals(new BigDecimal("100.00"), partner.getAvailableCredit());
+        assertTrue(partner.hasAvailableCredit(Money.ofCents(10_000)));
+        assertFalse(partner.hasAvailableCredit(Money.ofCents(10_001)));
+    }
+}
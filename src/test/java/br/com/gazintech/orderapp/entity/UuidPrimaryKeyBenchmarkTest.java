@@ -0,0 +1,82 @@
+package br.com.gazintech.orderapp.entity;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Insert benchmark comparing random version 4 primary keys with the time-ordered keys of {@link UuidV7Generator}.
+ * Both tables get the same rows in the same batches; the benchmark reports the insert throughput
+ * and the size of each primary key index, which grows with the page splits of random keys.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@DisplayName("UUID primary key benchmark")
+class UuidPrimaryKeyBenchmarkTest extends AbstractIntegrationTest {
+
+    private static final int ROWS = 500_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS uuid_v4_benchmark");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS uuid_v7_benchmark");
+    }
+
+    @Test
+    @DisplayName("Should keep the primary key index smaller with UUIDv7 keys")
+    void shouldKeepPrimaryKeyIndexSmallerWithUuidV7Keys() {
+        long v4IndexSize = insert("uuid_v4_benchmark", UUID::randomUUID);
+        long v7IndexSize = insert("uuid_v7_benchmark", UuidV7Generator::next);
+
+        assertTrue(v7IndexSize < v4IndexSize,
+                () -> "UUIDv7 index (" + v7IndexSize + " bytes) is not smaller than UUIDv4 index (" + v4IndexSize + " bytes)");
+    }
+
+    private long insert(String table, Supplier<UUID> ids) {
+        jdbcTemplate.execute("CREATE TABLE " + table + " (id uuid PRIMARY KEY, created_at timestamptz NOT NULL DEFAULT now())");
+
+        long begin = System.nanoTime();
+        for (int inserted = 0; inserted < ROWS; inserted += BATCH_SIZE) {
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(new Object[]{ids.get()});
+            }
+            // one commit per batch
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate("INSERT INTO " + table + " (id) VALUES (?)", batch));
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+
+        assertEquals(ROWS, jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class));
+        long indexSize = jdbcTemplate.queryForObject("SELECT pg_relation_size(?::regclass)", Long.class, table + "_pkey");
+
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        log.info("UUID primary key benchmark finished", kv("table", table), kv("rows", ROWS),
+                kv("elapsedMs", elapsedNanos / 1_000_000), kv("throughputPerSecond", Math.round(ROWS / seconds)),
+                kv("indexKb", indexSize / 1024));
+        return indexSize;
+    }
+}
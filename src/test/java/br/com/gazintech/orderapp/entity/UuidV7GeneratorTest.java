@@ -0,0 +1,55 @@
+package br.com.gazintech.orderapp.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UuidV7Generator Unit Tests")
+class UuidV7GeneratorTest {
+
+    @Test
+    @DisplayName("Should generate version 7 UUIDs with the RFC 9562 variant")
+    void shouldGenerateVersion7Uuids() {
+        UUID uuid = UuidV7Generator.next();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    @DisplayName("Should store the current time in the first 48 bits")
+    void shouldStoreCurrentTimeInFirst48Bits() {
+        long before = System.currentTimeMillis();
+        long timestamp = UuidV7Generator.next().getMostSignificantBits() >>> 16;
+
+        // no upper bound: counter overflows, e.g. from the other tests of this JVM, carry the timestamp ahead of the clock
+        assertTrue(timestamp >= before);
+    }
+
+    @Test
+    @DisplayName("Should generate strictly increasing UUIDs within the same millisecond")
+    void shouldGenerateStrictlyIncreasingUuids() {
+        UUID previous = UuidV7Generator.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7Generator.next();
+            assertTrue(next.compareTo(previous) > 0, () -> next + " is not greater than " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("Should not generate duplicates across threads")
+    void shouldNotGenerateDuplicatesAcrossThreads() {
+        Set<UUID> generated = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 200_000).parallel().forEach(i -> generated.add(UuidV7Generator.next()));
+
+        assertEquals(200_000, generated.size());
+    }
+}
@@ -57,4 +57,20 @@ class ExceptionHandlerListImplTest {
         assertEquals(HttpStatus.BAD_REQUEST, handler.status());
         assertTrue(handler.isShowOriginalMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByErrorCode_WhenErrorCodeExists_ShouldReturnCorrectHandler() {
+        var handler = exceptionHandlerList.findByErrorCode("E002");
+
+        assertEquals(InsufficientBalanceException.class, handler.exception());
+        assertEquals(HttpStatus.BAD_REQUEST, handler.status());
+    }
+
+    @Test
+    void findByErrorCode_WhenErrorCodeDoesNotExist_ShouldReturnDefaultHandler() {
+        var handler = exceptionHandlerList.findByErrorCode("E999");
+
+        assertEquals("E000", handler.errorCode());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, handler.status());
+    }
+}
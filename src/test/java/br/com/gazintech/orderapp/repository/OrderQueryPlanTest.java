@@ -0,0 +1,207 @@
+package br.com.gazintech.orderapp.repository;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.api.SortDirection;
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.repository.specification.OrderSpecifications;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query plan regression suite for order searches. It seeds enough orders for the planner to prefer indexes,
+ * runs every filter combination of {@code OrderSpecifications.bySearchDto} through the repository, and
+ * captures the SQL Hibernate issues with a {@link StatementInspector}. Each page query is then explained with
+ * {@code EXPLAIN (FORMAT JSON, GENERIC_PLAN)}, and the test fails if any plan reads the order table with a
+ * sequential scan. Count queries are left out, since an unfiltered count has to read every row.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "br.com.gazintech.orderapp.repository.OrderQueryPlanTest$CapturingStatementInspector")
+@DisplayName("Order query plan Integration Tests")
+class OrderQueryPlanTest extends AbstractIntegrationTest {
+
+    private static final int PARTNERS = 200;
+    private static final int ORDERS = 100_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final String codePrefix = "PLN-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+
+    private UUID partnerId;
+    private UUID orderId;
+
+    @BeforeAll
+    void seed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("""
+                    INSERT INTO "Partner" (id, code, name, email, credit_limit, available_credit, active, created_at, updated_at, version)
+                    SELECT gen_random_uuid(), ? || g, 'Plan Partner ' || g, 'plan@mock.com', 1000, 1000, true, now(), now(), 0
+                    FROM generate_series(1, ?) g""", codePrefix, PARTNERS);
+            // orders spread over about a year, with random statuses
+            jdbcTemplate.update("""
+                    INSERT INTO "Order" (id, partner_id, total_value, status, created_at, updated_at, version)
+                    SELECT gen_random_uuid(), p.ids[1 + g % array_length(p.ids, 1)], 10,
+                           (ARRAY['PENDING', 'APPROVED', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'CANCELED'])[1 + floor(random() * 6)::int],
+                           now() - g * interval '5 minutes', now(), 0
+                    FROM generate_series(1, ?) g,
+                         (SELECT array_agg(id) AS ids FROM "Partner" WHERE code LIKE ? || '%') p""", ORDERS, codePrefix);
+            jdbcTemplate.execute("ANALYZE \"Partner\"");
+            jdbcTemplate.execute("ANALYZE \"Order\"");
+        });
+
+        partnerId = jdbcTemplate.queryForObject("SELECT id FROM \"Partner\" WHERE code = ?", UUID.class, codePrefix + 1);
+        orderId = jdbcTemplate.queryForObject("SELECT id FROM \"Order\" WHERE partner_id = ? LIMIT 1", UUID.class, partnerId);
+    }
+
+    @AfterAll
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM \"Order\" WHERE partner_id IN (SELECT id FROM \"Partner\" WHERE code LIKE ? || '%')", codePrefix);
+            jdbcTemplate.update("DELETE FROM \"Partner\" WHERE code LIKE ? || '%'", codePrefix);
+        });
+    }
+
+    @ParameterizedTest(name = "order={0} partner={1} status={2} dates={3}")
+    @MethodSource("filterCombinationsProvider")
+    @DisplayName("Should not scan the whole order table for a page of a search")
+    void shouldNotScanWholeOrderTableForPage(boolean byOrder, boolean byPartner, boolean byStatus, DateRange dates) throws Exception {
+        OrderSearchDTO searchDTO = OrderSearchDTO.builder()
+                .orderId(byOrder ? orderId : null)
+                .partnerId(byPartner ? partnerId : null)
+                .status(byStatus ? Order.OrderStatus.PENDING : null)
+                .startDate(dates.hasStart() ? OffsetDateTime.now().minusDays(100) : null)
+                .endDate(dates.hasEnd() ? OffsetDateTime.now().minusDays(93) : null)
+                .page(0)
+                .size(PAGE_SIZE)
+                .sortBy("createdAt")
+                .sortDirection(SortDirection.DESC)
+                .build();
+
+        List<String> statements = CapturingStatementInspector.capture(() -> {
+            orderRepository.findAll(OrderSpecifications.bySearchDto(searchDTO), searchDTO.toPageable());
+            orderRepository.findSlice(OrderSpecifications.bySearchDto(searchDTO), searchDTO.toPageable());
+        });
+        List<String> pageQueries = statements.stream()
+                .filter(sql -> !sql.stripLeading().toLowerCase().startsWith("select count"))
+                .toList();
+        assertFalse(pageQueries.isEmpty(), () -> "No page query captured from " + statements);
+
+        for (String sql : pageQueries) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON, GENERIC_PLAN) " + numberParameters(sql), String.class);
+
+            List<JsonNode> seqScans = new ArrayList<>();
+            collectOrderSeqScans(objectMapper.readTree(plan).get(0).get("Plan"), seqScans);
+            assertTrue(seqScans.isEmpty(), () -> "Sequential scan on \"Order\" for " + sql + "\n" + plan);
+        }
+    }
+
+    /**
+     * Replaces the JDBC placeholders with the numbered parameters {@code GENERIC_PLAN} accepts.
+     */
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    private static void collectOrderSeqScans(JsonNode node, List<JsonNode> seqScans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText()) && "Order".equals(node.path("Relation Name").asText())) {
+            seqScans.add(node);
+        }
+        node.path("Plans").forEach(child -> collectOrderSeqScans(child, seqScans));
+    }
+
+    private static Stream<Arguments> filterCombinationsProvider() {
+        Stream.Builder<Arguments> combinations = Stream.builder();
+        combinations.add(Arguments.of(true, false, false, DateRange.NONE));
+        for (int mask = 0; mask < 4; mask++) {
+            for (DateRange dates : DateRange.values()) {
+                combinations.add(Arguments.of(false, (mask & 1) != 0, (mask & 2) != 0, dates));
+            }
+        }
+        return combinations.build();
+    }
+
+    enum DateRange {
+        NONE,
+        START,
+        END,
+        BOTH;
+
+        boolean hasStart() {
+            return this == START || this == BOTH;
+        }
+
+        boolean hasEnd() {
+            return this == END || this == BOTH;
+        }
+    }
+
+    /**
+     * Records the SQL Hibernate prepares on the current thread while a capture is running.
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+        static List<String> capture(Runnable action) {
+            List<String> statements = new ArrayList<>();
+            CAPTURED.set(statements);
+            try {
+                action.run();
+            } finally {
+                CAPTURED.remove();
+            }
+            return statements;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = CAPTURED.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
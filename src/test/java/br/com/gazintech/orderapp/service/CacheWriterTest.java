@@ -0,0 +1,113 @@
+package br.com.gazintech.orderapp.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CacheWriter Unit Tests")
+class CacheWriterTest {
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    @InjectMocks
+    private CacheWriter cacheWriter;
+
+    private final UUID key = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(cacheManager.getCache("orders")).thenReturn(cache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should put the value only after the transaction commits")
+    void shouldPutValueOnlyAfterTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheWriter.putAfterCommit("orders", key, "order");
+        verifyNoInteractions(cache);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache).put(key, "order");
+    }
+
+    @Test
+    @DisplayName("Should not put the value when the transaction rolls back")
+    void shouldNotPutValueWhenTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheWriter.putAfterCommit("orders", key, "order");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    @DisplayName("Should put the value right away without a transaction")
+    void shouldPutValueRightAwayWithoutTransaction() {
+        cacheWriter.putAfterCommit("orders", key, "order");
+
+        verify(cache).put(key, "order");
+    }
+
+    @Test
+    @DisplayName("Should not fail the write when the cache is unavailable")
+    void shouldNotFailWriteWhenCacheIsUnavailable() {
+        doThrow(new IllegalStateException("Redis is down")).when(cache).put(key, "order");
+
+        assertDoesNotThrow(() -> cacheWriter.putAfterCommit("orders", key, "order"));
+    }
+
+    @Test
+    @DisplayName("Should write to the target of a transaction-aware cache after commit")
+    void shouldWriteToTargetOfTransactionAwareCacheAfterCommit() {
+        when(cacheManager.getCache("orders")).thenReturn(new TransactionAwareCacheDecorator(cache));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheWriter.putAfterCommit("orders", key, "order");
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(cache).put(key, "order");
+    }
+
+    @Test
+    @DisplayName("Should evict the key from the target of a transaction-aware cache only after commit")
+    void shouldEvictKeyFromTargetOfTransactionAwareCacheOnlyAfterCommit() {
+        when(cacheManager.getCache("orders")).thenReturn(new TransactionAwareCacheDecorator(cache));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheWriter.evictAfterCommit("orders", key);
+        verifyNoInteractions(cache);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache).evict(key);
+    }
+}
@@ -0,0 +1,88 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = {
+        "order-app.credit.holds.enabled=true",
+        "order-app.credit.mode=PESSIMISTIC"
+})
+@DisplayName("Credit hold concurrency Integration Tests")
+class CreditHoldConcurrencyTest extends AbstractIntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 5;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PartnerRepository partnerRepository;
+
+    @Test
+    @DisplayName("Should create or reject concurrent orders of one partner, never fail them")
+    void shouldCreateOrRejectConcurrentOrdersOfOnePartner() throws InterruptedException {
+        int attempts = THREADS * ORDERS_PER_THREAD;
+        // credit for half of the orders
+        BigDecimal credit = BigDecimal.TEN.multiply(BigDecimal.valueOf(attempts / 2));
+        UUID partnerId = createPartner(credit, credit).getId();
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Queue<Exception> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ORDERS_PER_THREAD; j++) {
+                    try {
+                        orderService.createOrder(order(partnerId));
+                        created.incrementAndGet();
+                    } catch (InsufficientBalanceException e) {
+                        rejected.incrementAndGet();
+                    } catch (Exception e) {
+                        unexpected.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+        assertEquals(attempts / 2, created.get());
+        assertEquals(attempts / 2, rejected.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(partnerRepository.findById(partnerId).orElseThrow().getAvailableCredit()));
+    }
+
+    private static OrderPostRequestDTO order(UUID partnerId) {
+        return OrderPostRequestDTO.builder()
+                .partnerId(partnerId)
+                .items(List.of(OrderPostRequestDTO.OrderItemDTO.builder().name("Item 1").code("001").quantity(1).price(BigDecimal.TEN).build()))
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.entity.CreditHold;
+import br.com.gazintech.orderapp.entity.Money;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.entity.Partner;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.repository.CreditHoldRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CreditHoldService Unit Tests")
+class CreditHoldServiceTest {
+
+    @Mock
+    private CreditHoldRepository creditHoldRepository;
+
+    @Mock
+    private CreditService creditService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private CreditHoldService creditHoldService;
+
+    private Order order;
+    private UUID partnerId;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(creditHoldService, "enabled", true);
+
+        partnerId = UUID.randomUUID();
+        Partner partner = new Partner();
+        partner.setId(partnerId);
+        order = Order.builder()
+                .id(UUID.randomUUID())
+                .partner(partner)
+                .totalValue(BigDecimal.valueOf(100))
+                .status(Order.OrderStatus.PENDING)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should debit the order total and save an active hold")
+    void shouldDebitOrderTotalAndSaveActiveHold() {
+        creditHoldService.placeHold(order);
+
+        verify(creditService).debitCredit(partnerId, Money.ofCents(10_000));
+        ArgumentCaptor<CreditHold> captor = ArgumentCaptor.forClass(CreditHold.class);
+        verify(creditHoldRepository).save(captor.capture());
+        assertEquals(order.getId(), captor.getValue().getOrderId());
+        assertEquals(CreditHold.HoldStatus.ACTIVE, captor.getValue().getStatus());
+        assertTrue(captor.getValue().getExpiresAt().isAfter(OffsetDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("Should not save a hold when the partner has insufficient credit")
+    void shouldNotSaveHoldWhenPartnerHasInsufficientCredit() {
+        doThrow(new InsufficientBalanceException("Insufficient credit for partner: P1"))
+                .when(creditService).debitCredit(partnerId, Money.ofCents(10_000));
+
+        assertThrows(InsufficientBalanceException.class, () -> creditHoldService.placeHold(order));
+        verify(creditHoldRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should convert an active hold without debiting again")
+    void shouldConvertActiveHoldWithoutDebitingAgain() {
+        CreditHold hold = hold(CreditHold.HoldStatus.ACTIVE);
+        when(creditHoldRepository.findByOrderIdWithLock(order.getId())).thenReturn(Optional.of(hold));
+
+        assertTrue(creditHoldService.convertHold(order));
+        assertEquals(CreditHold.HoldStatus.CONVERTED, hold.getStatus());
+        verifyNoInteractions(creditService);
+    }
+
+    @Test
+    @DisplayName("Should not convert an expired hold")
+    void shouldNotConvertExpiredHold() {
+        CreditHold hold = hold(CreditHold.HoldStatus.EXPIRED);
+        when(creditHoldRepository.findByOrderIdWithLock(order.getId())).thenReturn(Optional.of(hold));
+
+        assertFalse(creditHoldService.convertHold(order));
+        assertEquals(CreditHold.HoldStatus.EXPIRED, hold.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should give the credit back when releasing an active hold")
+    void shouldGiveCreditBackWhenReleasingActiveHold() {
+        CreditHold hold = hold(CreditHold.HoldStatus.ACTIVE);
+        when(creditHoldRepository.findByOrderIdWithLock(order.getId())).thenReturn(Optional.of(hold));
+
+        assertTrue(creditHoldService.releaseHold(order));
+        assertEquals(CreditHold.HoldStatus.RELEASED, hold.getStatus());
+        verify(creditService).creditCredit(partnerId, Money.ofCents(10_000));
+    }
+
+    @Test
+    @DisplayName("Should ignore holds when they are disabled")
+    void shouldIgnoreHoldsWhenDisabled() {
+        ReflectionTestUtils.setField(creditHoldService, "enabled", false);
+
+        assertFalse(creditHoldService.convertHold(order));
+        assertFalse(creditHoldService.releaseHold(order));
+        verifyNoInteractions(creditHoldRepository, creditService);
+    }
+
+    @Test
+    @DisplayName("Should expire stale holds with one credit per partner")
+    void shouldExpireStaleHoldsWithOneCreditPerPartner() {
+        CreditHold first = hold(CreditHold.HoldStatus.ACTIVE);
+        CreditHold second = hold(CreditHold.HoldStatus.ACTIVE);
+        when(creditHoldRepository.findExpiredForUpdate(any(), anyInt())).thenReturn(List.of(first, second));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+
+        creditHoldService.expireHolds();
+
+        verify(creditService).creditCredit(partnerId, Money.ofCents(20_000));
+        assertEquals(CreditHold.HoldStatus.EXPIRED, first.getStatus());
+        assertEquals(CreditHold.HoldStatus.EXPIRED, second.getStatus());
+    }
+
+    private CreditHold hold(CreditHold.HoldStatus status) {
+        return CreditHold.builder()
+                .id(UUID.randomUUID())
+                .orderId(order.getId())
+                .partnerId(partnerId)
+                .amount(BigDecimal.valueOf(100))
+                .status(status)
+                .expiresAt(OffsetDateTime.now().minusMinutes(1))
+                .build();
+    }
+}
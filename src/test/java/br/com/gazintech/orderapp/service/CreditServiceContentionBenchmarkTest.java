@@ -0,0 +1,122 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import org.junit.jupiter.api.AfterEach;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contention benchmark for {@link CreditService#debitCredit(UUID, BigDecimal)} on a single hot partner.
+ * Every thread debits the same partner, which only has credit for half of the attempts,
+ * so the benchmark also proves that no debit is lost or applied twice under contention.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@DisplayName("CreditService contention benchmark")
+class CreditServiceContentionBenchmarkTest extends AbstractIntegrationTest {
+
+    private static final int THREADS = 32;
+    private static final int DEBITS_PER_THREAD = 50;
+    private static final BigDecimal DEBIT_AMOUNT = BigDecimal.ONE;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private PartnerRepository partnerRepository;
+
+    @AfterEach
+    void tearDown() {
+        setCreditMode(CreditMode.PESSIMISTIC);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CreditMode.class, names = {"PESSIMISTIC", "CONDITIONAL_UPDATE", "GROUP_COMMIT"})
+    @DisplayName("Should debit a single partner concurrently without losing updates")
+    void shouldDebitSinglePartnerConcurrently(CreditMode mode) throws InterruptedException {
+        setCreditMode(mode);
+
+        int attempts = THREADS * DEBITS_PER_THREAD;
+        BigDecimal initialCredit = DEBIT_AMOUNT.multiply(BigDecimal.valueOf(attempts / 2));
+        UUID partnerId = createPartner(initialCredit, initialCredit).getId();
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(attempts));
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < DEBITS_PER_THREAD; j++) {
+                    long begin = System.nanoTime();
+                    try {
+                        creditService.debitCredit(partnerId, DEBIT_AMOUNT);
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientBalanceException e) {
+                        rejected.incrementAndGet();
+                    } finally {
+                        latencies.add(System.nanoTime() - begin);
+                    }
+                }
+                return null;
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        long elapsedNanos = System.nanoTime() - begin;
+
+        report(mode, attempts, elapsedNanos, latencies);
+
+        BigDecimal remaining = partnerRepository.findById(partnerId).orElseThrow().getAvailableCredit();
+        assertEquals(attempts / 2, succeeded.get());
+        assertEquals(attempts / 2, rejected.get());
+        assertEquals(0, remaining.compareTo(BigDecimal.ZERO));
+    }
+
+    private void setCreditMode(CreditMode mode) {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(creditService), "creditMode", mode);
+    }
+
+    private static void report(CreditMode mode, int attempts, long elapsedNanos, List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        log.info("Credit benchmark finished", kv("mode", mode), kv("threads", THREADS), kv("attempts", attempts),
+                kv("elapsedMs", elapsedNanos / 1_000_000), kv("throughputPerSecond", Math.round(attempts / seconds)),
+                kv("p50Ms", percentile(sorted, 0.50) / 1_000_000.0), kv("p99Ms", percentile(sorted, 0.99) / 1_000_000.0));
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
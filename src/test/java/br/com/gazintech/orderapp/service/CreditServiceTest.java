@@ -2,8 +2,17 @@ package br.com.gazintech.orderapp.service;
 
 import br.com.gazintech.orderapp.entity.Partner;
 import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception.InvalidAmountException;
 import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
+import br.com.gazintech.orderapp.exception_handler.ExceptionHandlerListImpl;
 import br.com.gazintech.orderapp.repository.PartnerRepository;
+import br.com.gazintech.orderapp.repository.PartnerRepository.CreditStateView;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,9 +20,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -28,6 +42,12 @@ class CreditServiceTest {
     @Mock
     private PartnerRepository partnerRepository;
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private CreditService creditService;
 
@@ -38,13 +58,24 @@ class CreditServiceTest {
     @BeforeEach
     void setUp() {
         partnerId = UUID.randomUUID();
-        amount = BigDecimal.valueOf(100.00);
+        amount = new BigDecimal("100.00");
 
         partner = new Partner();
         partner.setId(partnerId);
         partner.setCode("PARTNER001");
         partner.setCreditLimit(BigDecimal.valueOf(1000.00));
         partner.setAvailableCredit(BigDecimal.valueOf(500.00));
+
+        // the persistence context does not hold the partner unless a test says so
+        lenient().when(entityManager.getReference(Partner.class, partnerId)).thenReturn(notLoaded());
+    }
+
+    private static Partner notLoaded() {
+        LazyInitializer lazyInitializer = mock(LazyInitializer.class, withSettings().strictness(Strictness.LENIENT));
+        when(lazyInitializer.isUninitialized()).thenReturn(true);
+        Partner proxy = mock(Partner.class, withSettings().extraInterfaces(HibernateProxy.class).strictness(Strictness.LENIENT));
+        when(((HibernateProxy) proxy).getHibernateLazyInitializer()).thenReturn(lazyInitializer);
+        return proxy;
     }
 
     @Nested
@@ -122,6 +153,18 @@ class CreditServiceTest {
             verify(partnerRepository, never()).save(any());
         }
 
+        @Test
+        @DisplayName("Should reject an amount with fractions of a cent as a bad request")
+        void shouldRejectAmountWithFractionsOfCentAsBadRequest() {
+            InvalidAmountException exception = assertThrows(
+                    InvalidAmountException.class,
+                    () -> creditService.debitCredit(partnerId, new BigDecimal("10.005"))
+            );
+            assertEquals("Amount must have at most 2 decimal places and fit in cents: 10.005", exception.getMessage());
+            assertEquals(HttpStatus.BAD_REQUEST, new ExceptionHandlerListImpl().findByClass(InvalidAmountException.class).status());
+            verifyNoInteractions(partnerRepository);
+        }
+
         @Test
         @DisplayName("Should throw PartnerNotFoundException when partner not found")
         void shouldThrowPartnerNotFoundExceptionWhenPartnerNotFound() {
@@ -137,6 +180,19 @@ class CreditServiceTest {
             verify(partnerRepository).findByIdWithLock(partnerId);
             verify(partnerRepository, never()).save(any());
         }
+
+        @Test
+        @DisplayName("Should refresh the partner already loaded in the transaction under the lock")
+        void shouldRefreshLoadedPartnerUnderLock() {
+            when(entityManager.getReference(Partner.class, partnerId)).thenReturn(partner);
+
+            creditService.debitCredit(partnerId, amount);
+
+            // a locking query would hand back the loaded partner with its outdated version
+            verify(entityManager).refresh(partner, LockModeType.PESSIMISTIC_WRITE);
+            verify(partnerRepository, never()).findByIdWithLock(any());
+            assertEquals(0, BigDecimal.valueOf(400).compareTo(partner.getAvailableCredit()));
+        }
     }
 
     @Nested
@@ -183,7 +239,7 @@ class CreditServiceTest {
         @DisplayName("Should return available credit when partner exists")
         void shouldReturnAvailableCreditWhenPartnerExists() {
             
-            BigDecimal expectedCredit = BigDecimal.valueOf(500.00);
+            BigDecimal expectedCredit = new BigDecimal("500.00");
             when(partnerRepository.findById(partnerId)).thenReturn(Optional.of(partner));
 
             BigDecimal result = creditService.getAvailableCredit(partnerId);
@@ -270,4 +326,202 @@ class CreditServiceTest {
             verify(partnerRepository, never()).save(any());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Conditional update mode Tests")
+    class ConditionalUpdateModeTests {
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(creditService, "creditMode", CreditMode.CONDITIONAL_UPDATE);
+        }
+
+        @Test
+        @DisplayName("Should debit credit with a single guarded update")
+        void shouldDebitCreditWithSingleGuardedUpdate() {
+            when(partnerRepository.debitCreditIfAvailable(partnerId, amount)).thenReturn(1);
+            when(entityManager.getReference(Partner.class, partnerId)).thenReturn(partner);
+
+            creditService.debitCredit(partnerId, amount);
+
+            verify(partnerRepository).debitCreditIfAvailable(partnerId, amount);
+            // the partner loaded in the persistence context is reloaded with the updated credit
+            verify(entityManager).refresh(partner);
+            verify(partnerRepository, never()).findByIdWithLock(any());
+            verify(partnerRepository, never()).findById(any());
+            verify(partnerRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Should throw InsufficientBalanceException when guarded update touches no row")
+        void shouldThrowInsufficientBalanceExceptionWhenGuardedUpdateTouchesNoRow() {
+            when(partnerRepository.debitCreditIfAvailable(partnerId, amount)).thenReturn(0);
+            when(partnerRepository.findById(partnerId)).thenReturn(Optional.of(partner));
+
+            InsufficientBalanceException exception = assertThrows(
+                    InsufficientBalanceException.class,
+                    () -> creditService.debitCredit(partnerId, amount)
+            );
+            assertEquals("Insufficient credit for partner: PARTNER001", exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("Should throw PartnerNotFoundException when guarded update finds no partner")
+        void shouldThrowPartnerNotFoundExceptionWhenGuardedUpdateFindsNoPartner() {
+            when(partnerRepository.debitCreditIfAvailable(partnerId, amount)).thenReturn(0);
+            when(partnerRepository.findById(partnerId)).thenReturn(Optional.empty());
+
+            PartnerNotFoundException exception = assertThrows(
+                    PartnerNotFoundException.class,
+                    () -> creditService.debitCredit(partnerId, amount)
+            );
+            assertEquals("Partner not found: " + partnerId, exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("Should credit credit with a single update")
+        void shouldCreditCreditWithSingleUpdate() {
+            when(partnerRepository.creditCreditUpToLimit(partnerId, amount)).thenReturn(1);
+            when(entityManager.getReference(Partner.class, partnerId)).thenReturn(partner);
+
+            creditService.creditCredit(partnerId, amount);
+            verify(entityManager).refresh(partner);
+
+            verify(partnerRepository).creditCreditUpToLimit(partnerId, amount);
+            verify(partnerRepository, never()).findByIdWithLock(any());
+            verify(partnerRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Should throw PartnerNotFoundException when credit update touches no row")
+        void shouldThrowPartnerNotFoundExceptionWhenCreditUpdateTouchesNoRow() {
+            when(partnerRepository.creditCreditUpToLimit(partnerId, amount)).thenReturn(0);
+
+            PartnerNotFoundException exception = assertThrows(
+                    PartnerNotFoundException.class,
+                    () -> creditService.creditCredit(partnerId, amount)
+            );
+            assertEquals("Partner not found: " + partnerId, exception.getMessage());
+        }
+    }
+
+    @Nested
+    @DisplayName("Optimistic mode Tests")
+    class OptimisticModeTests {
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(creditService, "creditMode", CreditMode.OPTIMISTIC);
+        }
+
+        @Test
+        @DisplayName("Should debit credit without a lock when the version did not change")
+        void shouldDebitCreditWithoutLockWhenVersionDidNotChange() {
+            when(partnerRepository.findCreditStateById(partnerId)).thenReturn(Optional.of(creditState(500, 3L)));
+            when(partnerRepository.updateAvailableCreditIfVersion(partnerId, new BigDecimal("400.00"), 3L)).thenReturn(1);
+            when(entityManager.getReference(Partner.class, partnerId)).thenReturn(partner);
+
+            creditService.debitCredit(partnerId, amount);
+
+            // the partner loaded in the persistence context is reloaded with the updated credit
+            verify(entityManager).refresh(partner);
+            verify(partnerRepository, never()).findByIdWithLock(any());
+            assertEquals(1, meterRegistry.summary("credit.optimistic.retries", "operation", "debit").count());
+            assertEquals(0, meterRegistry.counter("credit.optimistic.conflicts", "operation", "debit").count());
+        }
+
+        @Test
+        @DisplayName("Should retry from a fresh read when the version changed")
+        void shouldRetryFromFreshReadWhenVersionChanged() {
+            when(partnerRepository.findCreditStateById(partnerId))
+                    .thenReturn(Optional.of(creditState(500, 3L)))
+                    .thenReturn(Optional.of(creditState(450, 4L)));
+            when(partnerRepository.updateAvailableCreditIfVersion(partnerId, new BigDecimal("400.00"), 3L)).thenReturn(0);
+            when(partnerRepository.updateAvailableCreditIfVersion(partnerId, new BigDecimal("350.00"), 4L)).thenReturn(1);
+
+            creditService.debitCredit(partnerId, amount);
+
+            assertEquals(1, meterRegistry.counter("credit.optimistic.conflicts", "operation", "debit").count());
+            assertEquals(2, meterRegistry.counter("credit.optimistic.attempts", "operation", "debit").count());
+            assertEquals(1, meterRegistry.summary("credit.optimistic.retries", "operation", "debit").totalAmount());
+        }
+
+        @Test
+        @DisplayName("Should throw InsufficientBalanceException without writing when credit is short")
+        void shouldThrowInsufficientBalanceExceptionWithoutWritingWhenCreditIsShort() {
+            when(partnerRepository.findCreditStateById(partnerId)).thenReturn(Optional.of(creditState(99, 3L)));
+
+            InsufficientBalanceException exception = assertThrows(
+                    InsufficientBalanceException.class,
+                    () -> creditService.debitCredit(partnerId, amount)
+            );
+            assertEquals("Insufficient credit for partner: PARTNER001", exception.getMessage());
+            verify(partnerRepository, never()).updateAvailableCreditIfVersion(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should fall back to the row lock when the retry budget runs out")
+        void shouldFallBackToRowLockWhenRetryBudgetRunsOut() {
+            ReflectionTestUtils.setField(creditService, "optimisticMaxAttempts", 2);
+            when(partnerRepository.findCreditStateById(partnerId)).thenReturn(Optional.of(creditState(500, 3L)));
+            when(partnerRepository.updateAvailableCreditIfVersion(partnerId, new BigDecimal("400.00"), 3L)).thenReturn(0);
+            when(partnerRepository.findByIdWithLock(partnerId)).thenReturn(Optional.of(partner));
+
+            creditService.debitCredit(partnerId, amount);
+
+            verify(partnerRepository).save(partner);
+            assertEquals(0, BigDecimal.valueOf(400.0).compareTo(partner.getAvailableCredit()));
+            assertEquals(1, meterRegistry.counter("credit.optimistic.exhausted", "operation", "debit").count());
+        }
+
+        @Test
+        @DisplayName("Should fall back to the row lock when the backoff budget runs out")
+        void shouldFallBackToRowLockWhenBackoffBudgetRunsOut() {
+            ReflectionTestUtils.setField(creditService, "optimisticMaxTotalBackoff", Duration.ZERO);
+            when(partnerRepository.findCreditStateById(partnerId)).thenReturn(Optional.of(creditState(500, 3L)));
+            when(partnerRepository.updateAvailableCreditIfVersion(partnerId, new BigDecimal("400.00"), 3L)).thenReturn(0);
+            when(partnerRepository.findByIdWithLock(partnerId)).thenReturn(Optional.of(partner));
+
+            creditService.debitCredit(partnerId, amount);
+
+            verify(partnerRepository).save(partner);
+            assertEquals(1, meterRegistry.counter("credit.optimistic.attempts", "operation", "debit").count());
+            assertEquals(1, meterRegistry.counter("credit.optimistic.exhausted", "operation", "debit").count());
+        }
+
+        @Test
+        @DisplayName("Should cap optimistic credits at the credit limit")
+        void shouldCapOptimisticCreditsAtCreditLimit() {
+            when(partnerRepository.findCreditStateById(partnerId)).thenReturn(Optional.of(creditState(950, 3L)));
+            when(partnerRepository.updateAvailableCreditIfVersion(partnerId, new BigDecimal("1000.00"), 3L)).thenReturn(1);
+
+            creditService.creditCredit(partnerId, amount);
+
+            verify(partnerRepository).updateAvailableCreditIfVersion(partnerId, new BigDecimal("1000.00"), 3L);
+        }
+
+        private CreditStateView creditState(double availableCredit, Long version) {
+            return new CreditStateView() {
+                @Override
+                public String getCode() {
+                    return partner.getCode();
+                }
+
+                @Override
+                public BigDecimal getCreditLimit() {
+                    return partner.getCreditLimit();
+                }
+
+                @Override
+                public BigDecimal getAvailableCredit() {
+                    return BigDecimal.valueOf(availableCredit);
+                }
+
+                @Override
+                public Long getVersion() {
+                    return version;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.api.ExportFormat;
+import br.com.gazintech.orderapp.dto.OrderExportRowDTO;
+import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.exception.ExportLimitExceededException;
+import br.com.gazintech.orderapp.exception_handler.ExceptionHandlerList;
+import br.com.gazintech.orderapp.repository.OrderRepository;
+import br.com.gazintech.orderapp.repository.specification.OrderSpecifications;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional: the export reads through its own stateless session and connection, so the orders must be
+ * committed first.
+ */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "order-app.orders.export.fetch-size=2",
+        "order-app.orders.export.max-concurrent=1"
+})
+@DisplayName("Order export Integration Tests")
+class OrderExportServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ExceptionHandlerList handlerList;
+
+    private UUID partnerId;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = createPartner(BigDecimal.valueOf(1000), BigDecimal.valueOf(1000)).getId();
+
+        // more orders than the fetch size, so the cursor needs several round trips
+        for (int i = 0; i < 5; i++) {
+            orderService.createOrder(OrderPostRequestDTO.builder()
+                    .partnerId(partnerId)
+                    .items(List.of(OrderPostRequestDTO.OrderItemDTO.builder().name("Item 1").code("001").quantity(1).price(BigDecimal.TEN).build()))
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll(orderRepository.findAll(
+                OrderSpecifications.bySearchDto(OrderSearchDTO.builder().partnerId(partnerId).build())));
+    }
+
+    @Test
+    @DisplayName("Should export one JSON object per line, oldest first")
+    void shouldExportOneJsonObjectPerLineOldestFirst() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = orderExportService.export(filters(), ExportFormat.NDJSON, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, rows);
+        assertEquals(5, lines.length);
+        OffsetDateTime previousCreatedAt = OffsetDateTime.MIN;
+        for (String line : lines) {
+            JsonNode row = objectMapper.readTree(line);
+            assertEquals(partnerId.toString(), row.get("partnerId").asText());
+            assertEquals(Order.OrderStatus.PENDING.name(), row.get("status").asText());
+            assertEquals(0, BigDecimal.TEN.compareTo(row.get("totalValue").decimalValue()));
+            OffsetDateTime createdAt = OffsetDateTime.parse(row.get("createdAt").asText());
+            assertFalse(createdAt.isBefore(previousCreatedAt));
+            previousCreatedAt = createdAt;
+        }
+    }
+
+    @Test
+    @DisplayName("Should export a header and one line per order as CSV")
+    void shouldExportHeaderAndOneLinePerOrderAsCsv() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = orderExportService.export(filters(), ExportFormat.CSV, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, rows);
+        assertEquals(6, lines.length);
+        assertEquals(String.join(",", OrderExportRowDTO.CSV_HEADER), lines[0]);
+        for (int i = 1; i < lines.length; i++) {
+            String[] values = lines[i].split(",");
+            assertEquals(OrderExportRowDTO.CSV_HEADER.length, values.length);
+            assertEquals(partnerId.toString(), values[1]);
+            assertEquals(Order.OrderStatus.PENDING.name(), values[3]);
+        }
+    }
+
+    @Test
+    @DisplayName("Should stream the export through the endpoint")
+    void shouldStreamExportThroughEndpoint() throws Exception {
+        MvcResult result = mockMvc.perform(get("/v1/orders/export")
+                        .param("partner-id", partnerId.toString())
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(new MediaType("text", "csv")))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders.csv\""))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(6, body.split("\n").length);
+    }
+
+    @Test
+    @DisplayName("Should refuse an export with 429 while the maximum number of exports is running")
+    void shouldRefuseExportWhileMaximumIsRunning() throws Exception {
+        StreamingResponseBody running = orderExportService.stream(filters(), ExportFormat.CSV);
+
+        mockMvc.perform(get("/v1/orders/export")
+                        .param("partner-id", partnerId.toString()))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.error-code").value(handlerList.findByClass(ExportLimitExceededException.class).errorCode()));
+        assertThrows(ExportLimitExceededException.class, () -> orderExportService.export(filters(), ExportFormat.CSV, new ByteArrayOutputStream()));
+
+        running.writeTo(new ByteArrayOutputStream());
+
+        assertEquals(5, orderExportService.export(filters(), ExportFormat.CSV, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    @DisplayName("Should return 400 when the format is invalid")
+    void shouldReturn400WhenFormatIsInvalid() throws Exception {
+        mockMvc.perform(get("/v1/orders/export")
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private OrderSearchDTO filters() {
+        return OrderSearchDTO.builder()
+                .partnerId(partnerId)
+                .build();
+    }
+}
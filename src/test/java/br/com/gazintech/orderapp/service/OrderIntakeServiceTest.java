@@ -0,0 +1,152 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.dto.OrderIntakeResponseDTO;
+import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.entity.OrderIntake;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.exception_handler.ExceptionHandlerList;
+import br.com.gazintech.orderapp.repository.OrderIntakeRepository;
+import br.com.gazintech.orderapp.repository.OrderRepository;
+import br.com.gazintech.orderapp.repository.specification.OrderSpecifications;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "order-app.orders.intake.async=true",
+        "order-app.orders.intake.poll-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@DisplayName("OrderIntakeService Integration Tests")
+class OrderIntakeServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private OrderIntakeRepository orderIntakeRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ExceptionHandlerList handlerList;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID partnerId;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = createPartner(BigDecimal.valueOf(100), BigDecimal.valueOf(100)).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll(orderRepository.findAll(
+                OrderSpecifications.bySearchDto(OrderSearchDTO.builder().partnerId(partnerId).build())));
+    }
+
+    @Test
+    @DisplayName("Should create the order with the ID handed out at intake")
+    void shouldCreateOrderWithIdHandedOutAtIntake() {
+        OrderIntakeResponseDTO accepted = orderIntakeService.accept(order(BigDecimal.TEN));
+        assertTrue(orderRepository.findById(accepted.getId()).isEmpty());
+
+        orderIntakeService.drain();
+
+        Order order = orderRepository.findById(accepted.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.TEN.compareTo(order.getTotalValue()));
+        assertEquals(OrderIntake.IntakeStatus.CREATED, orderIntakeRepository.findById(accepted.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should record the error of an order that cannot be created")
+    void shouldRecordErrorOfOrderThatCannotBeCreated() {
+        OrderIntakeResponseDTO accepted = orderIntakeService.accept(order(BigDecimal.valueOf(500)));
+
+        orderIntakeService.drain();
+
+        OrderIntake intake = orderIntakeRepository.findById(accepted.getId()).orElseThrow();
+        assertEquals(OrderIntake.IntakeStatus.FAILED, intake.getStatus());
+        assertEquals(handlerList.findByClass(InsufficientBalanceException.class).errorCode(), intake.getErrorCode());
+        assertTrue(orderRepository.findById(accepted.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should answer 202 at intake and let clients poll the order until it is created")
+    void shouldAnswer202AtIntakeAndLetClientsPollOrder() throws Exception {
+        String response = mockMvc.perform(post("/v1/orders")
+                        .header("X-Idempotency-Key", UUID.randomUUID().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order(BigDecimal.TEN))))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.body.status", is(OrderIntake.IntakeStatus.PENDING.name())))
+                .andReturn().getResponse().getContentAsString();
+        String orderId = objectMapper.readTree(response).path("body").path("id").asText();
+
+        mockMvc.perform(get("/v1/orders/{id}", orderId))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.body.id", is(orderId)));
+
+        orderIntakeService.drain();
+
+        mockMvc.perform(get("/v1/orders/{id}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.body.id", is(orderId)))
+                .andExpect(jsonPath("$.body.status", is(Order.OrderStatus.PENDING.name())));
+    }
+
+    @Test
+    @DisplayName("Should purge finished intakes older than the retention and keep the others")
+    void shouldPurgeFinishedIntakesOlderThanRetention() {
+        UUID expired = orderIntakeService.accept(order(BigDecimal.ONE)).getId();
+        UUID recent = orderIntakeService.accept(order(BigDecimal.ONE)).getId();
+        orderIntakeService.drain();
+        UUID pending = orderIntakeService.accept(order(BigDecimal.ONE)).getId();
+        jdbcTemplate.update("UPDATE \"OrderIntake\" SET updated_at = now() - interval '8 days' WHERE id IN (?, ?)", expired, pending);
+
+        orderIntakeService.purge();
+
+        assertTrue(orderIntakeRepository.findById(expired).isEmpty());
+        assertTrue(orderIntakeRepository.findById(recent).isPresent());
+        assertTrue(orderIntakeRepository.findById(pending).isPresent());
+        orderIntakeRepository.deleteById(pending);
+    }
+
+    private OrderPostRequestDTO order(BigDecimal price) {
+        return OrderPostRequestDTO.builder()
+                .partnerId(partnerId)
+                .items(List.of(OrderPostRequestDTO.OrderItemDTO.builder().name("Item 1").code("001").quantity(1).price(price).build()))
+                .build();
+    }
+}
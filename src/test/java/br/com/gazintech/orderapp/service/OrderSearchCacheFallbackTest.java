@@ -0,0 +1,86 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OrderSearchCache fallback Unit Tests")
+class OrderSearchCacheFallbackTest {
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private OrderSearchCache orderSearchCache;
+
+    private final UUID partnerId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orderSearchCache, "enabled", true);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    @DisplayName("Should bypass the cache of a scope whose generation could not be bumped")
+    void shouldBypassCacheOfScopeWhoseGenerationCouldNotBeBumped() {
+        when(valueOperations.increment(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        orderSearchCache.invalidate(partnerId);
+
+        assertTrue(orderSearchCache.key(search()).isEmpty());
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    @DisplayName("Should use the cache again once a retried bump succeeds")
+    void shouldUseCacheAgainOnceRetriedBumpSucceeds() {
+        when(valueOperations.increment(anyString()))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(1L);
+
+        orderSearchCache.invalidate(partnerId);
+
+        assertTrue(orderSearchCache.key(search()).isPresent());
+        verify(valueOperations, times(2)).increment("order-search:generation:partner:" + partnerId);
+    }
+
+    @Test
+    @DisplayName("Should use the cache again once the entries of the old generation expired")
+    void shouldUseCacheAgainOnceOldGenerationExpired() {
+        ReflectionTestUtils.setField(orderSearchCache, "ttl", Duration.ZERO);
+        when(valueOperations.increment(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        orderSearchCache.invalidate(partnerId);
+
+        assertTrue(orderSearchCache.key(search()).isPresent());
+    }
+
+    private OrderSearchDTO search() {
+        return OrderSearchDTO.builder().partnerId(partnerId).build();
+    }
+}
@@ -0,0 +1,131 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.api.CountMode;
+import br.com.gazintech.orderapp.api.SortDirection;
+import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
+import br.com.gazintech.orderapp.dto.OrderResponseDTO;
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.repository.OrderRepository;
+import br.com.gazintech.orderapp.repository.specification.OrderSpecifications;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DisplayName("Order search cache Integration Tests")
+class OrderSearchCacheTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UUID partnerId;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = createPartner(BigDecimal.valueOf(1000), BigDecimal.valueOf(1000)).getId();
+
+        createOrder();
+        createOrder();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll(orderRepository.findAll(
+                OrderSpecifications.bySearchDto(OrderSearchDTO.builder().partnerId(partnerId).build())));
+    }
+
+    @Test
+    @DisplayName("Should answer a repeated search without querying the database")
+    void shouldAnswerRepeatedSearchWithoutQueryingDatabase() {
+        Page<OrderResponseDTO> first = orderService.searchOrders(search(null));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Page<OrderResponseDTO> second = orderService.searchOrders(search(null));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, second.getTotalElements());
+        assertEquals(first.getContent().stream().map(OrderResponseDTO::getId).toList(),
+                second.getContent().stream().map(OrderResponseDTO::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Should invalidate the searches of the partner when an order is created")
+    void shouldInvalidateSearchesOfPartnerWhenOrderIsCreated() {
+        assertEquals(2, orderService.searchOrders(search(null)).getTotalElements());
+
+        createOrder();
+
+        assertEquals(3, orderService.searchOrders(search(null)).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Should invalidate the searches of both statuses when an order changes status")
+    void shouldInvalidateSearchesOfBothStatusesWhenOrderChangesStatus() {
+        Page<OrderResponseDTO> pending = orderService.searchOrders(search(Order.OrderStatus.PENDING));
+        assertEquals(2, pending.getTotalElements());
+        assertEquals(0, orderService.searchOrders(search(Order.OrderStatus.APPROVED)).getTotalElements());
+
+        orderService.updateOrderStatus(pending.getContent().get(0).getId(), Order.OrderStatus.APPROVED);
+
+        assertEquals(1, orderService.searchOrders(search(Order.OrderStatus.PENDING)).getTotalElements());
+        Page<OrderResponseDTO> approved = orderService.searchOrders(search(Order.OrderStatus.APPROVED));
+        assertEquals(1, approved.getTotalElements());
+        assertEquals(Order.OrderStatus.APPROVED, approved.getContent().get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should give equivalent searches the same key")
+    void shouldGiveEquivalentSearchesSameKey() {
+        OffsetDateTime start = OffsetDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OrderSearchDTO utc = search(null);
+        utc.setStartDate(start);
+        OrderSearchDTO local = search(null);
+        local.setStartDate(start.withOffsetSameInstant(ZoneOffset.ofHours(-3)));
+        local.setCountMode(CountMode.EXACT);
+        utc.setCountMode(null);
+
+        assertEquals(utc.searchKey(), local.searchKey());
+    }
+
+    private void createOrder() {
+        orderService.createOrder(OrderPostRequestDTO.builder()
+                .partnerId(partnerId)
+                .items(List.of(OrderPostRequestDTO.OrderItemDTO.builder().name("Item 1").code("001").quantity(1).price(BigDecimal.TEN).build()))
+                .build());
+    }
+
+    private OrderSearchDTO search(Order.OrderStatus status) {
+        return OrderSearchDTO.builder()
+                .partnerId(partnerId)
+                .status(status)
+                .page(0)
+                .size(20)
+                .sortBy("createdAt")
+                .sortDirection(SortDirection.DESC)
+                .build();
+    }
+}
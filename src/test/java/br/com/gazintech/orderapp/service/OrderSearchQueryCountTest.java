@@ -0,0 +1,182 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.api.CountMode;
+import br.com.gazintech.orderapp.api.OrderField;
+import br.com.gazintech.orderapp.api.SortDirection;
+import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
+import br.com.gazintech.orderapp.dto.OrderResponseDTO;
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.repository.OrderRepository;
+import br.com.gazintech.orderapp.repository.specification.OrderSpecifications;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // the statements of the database path are counted, a cached search would run none
+        "order-app.orders.search-cache.enabled=false"
+})
+@DisplayName("Order search statement count Integration Tests")
+class OrderSearchQueryCountTest extends AbstractIntegrationTest {
+
+    private static final int ORDERS = 40;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UUID partnerId;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = createPartner(BigDecimal.valueOf(100_000), BigDecimal.valueOf(100_000)).getId();
+
+        for (int i = 0; i < ORDERS; i++) {
+            orderService.createOrder(OrderPostRequestDTO.builder()
+                    .partnerId(partnerId)
+                    .items(List.of(
+                            OrderPostRequestDTO.OrderItemDTO.builder().name("Item 1").code("001").quantity(1).price(BigDecimal.ONE).build(),
+                            OrderPostRequestDTO.OrderItemDTO.builder().name("Item 2").code("002").quantity(2).price(BigDecimal.TEN).build()))
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll(orderRepository.findAll(OrderSpecifications.bySearchDto(search(1, null))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20, 39})
+    @DisplayName("Should load a page of orders with partners and items in three statements")
+    void shouldLoadPageInFixedNumberOfStatements(int pageSize) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<OrderResponseDTO> page = orderService.searchOrders(OrderSearchDTO.builder()
+                .partnerId(partnerId)
+                .page(0)
+                .size(pageSize)
+                .sortBy("createdAt")
+                .sortDirection(SortDirection.DESC)
+                .build());
+
+        assertEquals(pageSize, page.getContent().size());
+        assertEquals(ORDERS, page.getTotalElements());
+        page.getContent().forEach(order -> assertEquals(2, order.getItems().size()));
+        // page with partners, items of the page and count
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should load a page without counting when the count is none")
+    void shouldLoadPageWithoutCountingWhenCountIsNone() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Slice<OrderResponseDTO> slice = orderService.searchOrdersWithoutCount(search(20, CountMode.NONE));
+
+        assertEquals(20, slice.getContent().size());
+        assertTrue(slice.hasNext());
+        slice.getContent().forEach(order -> assertEquals(2, order.getItems().size()));
+        // page with partners and one extra row, and items of the page
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should count a filtered search once while its count is cached")
+    void shouldCountFilteredSearchOnceWhileCountIsCached() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        Page<OrderResponseDTO> first = orderService.searchOrders(search(20, CountMode.ESTIMATE));
+        assertEquals(ORDERS, first.getTotalElements());
+        assertEquals(3, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        Page<OrderResponseDTO> second = orderService.searchOrders(search(20, CountMode.ESTIMATE));
+        assertEquals(ORDERS, second.getTotalElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should read only the selected columns without loading orders, partners or items")
+    void shouldReadOnlySelectedColumnsWithoutLoadingEntities() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        OrderSearchDTO searchDTO = search(20, CountMode.NONE);
+        searchDTO.setFields(EnumSet.of(OrderField.ID, OrderField.STATUS, OrderField.TOTAL_VALUE));
+        Slice<OrderResponseDTO> slice = orderService.searchOrdersWithoutCount(searchDTO);
+
+        assertEquals(20, slice.getContent().size());
+        assertTrue(slice.hasNext());
+        slice.getContent().forEach(order -> {
+            assertNotNull(order.getStatus());
+            assertEquals(0, BigDecimal.valueOf(21).compareTo(order.getTotalValue()));
+            assertNull(order.getItems());
+            assertNull(order.getPartner());
+        });
+        // the projection of the page only, with one extra row
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("Should read the items of a projection in one more statement when they are selected")
+    void shouldReadItemsOfProjectionWhenSelected() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        OrderSearchDTO searchDTO = search(20, CountMode.NONE);
+        searchDTO.setFields(EnumSet.of(OrderField.ID, OrderField.PARTNER, OrderField.ITEMS));
+        Slice<OrderResponseDTO> slice = orderService.searchOrdersWithoutCount(searchDTO);
+
+        assertEquals(20, slice.getContent().size());
+        slice.getContent().forEach(order -> {
+            assertEquals(partnerId, order.getPartner().getId());
+            assertEquals(2, order.getItems().size());
+        });
+        // the projection of the page with the partner join, and the items of the page
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private OrderSearchDTO search(int pageSize, CountMode countMode) {
+        return OrderSearchDTO.builder()
+                .partnerId(partnerId)
+                .page(0)
+                .size(pageSize)
+                .sortBy("createdAt")
+                .sortDirection(SortDirection.DESC)
+                .countMode(countMode)
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
+import br.com.gazintech.orderapp.dto.OrderResponseDTO;
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.repository.OrderRepository;
+import br.com.gazintech.orderapp.repository.specification.OrderSpecifications;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OrderService cache Integration Tests")
+class OrderServiceCacheTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID partnerId;
+
+    private UUID orderId;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = createPartner(BigDecimal.valueOf(100), BigDecimal.valueOf(100)).getId();
+
+        orderId = orderService.createOrder(OrderPostRequestDTO.builder()
+                .partnerId(partnerId)
+                .items(List.of(OrderPostRequestDTO.OrderItemDTO.builder().name("Item 1").code("001").quantity(1).price(BigDecimal.TEN).build()))
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll(orderRepository.findAll(
+                OrderSpecifications.bySearchDto(OrderSearchDTO.builder().partnerId(partnerId).build())));
+    }
+
+    @Test
+    @DisplayName("Should populate the cache when the order is created")
+    void shouldPopulateCacheWhenOrderIsCreated() {
+        assertEquals(Order.OrderStatus.PENDING, cachedOrder().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should keep the cached order when the status update rolls back")
+    void shouldKeepCachedOrderWhenStatusUpdateRollsBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            orderService.updateOrderStatus(orderId, Order.OrderStatus.APPROVED);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(Order.OrderStatus.PENDING, cachedOrder().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should update the cached order after the status update commits")
+    void shouldUpdateCachedOrderAfterStatusUpdateCommits() {
+        orderService.updateOrderStatus(orderId, Order.OrderStatus.APPROVED);
+
+        assertEquals(Order.OrderStatus.APPROVED, cachedOrder().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should evict the cached order when it is canceled")
+    void shouldEvictCachedOrderWhenItIsCanceled() {
+        orderService.cancelOrder(orderId);
+
+        assertNull(ordersCache().get(orderId));
+        assertEquals(Order.OrderStatus.CANCELED, orderService.getOrderById(orderId).getStatus());
+    }
+
+    private OrderResponseDTO cachedOrder() {
+        Cache.ValueWrapper cached = ordersCache().get(orderId);
+        assertNotNull(cached);
+        return (OrderResponseDTO) cached.get();
+    }
+
+    private Cache ordersCache() {
+        return cacheManager.getCache("orders");
+    }
+}
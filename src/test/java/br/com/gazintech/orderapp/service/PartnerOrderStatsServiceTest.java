@@ -0,0 +1,192 @@
+package br.com.gazintech.orderapp.service;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.dto.OrderPostRequestDTO;
+import br.com.gazintech.orderapp.dto.OrderSearchDTO;
+import br.com.gazintech.orderapp.dto.PartnerOrderStatsDTO;
+import br.com.gazintech.orderapp.entity.Order;
+import br.com.gazintech.orderapp.entity.PartnerOrderStats;
+import br.com.gazintech.orderapp.exception.PartnerNotFoundException;
+import br.com.gazintech.orderapp.repository.OrderRepository;
+import br.com.gazintech.orderapp.repository.PartnerOrderStatsRepository;
+import br.com.gazintech.orderapp.repository.specification.OrderSpecifications;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "order-app.partners.order-stats.rebuild-batch-size=2")
+@DisplayName("Partner order statistics Integration Tests")
+class PartnerOrderStatsServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private PartnerOrderStatsService partnerOrderStatsService;
+
+    @Autowired
+    private PartnerOrderStatsRepository partnerOrderStatsRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private UUID partnerId;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = createPartner(BigDecimal.valueOf(1000), BigDecimal.valueOf(1000)).getId();
+
+        UUID approved = createOrder(BigDecimal.TEN);
+        UUID canceled = createOrder(BigDecimal.valueOf(20));
+        createOrder(BigDecimal.valueOf(30));
+        orderService.updateOrderStatus(approved, Order.OrderStatus.APPROVED);
+        orderService.cancelOrder(canceled);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll(orderRepository.findAll(
+                OrderSpecifications.bySearchDto(OrderSearchDTO.builder().partnerId(partnerId).build())));
+        transactionTemplate.executeWithoutResult(status -> partnerOrderStatsRepository.deleteByPartnerIds(List.of(partnerId)));
+    }
+
+    @Test
+    @DisplayName("Should keep the statistics in step with order creation and status changes")
+    void shouldKeepStatisticsInStepWithOrderWrites() {
+        assertStats(partnerOrderStatsService.getStats(partnerId));
+    }
+
+    @Test
+    @DisplayName("Should not serve cached statistics after an order changes")
+    void shouldNotServeCachedStatisticsAfterOrderChanges() {
+        partnerOrderStatsService.getStats(partnerId);
+
+        createOrder(BigDecimal.ONE);
+
+        PartnerOrderStatsDTO stats = partnerOrderStatsService.getStats(partnerId);
+        assertEquals(4, stats.getTotalOrders());
+        assertEquals(2, statusStats(stats, Order.OrderStatus.PENDING).getOrderCount());
+        assertEquals(0, BigDecimal.valueOf(31).compareTo(statusStats(stats, Order.OrderStatus.PENDING).getTotalValue()));
+    }
+
+    @Test
+    @DisplayName("Should recompute drifted statistics from the orders on rebuild")
+    void shouldRecomputeDriftedStatisticsOnRebuild() {
+        partnerOrderStatsRepository.save(new PartnerOrderStats(partnerId, Order.OrderStatus.SHIPPED,
+                42L, BigDecimal.valueOf(4200), OffsetDateTime.now()));
+        transactionTemplate.executeWithoutResult(status ->
+                partnerOrderStatsRepository.add(partnerId, Order.OrderStatus.PENDING.name(), 5, BigDecimal.valueOf(500)));
+
+        partnerOrderStatsService.rebuild();
+
+        assertStats(partnerOrderStatsService.getStats(partnerId));
+    }
+
+    @Test
+    @DisplayName("Should skip the rebuild while another node is rebuilding")
+    void shouldSkipRebuildWhileAnotherNodeIsRebuilding() throws Exception {
+        transactionTemplate.executeWithoutResult(status ->
+                partnerOrderStatsRepository.add(partnerId, Order.OrderStatus.PENDING.name(), 5, BigDecimal.valueOf(500)));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // another node holds the lock of the rebuild in its own transaction
+        CompletableFuture<Void> otherNode = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            partnerOrderStatsRepository.tryLockRebuild();
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+            partnerOrderStatsService.rebuild();
+        } finally {
+            release.countDown();
+            otherNode.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(6, statusStats(partnerOrderStatsService.getStats(partnerId), Order.OrderStatus.PENDING).getOrderCount());
+    }
+
+    @Test
+    @DisplayName("Should throw PartnerNotFoundException when the partner does not exist")
+    void shouldThrowWhenPartnerDoesNotExist() {
+        assertThrows(PartnerNotFoundException.class, () -> partnerOrderStatsService.getStats(UUID.randomUUID()));
+    }
+
+    @Test
+    @DisplayName("Should serve the statistics through the endpoint")
+    void shouldServeStatisticsThroughEndpoint() throws Exception {
+        mockMvc.perform(get("/v1/partners/{id}/order-stats", partnerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.body.partnerId").value(partnerId.toString()))
+                .andExpect(jsonPath("$.body.totalOrders").value(3))
+                .andExpect(jsonPath("$.body.statuses.length()").value(Order.OrderStatus.values().length));
+
+        mockMvc.perform(get("/v1/partners/{id}/order-stats", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    private UUID createOrder(BigDecimal price) {
+        return orderService.createOrder(OrderPostRequestDTO.builder()
+                .partnerId(partnerId)
+                .items(List.of(OrderPostRequestDTO.OrderItemDTO.builder().name("Item 1").code("001").quantity(1).price(price).build()))
+                .build()).getId();
+    }
+
+    private void assertStats(PartnerOrderStatsDTO stats) {
+        assertEquals(partnerId, stats.getPartnerId());
+        assertEquals(3, stats.getTotalOrders());
+        assertEquals(0, BigDecimal.valueOf(60).compareTo(stats.getTotalValue()));
+        assertEquals(Order.OrderStatus.values().length, stats.getStatuses().size());
+
+        assertStatus(stats, Order.OrderStatus.PENDING, 1, BigDecimal.valueOf(30));
+        assertStatus(stats, Order.OrderStatus.APPROVED, 1, BigDecimal.TEN);
+        assertStatus(stats, Order.OrderStatus.CANCELED, 1, BigDecimal.valueOf(20));
+        assertStatus(stats, Order.OrderStatus.SHIPPED, 0, BigDecimal.ZERO);
+    }
+
+    private static void assertStatus(PartnerOrderStatsDTO stats, Order.OrderStatus status, long orderCount, BigDecimal totalValue) {
+        PartnerOrderStatsDTO.StatusStatsDTO statusStats = statusStats(stats, status);
+        assertEquals(orderCount, statusStats.getOrderCount(), status.name());
+        assertEquals(0, totalValue.compareTo(statusStats.getTotalValue()), status.name());
+    }
+
+    private static PartnerOrderStatsDTO.StatusStatsDTO statusStats(PartnerOrderStatsDTO stats, Order.OrderStatus status) {
+        return stats.getStatuses().stream()
+                .filter(statusStats -> statusStats.getStatus() == status)
+                .findFirst()
+                .orElseThrow();
+    }
+}
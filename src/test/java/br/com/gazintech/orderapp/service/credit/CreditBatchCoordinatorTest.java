@@ -0,0 +1,115 @@
+package br.com.gazintech.orderapp.service.credit;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.entity.Money;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import br.com.gazintech.orderapp.service.CreditService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "order-app.credit.mode=GROUP_COMMIT",
+        "order-app.credit.group-commit.window-ms=50",
+        "order-app.credit.group-commit.confirm-grace=PT1S",
+        "order-app.credit.group-commit.sweep-interval-ms=3600000"
+})
+@DisplayName("CreditBatchCoordinator Integration Tests")
+class CreditBatchCoordinatorTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CreditBatchCoordinator creditBatchCoordinator;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private PartnerRepository partnerRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID partnerId;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = createPartner(BigDecimal.valueOf(100), BigDecimal.valueOf(100)).getId();
+    }
+
+    @Test
+    @DisplayName("Should give each debit of a batch its own outcome in arrival order")
+    void shouldGiveEachDebitOfBatchItsOwnOutcome() {
+        List<CompletableFuture<UUID>> debits = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            debits.add(creditBatchCoordinator.debit(partnerId, Money.ofCents(3_000)));
+        }
+
+        for (int i = 0; i < debits.size(); i++) {
+            if (i < 3) {
+                assertDoesNotThrow(debits.get(i)::join);
+            } else {
+                CompletionException exception = assertThrows(CompletionException.class, debits.get(i)::join);
+                assertInstanceOf(InsufficientBalanceException.class, exception.getCause());
+            }
+        }
+        assertEquals(0, BigDecimal.TEN.compareTo(storedAvailableCredit()));
+    }
+
+    @Test
+    @DisplayName("Should give the batched debit back when the caller transaction rolls back")
+    void shouldGiveBatchedDebitBackWhenCallerTransactionRollsBack() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            creditService.debitCredit(partnerId, BigDecimal.valueOf(40));
+            assertEquals(0, BigDecimal.valueOf(60).compareTo(storedAvailableCredit()));
+            status.setRollbackOnly();
+        });
+
+        // the debit is given back asynchronously on the coordinator workers
+        for (int i = 0; i < 50 && storedAvailableCredit().compareTo(BigDecimal.valueOf(100)) != 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(storedAvailableCredit()));
+    }
+
+    @Test
+    @DisplayName("Should give back a batched debit its caller never confirmed")
+    void shouldGiveBackBatchedDebitNeverConfirmed() throws InterruptedException {
+        // a caller that crashed between the batch commit and its own commit never confirms
+        creditBatchCoordinator.debit(partnerId, Money.ofCents(4_000)).join();
+        assertEquals(0, BigDecimal.valueOf(60).compareTo(storedAvailableCredit()));
+
+        creditBatchCoordinator.sweep();
+        assertEquals(0, BigDecimal.valueOf(60).compareTo(storedAvailableCredit()));
+
+        Thread.sleep(1100);
+        creditBatchCoordinator.sweep();
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(storedAvailableCredit()));
+    }
+
+    @Test
+    @DisplayName("Should keep a batched debit confirmed by a committed caller")
+    void shouldKeepBatchedDebitConfirmedByCommittedCaller() throws InterruptedException {
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(40));
+
+        Thread.sleep(1100);
+        creditBatchCoordinator.sweep();
+        assertEquals(0, BigDecimal.valueOf(60).compareTo(storedAvailableCredit()));
+    }
+
+    private BigDecimal storedAvailableCredit() {
+        return partnerRepository.findById(partnerId).orElseThrow().getAvailableCredit();
+    }
+}
@@ -0,0 +1,153 @@
+package br.com.gazintech.orderapp.service.credit;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import br.com.gazintech.orderapp.repository.PendingCreditDeltaRepository;
+import br.com.gazintech.orderapp.service.CreditService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "order-app.credit.mode=IN_MEMORY",
+        "order-app.credit.in-memory.flush-interval-ms=3600000"
+})
+@DisplayName("InMemoryCreditEngine Integration Tests")
+class InMemoryCreditEngineTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private InMemoryCreditEngine creditEngine;
+
+    @Autowired
+    private PartnerRepository partnerRepository;
+
+    @Autowired
+    private PendingCreditDeltaRepository pendingCreditDeltaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID partnerId;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = createPartner(BigDecimal.valueOf(100), BigDecimal.valueOf(100)).getId();
+    }
+
+    @Test
+    @DisplayName("Should not lose credit when the process crashes between flushes")
+    void shouldNotLoseCreditWhenProcessCrashesBetweenFlushes() {
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(10));
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(10));
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(10));
+        creditService.creditCredit(partnerId, BigDecimal.valueOf(5));
+
+        assertEquals(0, BigDecimal.valueOf(75).compareTo(creditService.getAvailableCredit(partnerId)));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(storedAvailableCredit()));
+        assertEquals(4, pendingDeltaCount());
+
+        // a fresh engine has nothing in memory, exactly like a restarted process
+        InMemoryCreditEngine restarted = new InMemoryCreditEngine(partnerRepository, pendingCreditDeltaRepository, 64, 500);
+        restarted.rebuild();
+        assertEquals(0, BigDecimal.valueOf(75).compareTo(restarted.getAvailableCredit(partnerId)));
+
+        restarted.flush();
+        assertEquals(0, BigDecimal.valueOf(75).compareTo(storedAvailableCredit()));
+        assertEquals(0, pendingDeltaCount());
+
+        InMemoryCreditEngine restartedAfterFlush = new InMemoryCreditEngine(partnerRepository, pendingCreditDeltaRepository, 64, 500);
+        restartedAfterFlush.rebuild();
+        assertEquals(0, BigDecimal.valueOf(75).compareTo(restartedAfterFlush.getAvailableCredit(partnerId)));
+    }
+
+    @Test
+    @DisplayName("Should revert the in-memory debit when the transaction rolls back")
+    void shouldRevertInMemoryDebitWhenTransactionRollsBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            creditService.debitCredit(partnerId, BigDecimal.valueOf(40));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(creditService.getAvailableCredit(partnerId)));
+        assertEquals(0, pendingDeltaCount());
+    }
+
+    @Test
+    @DisplayName("Should not let a debit spend a credit that is rolled back")
+    void shouldNotLetDebitSpendCreditThatIsRolledBack() throws Exception {
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(100));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            creditService.creditCredit(partnerId, BigDecimal.valueOf(40));
+
+            // another transaction does not see the credit before it commits
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                assertThrows(Exception.class, () -> executor.submit(
+                        () -> creditService.debitCredit(partnerId, BigDecimal.valueOf(40))).get());
+            } finally {
+                executor.shutdown();
+            }
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(creditService.getAvailableCredit(partnerId)));
+
+        creditService.creditCredit(partnerId, BigDecimal.valueOf(40));
+        assertEquals(0, BigDecimal.valueOf(40).compareTo(creditService.getAvailableCredit(partnerId)));
+    }
+
+    @Test
+    @DisplayName("Should never overdraw a partner under concurrent debits")
+    void shouldNeverOverdrawPartnerUnderConcurrentDebits() throws InterruptedException {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 200; i++) {
+            executor.submit(() -> {
+                try {
+                    creditService.debitCredit(partnerId, BigDecimal.ONE);
+                    succeeded.incrementAndGet();
+                } catch (InsufficientBalanceException e) {
+                    rejected.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(100, succeeded.get());
+        assertEquals(100, rejected.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(creditService.getAvailableCredit(partnerId)));
+
+        creditEngine.flush();
+        assertEquals(0, BigDecimal.ZERO.compareTo(storedAvailableCredit()));
+    }
+
+    private BigDecimal storedAvailableCredit() {
+        return partnerRepository.findById(partnerId).orElseThrow().getAvailableCredit();
+    }
+
+    private long pendingDeltaCount() {
+        return pendingCreditDeltaRepository.findAll().stream()
+                .filter(delta -> delta.getPartnerId().equals(partnerId))
+                .count();
+    }
+}
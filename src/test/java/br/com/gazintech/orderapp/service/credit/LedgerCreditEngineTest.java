@@ -0,0 +1,148 @@
+package br.com.gazintech.orderapp.service.credit;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.entity.PartnerCreditEntry;
+import br.com.gazintech.orderapp.entity.PartnerCreditSnapshot;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.repository.PartnerCreditDirtyRepository;
+import br.com.gazintech.orderapp.repository.PartnerCreditEntryRepository;
+import br.com.gazintech.orderapp.repository.PartnerCreditSnapshotRepository;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import br.com.gazintech.orderapp.service.CreditService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "order-app.credit.mode=LEDGER",
+        "order-app.credit.ledger.compaction-interval-ms=3600000"
+})
+@DisplayName("LedgerCreditEngine Integration Tests")
+class LedgerCreditEngineTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private LedgerCreditEngine creditEngine;
+
+    @Autowired
+    private PartnerRepository partnerRepository;
+
+    @Autowired
+    private PartnerCreditEntryRepository partnerCreditEntryRepository;
+
+    @Autowired
+    private PartnerCreditSnapshotRepository partnerCreditSnapshotRepository;
+
+    @Autowired
+    private PartnerCreditDirtyRepository partnerCreditDirtyRepository;
+
+    private UUID partnerId;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = createPartner(BigDecimal.valueOf(100), BigDecimal.valueOf(100)).getId();
+    }
+
+    @Test
+    @DisplayName("Should read the balance as snapshot plus tail and keep the history after compaction")
+    void shouldReadBalanceAsSnapshotPlusTail() {
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(30));
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(20));
+
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(creditService.getAvailableCredit(partnerId)));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(storedAvailableCredit()));
+        assertTrue(partnerCreditDirtyRepository.existsById(partnerId));
+
+        creditEngine.compact();
+        assertFalse(partnerCreditDirtyRepository.existsById(partnerId));
+        PartnerCreditSnapshot snapshot = partnerCreditSnapshotRepository.findById(partnerId).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(snapshot.getAvailableCredit()));
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(storedAvailableCredit()));
+
+        creditService.creditCredit(partnerId, BigDecimal.valueOf(15));
+        assertEquals(0, BigDecimal.valueOf(65).compareTo(creditService.getAvailableCredit(partnerId)));
+        assertTrue(partnerCreditDirtyRepository.existsById(partnerId));
+
+        creditEngine.compact();
+        assertEquals(0, BigDecimal.valueOf(65).compareTo(storedAvailableCredit()));
+        assertEquals(List.of(PartnerCreditEntry.EntryType.DEBIT, PartnerCreditEntry.EntryType.DEBIT, PartnerCreditEntry.EntryType.CREDIT),
+                entries().stream().map(PartnerCreditEntry::getEntryType).toList());
+    }
+
+    @Test
+    @DisplayName("Should cap credits at the credit limit")
+    void shouldCapCreditsAtCreditLimit() {
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(10));
+        creditService.creditCredit(partnerId, BigDecimal.valueOf(50));
+
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(creditService.getAvailableCredit(partnerId)));
+        assertEquals(0, BigDecimal.TEN.compareTo(entries().get(1).getDelta()));
+    }
+
+    @Test
+    @DisplayName("Should keep the used credit when the credit limit changes")
+    void shouldKeepUsedCreditWhenCreditLimitChanges() {
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(30));
+        creditService.updateCreditLimit(partnerId, BigDecimal.valueOf(200));
+
+        assertEquals(0, BigDecimal.valueOf(170).compareTo(creditService.getAvailableCredit(partnerId)));
+        assertEquals(PartnerCreditEntry.EntryType.LIMIT_ADJUSTMENT, entries().get(1).getEntryType());
+    }
+
+    @Test
+    @DisplayName("Should never overdraw a partner under concurrent debits and compactions")
+    void shouldNeverOverdrawPartnerUnderConcurrentDebits() throws InterruptedException {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 200; i++) {
+            int attempt = i;
+            executor.submit(() -> {
+                try {
+                    creditService.debitCredit(partnerId, BigDecimal.ONE);
+                    succeeded.incrementAndGet();
+                } catch (InsufficientBalanceException e) {
+                    rejected.incrementAndGet();
+                }
+                if (attempt % 50 == 0) {
+                    creditEngine.compact();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(100, succeeded.get());
+        assertEquals(100, rejected.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(creditService.getAvailableCredit(partnerId)));
+
+        creditEngine.compact();
+        assertEquals(0, BigDecimal.ZERO.compareTo(storedAvailableCredit()));
+    }
+
+    private BigDecimal storedAvailableCredit() {
+        return partnerRepository.findById(partnerId).orElseThrow().getAvailableCredit();
+    }
+
+    private List<PartnerCreditEntry> entries() {
+        return partnerCreditEntryRepository.findAll().stream()
+                .filter(entry -> entry.getPartnerId().equals(partnerId))
+                .sorted((first, second) -> first.getId().compareTo(second.getId()))
+                .toList();
+    }
+}
@@ -0,0 +1,161 @@
+package br.com.gazintech.orderapp.service.credit;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.entity.Partner;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import br.com.gazintech.orderapp.service.CreditService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "order-app.credit.mode=REDIS",
+        "order-app.credit.redis.reconcile-interval-ms=3600000",
+        "order-app.credit.redis.commit-grace=PT1S"
+})
+@DisplayName("RedisCreditEngine Integration Tests")
+class RedisCreditEngineTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private RedisCreditEngine creditEngine;
+
+    @Autowired
+    private PartnerRepository partnerRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID partnerId;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = createPartner(BigDecimal.valueOf(100), BigDecimal.valueOf(100)).getId();
+    }
+
+    @Test
+    @DisplayName("Should keep the balance exact after concurrent debits")
+    void shouldKeepBalanceExactAfterConcurrentDebits() throws InterruptedException {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 400; i++) {
+            executor.submit(() -> {
+                start.await();
+                try {
+                    creditService.debitCredit(partnerId, new BigDecimal("0.50"));
+                    succeeded.incrementAndGet();
+                } catch (InsufficientBalanceException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(200, succeeded.get());
+        assertEquals(200, rejected.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(creditService.getAvailableCredit(partnerId)));
+
+        creditEngine.reconcile();
+        assertEquals(0, BigDecimal.ZERO.compareTo(storedAvailableCredit()));
+    }
+
+    @Test
+    @DisplayName("Should apply every stream entry to Postgres exactly once")
+    void shouldApplyEveryStreamEntryExactlyOnce() {
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(30));
+        creditService.creditCredit(partnerId, BigDecimal.valueOf(10));
+
+        creditEngine.reconcile();
+        creditEngine.reconcile();
+
+        assertEquals(0, BigDecimal.valueOf(80).compareTo(storedAvailableCredit()));
+        assertEquals(0, BigDecimal.valueOf(80).compareTo(creditService.getAvailableCredit(partnerId)));
+        assertEquals(0L, redisTemplate.opsForStream().size(RedisCreditEngine.STREAM_KEY));
+    }
+
+    @Test
+    @DisplayName("Should compensate the Redis debit when the transaction rolls back")
+    void shouldCompensateRedisDebitWhenTransactionRollsBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            creditService.debitCredit(partnerId, BigDecimal.valueOf(40));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(creditService.getAvailableCredit(partnerId)));
+
+        creditEngine.reconcile();
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(storedAvailableCredit()));
+    }
+
+    @Test
+    @DisplayName("Should revert a Redis change whose transaction never committed")
+    void shouldRevertRedisChangeWhoseTransactionNeverCommitted() throws InterruptedException {
+        creditService.getAvailableCredit(partnerId);
+        // what a node that crashed between the Redis script and its commit leaves behind
+        redisTemplate.opsForHash().increment("credit:account:" + partnerId, "available", -4000);
+        redisTemplate.opsForStream().add(RedisCreditEngine.STREAM_KEY, Map.of("partnerId", partnerId.toString(), "delta", "-4000"));
+
+        creditEngine.reconcile();
+        assertEquals(0, BigDecimal.valueOf(60).compareTo(creditService.getAvailableCredit(partnerId)));
+
+        Thread.sleep(1100);
+        creditEngine.reconcile();
+
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(creditService.getAvailableCredit(partnerId)));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(storedAvailableCredit()));
+    }
+
+    @Test
+    @DisplayName("Should cap credits at the credit limit")
+    void shouldCapCreditsAtCreditLimit() {
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(10));
+        creditService.creditCredit(partnerId, BigDecimal.valueOf(50));
+
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(creditService.getAvailableCredit(partnerId)));
+    }
+
+    @Test
+    @DisplayName("Should keep the used credit when the credit limit changes")
+    void shouldKeepUsedCreditWhenCreditLimitChanges() {
+        creditService.debitCredit(partnerId, BigDecimal.valueOf(30));
+        creditService.updateCreditLimit(partnerId, BigDecimal.valueOf(200));
+
+        assertEquals(0, BigDecimal.valueOf(170).compareTo(creditService.getAvailableCredit(partnerId)));
+
+        creditEngine.reconcile();
+        Partner stored = partnerRepository.findById(partnerId).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(stored.getCreditLimit()));
+        assertEquals(0, BigDecimal.valueOf(170).compareTo(stored.getAvailableCredit()));
+    }
+
+    private BigDecimal storedAvailableCredit() {
+        return partnerRepository.findById(partnerId).orElseThrow().getAvailableCredit();
+    }
+}
@@ -0,0 +1,158 @@
+package br.com.gazintech.orderapp.service.credit;
+
+import br.com.gazintech.orderapp.AbstractIntegrationTest;
+import br.com.gazintech.orderapp.entity.PartnerCreditShard;
+import br.com.gazintech.orderapp.exception.InsufficientBalanceException;
+import br.com.gazintech.orderapp.repository.PartnerCreditShardRepository;
+import br.com.gazintech.orderapp.repository.PartnerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShardedCreditEngine Integration Tests")
+class ShardedCreditEngineTest extends AbstractIntegrationTest {
+
+    private static final int SHARDS = 4;
+    private static final int DEBITS_PER_TRANSACTION = 3;
+
+    @Autowired
+    private PartnerCreditShardRepository partnerCreditShardRepository;
+
+    @Autowired
+    private PartnerRepository partnerRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID partnerId;
+    private ShardedCreditEngine creditEngine;
+
+    @BeforeEach
+    void setUp() {
+        partnerId = createPartner(BigDecimal.valueOf(100), BigDecimal.valueOf(100)).getId();
+
+        creditEngine = new ShardedCreditEngine(partnerCreditShardRepository, partnerRepository, SHARDS, Set.of(partnerId));
+    }
+
+    @Test
+    @DisplayName("Should borrow from sibling shards when the picked shard runs dry")
+    void shouldBorrowFromSiblingShardsWhenShardRunsDry() {
+        inTransaction(() -> creditEngine.debitCredit(partnerId, BigDecimal.valueOf(60)));
+
+        assertEquals(0, BigDecimal.valueOf(40).compareTo(creditEngine.getAvailableCredit(partnerId)));
+        assertEquals(SHARDS, shards().size());
+        assertThrows(InsufficientBalanceException.class,
+                () -> inTransaction(() -> creditEngine.debitCredit(partnerId, BigDecimal.valueOf(50))));
+        assertEquals(0, BigDecimal.valueOf(40).compareTo(creditEngine.getAvailableCredit(partnerId)));
+    }
+
+    @Test
+    @DisplayName("Should cap credits at the limit of the shards")
+    void shouldCapCreditsAtShardLimits() {
+        inTransaction(() -> creditEngine.debitCredit(partnerId, BigDecimal.valueOf(10)));
+        inTransaction(() -> creditEngine.creditCredit(partnerId, BigDecimal.valueOf(50)));
+
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(creditEngine.getAvailableCredit(partnerId)));
+        shards().forEach(shard -> assertTrue(shard.getAvailableCredit().compareTo(shard.getCreditLimit()) <= 0));
+    }
+
+    @Test
+    @DisplayName("Should redistribute the new limit across shards keeping the used credit")
+    void shouldRedistributeNewLimitAcrossShards() {
+        inTransaction(() -> creditEngine.debitCredit(partnerId, BigDecimal.valueOf(30)));
+        inTransaction(() -> creditEngine.updateCreditLimit(partnerId, new BigDecimal("200.01")));
+
+        assertEquals(0, new BigDecimal("170.01").compareTo(creditEngine.getAvailableCredit(partnerId)));
+        List<PartnerCreditShard> shards = shards();
+        assertEquals(0, new BigDecimal("200.01").compareTo(shards.stream()
+                .map(PartnerCreditShard::getCreditLimit)
+                .reduce(BigDecimal.ZERO, BigDecimal::add)));
+        shards.forEach(shard -> assertTrue(shard.getAvailableCredit().compareTo(shard.getCreditLimit()) <= 0));
+        assertEquals(0, new BigDecimal("200.01").compareTo(partnerRepository.findById(partnerId).orElseThrow().getCreditLimit()));
+    }
+
+    @Test
+    @DisplayName("Should never overdraw a sharded partner under concurrent debits")
+    void shouldNeverOverdrawShardedPartnerUnderConcurrentDebits() throws InterruptedException {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 200; i++) {
+            executor.submit(() -> {
+                try {
+                    inTransaction(() -> creditEngine.debitCredit(partnerId, BigDecimal.ONE));
+                    succeeded.incrementAndGet();
+                } catch (InsufficientBalanceException e) {
+                    rejected.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(100, succeeded.get());
+        assertEquals(100, rejected.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(creditEngine.getAvailableCredit(partnerId)));
+
+        creditEngine.syncPartners();
+        assertEquals(0, BigDecimal.ZERO.compareTo(partnerRepository.findById(partnerId).orElseThrow().getAvailableCredit()));
+    }
+
+    @Test
+    @DisplayName("Should not deadlock concurrent transactions debiting a sharded partner several times")
+    void shouldNotDeadlockTransactionsDebitingShardedPartnerSeveralTimes() throws InterruptedException {
+        AtomicInteger committed = new AtomicInteger();
+        Queue<Exception> unexpected = new ConcurrentLinkedQueue<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 100; i++) {
+            executor.submit(() -> {
+                try {
+                    inTransaction(() -> {
+                        for (int debit = 0; debit < DEBITS_PER_TRANSACTION; debit++) {
+                            creditEngine.debitCredit(partnerId, BigDecimal.ONE);
+                        }
+                    });
+                    committed.incrementAndGet();
+                } catch (InsufficientBalanceException e) {
+                    // rolled back as a whole
+                } catch (Exception e) {
+                    unexpected.add(e);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+        assertTrue(committed.get() > 0);
+        assertEquals(0, BigDecimal.valueOf(100 - (long) committed.get() * DEBITS_PER_TRANSACTION)
+                .compareTo(creditEngine.getAvailableCredit(partnerId)));
+    }
+
+    private List<PartnerCreditShard> shards() {
+        return partnerCreditShardRepository.findAll().stream()
+                .filter(shard -> shard.getPartnerId().equals(partnerId))
+                .toList();
+    }
+
+    private void inTransaction(Runnable action) {
+        transactionTemplate.executeWithoutResult(status -> action.run());
+    }
+}